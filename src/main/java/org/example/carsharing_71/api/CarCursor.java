@@ -0,0 +1,126 @@
+package org.example.carsharing_71.api;
+
+import org.example.carsharing_71.api.dto.CarDto;
+import org.example.carsharing_71.domain.Car;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации каталога автомобилей.
+ * <p>
+ * Хранит ключ сортировки последнего отданного автомобиля и его id (id нужен для
+ * стабильного порядка при одинаковых ключах). Наружу отдаётся непрозрачной строкой
+ * Base64URL, клиент передаёт её обратно в параметре {@code cursor} без изменений.
+ */
+public final class CarCursor {
+    private static final String VERSION = "v1";
+
+    /**
+     * Поддерживаемые варианты стабильной сортировки.
+     */
+    public enum Sort {
+        /** По id (по умолчанию). */
+        ID("id"),
+        /** По госномеру, затем по id. */
+        PLATE_NUMBER("plateNumber");
+
+        private final String param;
+
+        Sort(String param) {
+            this.param = param;
+        }
+
+        public String getParam() {
+            return param;
+        }
+
+        /**
+         * Разбирает значение параметра {@code sort} запроса.
+         *
+         * @throws ResponseStatusException 422, если вариант сортировки не поддерживается
+         */
+        public static Sort fromParam(String value) {
+            for (Sort sort : values()) {
+                if (sort.param.equals(value)) {
+                    return sort;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Unsupported sort: " + value);
+        }
+    }
+
+    private final Sort sort;
+    private final long id;
+    private final String plateNumber;
+
+    private CarCursor(Sort sort, long id, String plateNumber) {
+        this.sort = sort;
+        this.id = id;
+        this.plateNumber = plateNumber;
+    }
+
+    /**
+     * Курсор, указывающий на позицию сразу после переданного автомобиля.
+     */
+    public static CarCursor after(Car car, Sort sort) {
+        return new CarCursor(sort, car.getId(), sort == Sort.PLATE_NUMBER ? car.getPlateNumber() : null);
+    }
+
+    /**
+     * Курсор, указывающий на позицию сразу после переданной строки каталога.
+     */
+    public static CarCursor after(CarDto car, Sort sort) {
+        return new CarCursor(sort, car.getId(), sort == Sort.PLATE_NUMBER ? car.getPlateNumber() : null);
+    }
+
+    /**
+     * Разбирает курсор, полученный от клиента.
+     *
+     * @param token         строка курсора (null — первая страница)
+     * @param expectedSort  сортировка текущего запроса; курсор другой сортировки не принимается
+     * @return курсор или null для первой страницы
+     * @throws ResponseStatusException 422, если курсор повреждён или выдан для другой сортировки
+     */
+    public static CarCursor decode(String token, Sort expectedSort) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // Формат: v1:<sort>:<id>[:<plateNumber>] — номер последним, т.к. может содержать ':'
+            String[] parts = raw.split(":", 4);
+            if (parts.length < 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Unknown cursor format");
+            }
+            Sort sort = Sort.valueOf(parts[1]);
+            if (sort != expectedSort) {
+                throw new IllegalArgumentException("Cursor was issued for another sort");
+            }
+            long id = Long.parseLong(parts[2]);
+            String plateNumber = sort == Sort.PLATE_NUMBER ? parts[3] : null;
+            return new CarCursor(sort, id, plateNumber);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = VERSION + ":" + sort.name() + ":" + id + (plateNumber != null ? ":" + plateNumber : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getPlateNumber() {
+        return plateNumber;
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.carsharing_71.api;
+
+import org.example.carsharing_71.domain.Reservation;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации бронирований пользователя.
+ * <p>
+ * Хранит начало и id последнего отданного бронирования (порядок — по {@code startAt}, затем по id).
+ * Наружу отдаётся непрозрачной строкой Base64URL, как и {@link CarCursor}.
+ */
+public final class ReservationCursor {
+    private static final String VERSION = "v1";
+
+    private final Instant startAt;
+    private final long id;
+
+    private ReservationCursor(Instant startAt, long id) {
+        this.startAt = startAt;
+        this.id = id;
+    }
+
+    /**
+     * Курсор, указывающий на позицию сразу после переданного бронирования.
+     */
+    public static ReservationCursor after(Reservation reservation) {
+        return new ReservationCursor(reservation.getStartAt(), reservation.getId());
+    }
+
+    /**
+     * Разбирает курсор, полученный от клиента.
+     *
+     * @param token строка курсора (null — первая страница)
+     * @return курсор или null для первой страницы
+     * @throws ResponseStatusException 422, если курсор повреждён
+     */
+    public static ReservationCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // Формат: v1:<id>:<startAt ISO-8601> — время последним, т.к. содержит ':'
+            String[] parts = raw.split(":", 3);
+            if (parts.length < 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Unknown cursor format");
+            }
+            return new ReservationCursor(Instant.parse(parts[2]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = VERSION + ":" + id + ":" + startAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Instant getStartAt() {
+        return startAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
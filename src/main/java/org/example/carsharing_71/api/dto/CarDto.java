@@ -1,6 +1,14 @@
 package org.example.carsharing_71.api.dto;
 
+import org.example.carsharing_71.cache.CarModelSnapshot;
+import org.example.carsharing_71.cache.LocationSnapshot;
 import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.CarModel;
+import org.example.carsharing_71.domain.FuelType;
+import org.example.carsharing_71.domain.Location;
+import org.example.carsharing_71.domain.Transmission;
+import org.example.carsharing_71.repository.projection.CarRow;
+import org.example.carsharing_71.repository.projection.CarView;
 
 /**
  * DTO автомобиля для REST‑ответов.
@@ -19,24 +27,67 @@ public class CarDto {
     private String locationName;
     private String status;
 
+    public CarDto() {
+    }
+
     /**
      * Маппит сущность Car в DTO.
      */
     public static CarDto fromEntity(Car car) {
         CarDto dto = new CarDto();
         dto.setId(car.getId());
-        dto.setBrand(car.getCarModel().getBrand());
-        dto.setModel(car.getCarModel().getModelName());
-        dto.setSeats(car.getCarModel().getSeats());
-        dto.setTransmission(car.getCarModel().getTransmission().name());
-        dto.setFuelType(car.getCarModel().getFuelType().name());
         dto.setPlateNumber(car.getPlateNumber());
-        dto.setLocationId(car.getLocation().getId());
-        dto.setLocationName(car.getLocation().getName());
-        dto.setStatus(car.getStatus().name());
+        dto.setStatus(nameOf(car.getStatus()));
+        dto.fillReferences(car.getCarModel(), car.getLocation());
+        return dto;
+    }
+
+    /**
+     * Собирает DTO из строки {@code cars} и справочников из кэша.
+     */
+    public static CarDto fromRow(CarRow row, CarModelSnapshot model, LocationSnapshot location) {
+        CarDto dto = new CarDto();
+        dto.setId(row.id());
+        dto.setPlateNumber(row.plateNumber());
+        dto.setStatus(nameOf(row.status()));
+        dto.fillModel(model.brand(), model.modelName(), model.seats(), model.transmission(), model.fuelType());
+        dto.setLocationId(location.id());
+        dto.setLocationName(location.name());
+        return dto;
+    }
+
+    /**
+     * Собирает DTO из строки каталога, прочитанной constructor expression'ом.
+     */
+    public static CarDto fromView(CarView view) {
+        CarDto dto = new CarDto();
+        dto.setId(view.id());
+        dto.setPlateNumber(view.plateNumber());
+        dto.setStatus(nameOf(view.status()));
+        dto.fillModel(view.brand(), view.modelName(), view.seats(), view.transmission(), view.fuelType());
+        dto.setLocationId(view.locationId());
+        dto.setLocationName(view.locationName());
         return dto;
     }
 
+    private void fillReferences(CarModel model, Location location) {
+        fillModel(model.getBrand(), model.getModelName(), model.getSeats(), model.getTransmission(), model.getFuelType());
+        setLocationId(location.getId());
+        setLocationName(location.getName());
+    }
+
+    private void fillModel(String brand, String modelName, Integer seats, Transmission transmission, FuelType fuelType) {
+        setBrand(brand);
+        setModel(modelName);
+        setSeats(seats != null ? seats : 0);
+        setTransmission(nameOf(transmission));
+        setFuelType(nameOf(fuelType));
+    }
+
+    private static String nameOf(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,106 @@
+package org.example.carsharing_71.api.dto;
+
+import org.example.carsharing_71.service.CarHolds;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * DTO удержания автомобиля для REST‑ответов.
+ */
+public class HoldDto {
+    /**
+     * Идентификатор удержания; передаётся в holdId запроса на бронирование
+     */
+    private UUID id;
+
+    /**
+     * Идентификатор пользователя, удерживающего автомобиль
+     */
+    private Long userId;
+
+    /**
+     * Идентификатор удерживаемого автомобиля
+     */
+    private Long carId;
+
+    /**
+     * Начало удерживаемого окна
+     */
+    private Instant startAt;
+
+    /**
+     * Конец удерживаемого окна
+     */
+    private Instant endAt;
+
+    /**
+     * Момент, после которого удержание снимается
+     */
+    private Instant expiresAt;
+
+    /**
+     * Преобразует удержание в объект DTO.
+     *
+     * @param hold удержание
+     * @return новый объект HoldDto
+     */
+    public static HoldDto fromHold(CarHolds.Hold hold) {
+        HoldDto dto = new HoldDto();
+        dto.setId(hold.id());
+        dto.setUserId(hold.userId());
+        dto.setCarId(hold.carId());
+        dto.setStartAt(hold.startAt());
+        dto.setEndAt(hold.endAt());
+        dto.setExpiresAt(hold.expiresAt());
+        return dto;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getCarId() {
+        return carId;
+    }
+
+    public void setCarId(Long carId) {
+        this.carId = carId;
+    }
+
+    public Instant getStartAt() {
+        return startAt;
+    }
+
+    public void setStartAt(Instant startAt) {
+        this.startAt = startAt;
+    }
+
+    public Instant getEndAt() {
+        return endAt;
+    }
+
+    public void setEndAt(Instant endAt) {
+        this.endAt = endAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.carsharing_71.api.dto;
+
+import org.example.carsharing_71.service.NearbyCar;
+
+/**
+ * DTO результата поиска автомобилей рядом: автомобиль и расстояние до него.
+ */
+public class NearbyCarDto {
+    private double distanceKm;
+    private CarDto car;
+
+    /**
+     * Маппит результат поиска в DTO (расстояние округляется до метров).
+     */
+    public static NearbyCarDto from(NearbyCar nearbyCar) {
+        NearbyCarDto dto = new NearbyCarDto();
+        dto.setDistanceKm(Math.round(nearbyCar.distanceKm() * 1000) / 1000.0);
+        dto.setCar(CarDto.fromEntity(nearbyCar.car()));
+        return dto;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+    public void setDistanceKm(double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+    public CarDto getCar() {
+        return car;
+    }
+    public void setCar(CarDto car) {
+        this.car = car;
+    }
+}
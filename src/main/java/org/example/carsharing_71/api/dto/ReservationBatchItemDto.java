@@ -0,0 +1,93 @@
+package org.example.carsharing_71.api.dto;
+
+import org.example.carsharing_71.service.ReservationBatchItem;
+
+/**
+ * DTO результата одного элемента пакетного бронирования.
+ */
+public class ReservationBatchItemDto {
+    /**
+     * Позиция элемента в запросе
+     */
+    private int index;
+
+    /**
+     * CREATED или REJECTED
+     */
+    private String result;
+
+    /**
+     * Созданное бронирование (только для CREATED)
+     */
+    private ReservationDto reservation;
+
+    /**
+     * HTTP-статус, который получил бы одиночный запрос (только для REJECTED)
+     */
+    private Integer status;
+
+    /**
+     * Причина отказа (только для REJECTED)
+     */
+    private String error;
+
+    /**
+     * Преобразует результат сервиса в DTO.
+     *
+     * @param item результат элемента пакета
+     * @return новый объект ReservationBatchItemDto
+     */
+    public static ReservationBatchItemDto fromItem(ReservationBatchItem item) {
+        ReservationBatchItemDto dto = new ReservationBatchItemDto();
+        dto.setIndex(item.index());
+        if (item.isCreated()) {
+            dto.setResult("CREATED");
+            dto.setReservation(ReservationDto.fromEntity(item.reservation()));
+        } else {
+            dto.setResult("REJECTED");
+            dto.setStatus(item.status().value());
+            dto.setError(item.reason());
+        }
+        return dto;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public ReservationDto getReservation() {
+        return reservation;
+    }
+
+    public void setReservation(ReservationDto reservation) {
+        this.reservation = reservation;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.carsharing_71.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * DTO запроса пакетного бронирования (корпоративные и парковые заказы).
+ * Каждый элемент валидируется так же, как одиночный запрос.
+ */
+public class ReservationBatchRequest {
+    /**
+     * Бронирования пакета; результат возвращается в том же порядке
+     */
+    @NotEmpty
+    private List<@Valid ReservationCreateRequest> reservations;
+
+    public List<ReservationCreateRequest> getReservations() {
+        return reservations;
+    }
+
+    public void setReservations(List<ReservationCreateRequest> reservations) {
+        this.reservations = reservations;
+    }
+}
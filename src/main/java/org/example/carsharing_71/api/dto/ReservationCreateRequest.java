@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
 import java.time.Instant;
+import java.util.UUID;
 
 /**
  * DTO запроса на создание бронирования.
@@ -39,6 +40,12 @@ public class ReservationCreateRequest {
     @NotNull @Future
     private Instant endAt;
 
+    /**
+     * Удержание, полученное через POST /api/holds (необязательно).
+     * Бронирование в пределах удержания не проверяет пересечения повторно
+     */
+    private UUID holdId;
+
     /**
      * Проверяет, что начало интервала строго раньше конца.
      */
@@ -83,4 +90,12 @@ public class ReservationCreateRequest {
     public void setEndAt(Instant endAt) {
         this.endAt = endAt;
     }
+
+    public UUID getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(UUID holdId) {
+        this.holdId = holdId;
+    }
 }
@@ -0,0 +1,60 @@
+package org.example.carsharing_71.api.dto;
+
+import org.example.carsharing_71.security.AccessTokens;
+
+import java.time.Instant;
+
+/**
+ * Выданный bearer-токен.
+ */
+public class TokenDto {
+    /**
+     * Значение для заголовка {@code Authorization: Bearer <accessToken>}
+     */
+    private String accessToken;
+
+    /**
+     * Тип токена (всегда Bearer)
+     */
+    private String tokenType;
+
+    /**
+     * Момент истечения токена; после него нужно войти заново
+     */
+    private Instant expiresAt;
+
+    /**
+     * Преобразует выданный токен в объект DTO.
+     */
+    public static TokenDto fromIssued(AccessTokens.Issued issued) {
+        TokenDto dto = new TokenDto();
+        dto.setAccessToken(issued.token());
+        dto.setTokenType("Bearer");
+        dto.setExpiresAt(issued.expiresAt());
+        return dto;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public void setAccessToken(String accessToken) {
+        this.accessToken = accessToken;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public void setTokenType(String tokenType) {
+        this.tokenType = tokenType;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
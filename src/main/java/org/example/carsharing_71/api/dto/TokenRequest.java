@@ -0,0 +1,29 @@
+package org.example.carsharing_71.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Входной DTO для выдачи bearer-токена.
+ */
+public class TokenRequest {
+    @NotBlank
+    private String login;
+    @NotBlank
+    private String password;
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
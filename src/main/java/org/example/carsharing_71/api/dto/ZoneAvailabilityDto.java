@@ -0,0 +1,47 @@
+package org.example.carsharing_71.api.dto;
+
+import org.example.carsharing_71.service.ZoneAvailability;
+
+/**
+ * DTO доступности автомобилей в зоне для REST‑ответов.
+ */
+public class ZoneAvailabilityDto {
+    private String code;
+    private String name;
+    private int totalCars;
+    private int freeCars;
+
+    public static ZoneAvailabilityDto from(ZoneAvailability availability) {
+        ZoneAvailabilityDto dto = new ZoneAvailabilityDto();
+        dto.setCode(availability.code());
+        dto.setName(availability.name());
+        dto.setTotalCars(availability.totalCars());
+        dto.setFreeCars(availability.freeCars());
+        return dto;
+    }
+
+    public String getCode() {
+        return code;
+    }
+    public void setCode(String code) {
+        this.code = code;
+    }
+    public String getName() {
+        return name;
+    }
+    public void setName(String name) {
+        this.name = name;
+    }
+    public int getTotalCars() {
+        return totalCars;
+    }
+    public void setTotalCars(int totalCars) {
+        this.totalCars = totalCars;
+    }
+    public int getFreeCars() {
+        return freeCars;
+    }
+    public void setFreeCars(int freeCars) {
+        this.freeCars = freeCars;
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.carsharing_71.availability;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Точка выбора способа проверки пересечений: JPQL ({@code countOverlaps}), in-memory индекс
+ * или битовая карта слотов.
+ * <p>
+ * Режим задаётся свойством {@code carsharing.availability.engine}. Пока индекс не загружен,
+ * всегда используется БД. При {@code carsharing.availability.verify=true} каждый ответ индекса
+ * сверяется с JPQL; при расхождении пишется предупреждение, индекс пересобирается,
+ * а наружу отдаётся ответ БД.
+ */
+@Slf4j
+@Component
+public class AvailabilityChecker {
+    private final ReservationIndex reservationIndex;
+    private final SlotBitmapIndex slotBitmapIndex;
+    private final ReservationRepository reservationRepository;
+    private final AvailabilityEngine engine;
+    private final boolean verify;
+
+    public AvailabilityChecker(
+            ReservationIndex reservationIndex,
+            SlotBitmapIndex slotBitmapIndex,
+            ReservationRepository reservationRepository,
+            @Value("${carsharing.availability.engine:DATABASE}") AvailabilityEngine engine,
+            @Value("${carsharing.availability.verify:false}") boolean verify
+    ) {
+        this.reservationIndex = reservationIndex;
+        this.slotBitmapIndex = slotBitmapIndex;
+        this.reservationRepository = reservationRepository;
+        this.engine = engine;
+        this.verify = verify;
+    }
+
+    /**
+     * @return true, если ответы должны браться из in-memory индекса
+     */
+    public boolean usesIndex() {
+        return engine != AvailabilityEngine.DATABASE && reservationIndex.isReady();
+    }
+
+    /**
+     * Проверяет, есть ли у автомобиля активное бронирование, пересекающее интервал.
+     */
+    public boolean hasOverlap(Long carId, Instant startAt, Instant endAt) {
+        if (!usesIndex()) {
+            return reservationRepository.countOverlaps(carId, startAt, endAt) > 0;
+        }
+        return verified(carId, startAt, endAt, reservationIndex.hasOverlap(carId, startAt, endAt));
+    }
+
+    /**
+     * Оставляет из кандидатов только автомобили без пересечений с активными бронированиями.
+     * Кандидаты должны быть уже отфильтрованы по статусу, локации и числу мест.
+     * В режиме BITMAP (без verify) используется пословный скан {@link SlotBitmapIndex}.
+     */
+    public List<Car> filterFree(List<Car> candidates, Instant startAt, Instant endAt) {
+        if (engine == AvailabilityEngine.BITMAP && !verify) {
+            return slotBitmapIndex.filterFree(candidates, startAt, endAt);
+        }
+        return candidates.stream()
+                .filter(car -> !hasOverlap(car.getId(), startAt, endAt))
+                .toList();
+    }
+
+    /**
+     * Идентификаторы автомобилей, занятых в интервале: одним запросом к БД
+     * или проходом по in-memory индексу (в режиме verify — всегда из БД).
+     * Используется для агрегатов по большому числу автомобилей (например, по зонам).
+     */
+    public Set<Long> busyCarIds(Instant startAt, Instant endAt) {
+        if (!usesIndex() || verify) {
+            return reservationRepository.findBusyCarIds(startAt, endAt);
+        }
+        return reservationIndex.busyCarIds(startAt, endAt);
+    }
+
+    public AvailabilityEngine getEngine() {
+        return engine;
+    }
+
+    public boolean isVerify() {
+        return verify;
+    }
+
+    private boolean verified(Long carId, Instant startAt, Instant endAt, boolean indexed) {
+        if (!verify) {
+            return indexed;
+        }
+        boolean expected = reservationRepository.countOverlaps(carId, startAt, endAt) > 0;
+        if (expected != indexed) {
+            log.warn("Reservation index diverged from DB: carId = {}, interval = [{}, {}), index = {}, db = {}",
+                    carId, startAt, endAt, indexed, expected);
+            reservationIndex.rebuild();
+        }
+        return expected;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.carsharing_71.availability;
+
+/**
+ * Способ проверки пересечений бронирований.
+ * Задаётся свойством {@code carsharing.availability.engine}.
+ */
+public enum AvailabilityEngine {
+    /** Запросы к БД (анти-джойн / countOverlaps). */
+    DATABASE,
+    /** In-memory индекс {@link ReservationIndex}. */
+    INDEX,
+    /** Битовая карта слотов {@link SlotBitmapIndex} поверх индекса — для массовых запросов по парку. */
+    BITMAP
+}
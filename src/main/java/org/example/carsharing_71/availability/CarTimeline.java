@@ -0,0 +1,191 @@
+package org.example.carsharing_71.availability;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Неизменяемая временная шкала активных бронирований одного автомобиля.
+ * <p>
+ * Интервалы хранятся в примитивных массивах, отсортированных по началу.
+ * Дополнительно хранится префиксный максимум концов ({@code maxEnd[i]} — максимальный
+ * конец среди первых {@code i + 1} интервалов), поэтому проверка пересечения занимает
+ * O(log n) даже если в данных уже есть пересекающиеся бронирования.
+ * Время хранится в микросекундах от эпохи — это точность колонок TIMESTAMP.
+ * <p>
+ * Изменения создают новый экземпляр (copy-on-write), поэтому чтение не требует блокировок.
+ */
+final class CarTimeline {
+    static final CarTimeline EMPTY = new CarTimeline(new long[0], new long[0], new long[0], new long[0]);
+
+    private final long[] ids;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnd;
+
+    private CarTimeline(long[] ids, long[] starts, long[] ends, long[] maxEnd) {
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnd = maxEnd;
+    }
+
+    /**
+     * Строит шкалу из неотсортированных интервалов за O(n log n).
+     * Дубликаты id не проверяются — источник (БД) гарантирует уникальность.
+     */
+    static CarTimeline of(long[] ids, long[] starts, long[] ends) {
+        int size = ids.length;
+        if (size == 0) {
+            return EMPTY;
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(starts[a], starts[b]));
+        long[] sortedIds = new long[size];
+        long[] sortedStarts = new long[size];
+        long[] sortedEnds = new long[size];
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = ids[order[i]];
+            sortedStarts[i] = starts[order[i]];
+            sortedEnds[i] = ends[order[i]];
+        }
+        return new CarTimeline(sortedIds, sortedStarts, sortedEnds, prefixMax(sortedEnds));
+    }
+
+    static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    /**
+     * Проверяет, пересекается ли интервал [startAt, endAt) хотя бы с одним бронированием.
+     */
+    boolean overlaps(long startAt, long endAt) {
+        // Количество интервалов, начинающихся раньше endAt
+        int candidates = lowerBound(starts, endAt);
+        return candidates > 0 && maxEnd[candidates - 1] > startAt;
+    }
+
+    /**
+     * Возвращает новую шкалу с добавленным интервалом. Повторное добавление того же id игнорируется.
+     */
+    CarTimeline with(long id, long startAt, long endAt) {
+        if (indexOf(id) >= 0) {
+            return this;
+        }
+        int pos = lowerBound(starts, startAt);
+        int size = ids.length + 1;
+        long[] newIds = new long[size];
+        long[] newStarts = new long[size];
+        long[] newEnds = new long[size];
+        insert(ids, newIds, pos, id);
+        insert(starts, newStarts, pos, startAt);
+        insert(ends, newEnds, pos, endAt);
+        return new CarTimeline(newIds, newStarts, newEnds, prefixMax(newEnds));
+    }
+
+    /**
+     * Возвращает новую шкалу без интервала с указанным id (или эту же, если его нет).
+     */
+    CarTimeline without(long id) {
+        int pos = indexOf(id);
+        if (pos < 0) {
+            return this;
+        }
+        if (ids.length == 1) {
+            return EMPTY;
+        }
+        long[] newIds = remove(ids, pos);
+        long[] newEnds = remove(ends, pos);
+        return new CarTimeline(newIds, remove(starts, pos), newEnds, prefixMax(newEnds));
+    }
+
+    boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * Вызывает action для каждого интервала в порядке возрастания начала.
+     */
+    void forEach(IntervalConsumer action) {
+        for (int i = 0; i < ids.length; i++) {
+            action.accept(ids[i], starts[i], ends[i]);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CarTimeline other)) return false;
+        // Порядок id при одинаковом начале не важен — сравниваем как множества интервалов
+        return Arrays.equals(sortedTriples(), other.sortedTriples());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(sortedTriples());
+    }
+
+    private long[] sortedTriples() {
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+        long[] result = new long[ids.length * 3];
+        for (int i = 0; i < order.length; i++) {
+            result[i * 3] = ids[order[i]];
+            result[i * 3 + 1] = starts[order[i]];
+            result[i * 3 + 2] = ends[order[i]];
+        }
+        return result;
+    }
+
+    private int indexOf(long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) return i;
+        }
+        return -1;
+    }
+
+    /** Первая позиция, где {@code values[pos] >= key}. */
+    private static int lowerBound(long[] values, long key) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static void insert(long[] src, long[] dst, int pos, long value) {
+        System.arraycopy(src, 0, dst, 0, pos);
+        dst[pos] = value;
+        System.arraycopy(src, pos, dst, pos + 1, src.length - pos);
+    }
+
+    private static long[] remove(long[] src, int pos) {
+        long[] dst = new long[src.length - 1];
+        System.arraycopy(src, 0, dst, 0, pos);
+        System.arraycopy(src, pos + 1, dst, pos, src.length - pos - 1);
+        return dst;
+    }
+
+    private static long[] prefixMax(long[] ends) {
+        long[] result = new long[ends.length];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            result[i] = max;
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    interface IntervalConsumer {
+        void accept(long id, long startAt, long endAt);
+    }
+}
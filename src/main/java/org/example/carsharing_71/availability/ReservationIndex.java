@@ -0,0 +1,218 @@
+package org.example.carsharing_71.availability;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharing_71.repository.ReservationRepository;
+import org.example.carsharing_71.repository.projection.ReservationInterval;
+import org.example.carsharing_71.service.ReservationCancelledEvent;
+import org.example.carsharing_71.service.ReservationCreatedEvent;
+import org.example.carsharing_71.service.ReservationsArchivedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory индекс активных бронирований: для каждого автомобиля хранится
+ * {@link CarTimeline} — отсортированная шкала интервалов на примитивных массивах.
+ * <p>
+ * Индекс загружается из {@link ReservationRepository} при старте приложения и обновляется
+ * после коммита каждого нового или отменённого бронирования. Чтение не блокируется: шкалы неизменяемы,
+ * а запись заменяет шкалу автомобиля целиком.
+ * <p>
+ * Индекс видит только изменения, сделанные этим экземпляром приложения. Если в БД пишут
+ * несколько экземпляров, используйте режим {@code database} или периодическую пересборку.
+ * <p>
+ * Производные структуры (например, {@link SlotBitmapIndex}) подписываются через
+ * {@link #addListener(TimelineListener)} и получают изменения синхронно, под тем же локом записи.
+ */
+@Slf4j
+@Component
+public class ReservationIndex {
+    private final ReservationRepository reservationRepository;
+    private volatile Map<Long, CarTimeline> timelines = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile Instant lastRebuildAt;
+    private final List<TimelineListener> listeners = new CopyOnWriteArrayList<>();
+
+    public ReservationIndex(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Загружает индекс при старте приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Добавляет новое бронирование в индекс после успешного коммита транзакции.
+     */
+    @TransactionalEventListener
+    public void onReservationCreated(ReservationCreatedEvent event) {
+        add(event.reservationId(), event.carId(), event.startAt(), event.endAt());
+    }
+
+    /**
+     * Убирает отменённое бронирование из индекса после успешного коммита транзакции.
+     */
+    @TransactionalEventListener
+    public void onReservationCancelled(ReservationCancelledEvent event) {
+        remove(event.reservationId(), event.carId());
+    }
+
+    /**
+     * Убирает перенесённые в архив бронирования (закончившиеся активные остаются в индексе до архивации).
+     */
+    @TransactionalEventListener
+    public void onReservationsArchived(ReservationsArchivedEvent event) {
+        event.carIdsByReservation().forEach(this::remove);
+    }
+
+    /**
+     * Полностью пересобирает индекс по данным БД.
+     * Запись синхронизирована, поэтому события, пришедшие во время пересборки,
+     * применяются к новому индексу (добавление идемпотентно по id бронирования).
+     *
+     * @return количество загруженных интервалов
+     */
+    public synchronized int rebuild() {
+        Map<Long, CarTimeline> loaded = load();
+        timelines = new ConcurrentHashMap<>(loaded);
+        listeners.forEach(listener -> listener.onRebuilt(Map.copyOf(loaded)));
+        ready = true;
+        lastRebuildAt = Instant.now();
+        int intervals = loaded.values().stream().mapToInt(CarTimeline::size).sum();
+        log.info("Reservation index rebuilt: cars = {}, intervals = {}", loaded.size(), intervals);
+        return intervals;
+    }
+
+    /**
+     * Сравнивает индекс с БД и возвращает идентификаторы автомобилей, для которых данные расходятся.
+     */
+    public Set<Long> verify() {
+        Map<Long, CarTimeline> expected = load();
+        Map<Long, CarTimeline> actual = timelines;
+        Set<Long> carIds = new HashSet<>(expected.keySet());
+        carIds.addAll(actual.keySet());
+        Set<Long> mismatched = new HashSet<>();
+        for (Long carId : carIds) {
+            CarTimeline e = expected.getOrDefault(carId, CarTimeline.EMPTY);
+            CarTimeline a = actual.getOrDefault(carId, CarTimeline.EMPTY);
+            if (!e.equals(a)) {
+                mismatched.add(carId);
+            }
+        }
+        return mismatched;
+    }
+
+    public synchronized void add(Long reservationId, Long carId, Instant startAt, Instant endAt) {
+        long start = CarTimeline.toMicros(startAt);
+        long end = CarTimeline.toMicros(endAt);
+        CarTimeline updated = timelines.compute(carId, (id, current) ->
+                (current == null ? CarTimeline.EMPTY : current).with(reservationId, start, end));
+        listeners.forEach(listener -> listener.onTimelineChanged(carId, updated));
+    }
+
+    public synchronized void remove(Long reservationId, Long carId) {
+        CarTimeline updated = timelines.computeIfPresent(carId, (id, current) -> {
+            CarTimeline next = current.without(reservationId);
+            return next.isEmpty() ? null : next;
+        });
+        CarTimeline timeline = updated == null ? CarTimeline.EMPTY : updated;
+        listeners.forEach(listener -> listener.onTimelineChanged(carId, timeline));
+    }
+
+    /**
+     * Подписывает производную структуру на изменения индекса.
+     */
+    void addListener(TimelineListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Проверяет, есть ли у автомобиля активное бронирование, пересекающее [startAt, endAt).
+     */
+    public boolean hasOverlap(Long carId, Instant startAt, Instant endAt) {
+        CarTimeline timeline = timelines.get(carId);
+        return timeline != null && timeline.overlaps(CarTimeline.toMicros(startAt), CarTimeline.toMicros(endAt));
+    }
+
+    /**
+     * Идентификаторы автомобилей, у которых есть активное бронирование, пересекающее [startAt, endAt).
+     */
+    public Set<Long> busyCarIds(Instant startAt, Instant endAt) {
+        long start = CarTimeline.toMicros(startAt);
+        long end = CarTimeline.toMicros(endAt);
+        Set<Long> busy = new HashSet<>();
+        timelines.forEach((carId, timeline) -> {
+            if (timeline.overlaps(start, end)) {
+                busy.add(carId);
+            }
+        });
+        return busy;
+    }
+
+    /**
+     * Возвращает шкалу автомобиля (пустую, если бронирований нет).
+     */
+    CarTimeline timeline(Long carId) {
+        return timelines.getOrDefault(carId, CarTimeline.EMPTY);
+    }
+
+    /**
+     * Копия всех шкал (для перестройки производных структур).
+     */
+    Map<Long, CarTimeline> timelines() {
+        return Map.copyOf(timelines);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Instant getLastRebuildAt() {
+        return lastRebuildAt;
+    }
+
+    public int carCount() {
+        return timelines.size();
+    }
+
+    public int intervalCount() {
+        return timelines.values().stream().mapToInt(CarTimeline::size).sum();
+    }
+
+    private Map<Long, CarTimeline> load() {
+        Map<Long, List<ReservationInterval>> byCar = new HashMap<>();
+        for (ReservationInterval interval : reservationRepository.findActiveIntervals()) {
+            byCar.computeIfAbsent(interval.getCarId(), id -> new ArrayList<>()).add(interval);
+        }
+        Map<Long, CarTimeline> result = new HashMap<>();
+        byCar.forEach((carId, intervals) -> {
+            int size = intervals.size();
+            long[] ids = new long[size];
+            long[] starts = new long[size];
+            long[] ends = new long[size];
+            for (int i = 0; i < size; i++) {
+                ReservationInterval interval = intervals.get(i);
+                ids[i] = interval.getId();
+                starts[i] = CarTimeline.toMicros(interval.getStartAt());
+                ends[i] = CarTimeline.toMicros(interval.getEndAt());
+            }
+            result.put(carId, CarTimeline.of(ids, starts, ends));
+        });
+        return result;
+    }
+}
@@ -0,0 +1,239 @@
+package org.example.carsharing_71.availability;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharing_71.domain.Car;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Битовая карта занятости парка по фиксированным слотам времени (по умолчанию 15 минут).
+ * <p>
+ * Для каждого автомобиля с активными бронированиями хранится {@code long[]}: бит {@code i}
+ * установлен, если слот {@code origin + i} хотя бы частично занят. Горизонт скользящий —
+ * от начала текущих суток на {@code horizon-days} вперёд; при смене суток карта перестраивается.
+ * Автомобили без бронирований в карте отсутствуют (всё свободно).
+ * <p>
+ * Запрос «свободен ли автомобиль в [startAt, endAt)» — это AND окна с маской по словам:
+ * <ul>
+ *     <li>нет установленных битов — автомобиль точно свободен;</li>
+ *     <li>занят хотя бы один внутренний слот, целиком покрытый окном — точно занят;</li>
+ *     <li>заняты только граничные (частично покрытые) слоты — точная проверка по {@link ReservationIndex}.</li>
+ * </ul>
+ * Поэтому ответ всегда совпадает с JPQL. Окна вне горизонта проверяются индексом напрямую.
+ * Большие списки кандидатов сканируются параллельно.
+ * <p>
+ * Карта строится из {@link ReservationIndex} и обновляется вместе с ним; память выделяется,
+ * только если выбран режим {@code carsharing.availability.engine=BITMAP}.
+ */
+@Slf4j
+@Component
+public class SlotBitmapIndex implements TimelineListener {
+    private static final long MICROS_PER_MINUTE = 60_000_000L;
+    private static final long MICROS_PER_DAY = 24 * 60 * MICROS_PER_MINUTE;
+
+    private final ReservationIndex reservationIndex;
+    private final boolean enabled;
+    private final long slotMicros;
+    private final int horizonSlots;
+    private final int parallelThreshold;
+    private final Clock clock;
+
+    /** Текущая карта; заменяется целиком при перестройке. */
+    private volatile State state;
+
+    @Autowired
+    public SlotBitmapIndex(
+            ReservationIndex reservationIndex,
+            @Value("${carsharing.availability.engine:DATABASE}") AvailabilityEngine engine,
+            @Value("${carsharing.availability.bitmap.slot-minutes:15}") int slotMinutes,
+            @Value("${carsharing.availability.bitmap.horizon-days:30}") int horizonDays,
+            @Value("${carsharing.availability.bitmap.parallel-threshold:4096}") int parallelThreshold
+    ) {
+        this(reservationIndex, engine == AvailabilityEngine.BITMAP, slotMinutes, horizonDays, parallelThreshold,
+                Clock.systemUTC());
+    }
+
+    SlotBitmapIndex(ReservationIndex reservationIndex, boolean enabled, int slotMinutes, int horizonDays,
+                    int parallelThreshold, Clock clock) {
+        if (slotMinutes <= 0 || (24 * 60) % slotMinutes != 0) {
+            throw new IllegalArgumentException("slot-minutes must divide 24h: " + slotMinutes);
+        }
+        this.reservationIndex = reservationIndex;
+        this.enabled = enabled;
+        this.slotMicros = slotMinutes * MICROS_PER_MINUTE;
+        this.horizonSlots = (int) (horizonDays * MICROS_PER_DAY / slotMicros);
+        this.parallelThreshold = parallelThreshold;
+        this.clock = clock;
+        this.state = new State(currentOriginSlot(), new ConcurrentHashMap<>());
+        if (enabled) {
+            reservationIndex.addListener(this);
+        }
+    }
+
+    /**
+     * Оставляет из кандидатов только автомобили без пересечений с активными бронированиями.
+     */
+    public List<Car> filterFree(List<Car> candidates, Instant startAt, Instant endAt) {
+        rollIfNeeded();
+        long start = CarTimeline.toMicros(startAt);
+        long end = CarTimeline.toMicros(endAt);
+        Stream<Car> stream = candidates.size() >= parallelThreshold
+                ? candidates.parallelStream()
+                : candidates.stream();
+        return stream.filter(car -> isFree(car.getId(), start, end)).toList();
+    }
+
+    /**
+     * Проверяет один автомобиль; интервал в микросекундах от эпохи.
+     */
+    boolean isFree(Long carId, long start, long end) {
+        State current = state;
+        long origin = current.originSlot();
+        long firstSlot = Math.floorDiv(start, slotMicros) - origin;
+        long lastSlot = Math.floorDiv(end - 1, slotMicros) - origin;
+        if (firstSlot < 0 || lastSlot >= horizonSlots) {
+            return !reservationIndex.timeline(carId).overlaps(start, end);
+        }
+        long[] bits = current.bitmaps().get(carId);
+        if (bits == null) {
+            return true;
+        }
+        int first = (int) firstSlot;
+        int last = (int) lastSlot;
+        if (!anySet(bits, first, last)) {
+            return true;
+        }
+        // Внутренние слоты целиком покрыты окном: занятость любого из них — гарантированное пересечение
+        boolean partialFirst = Math.floorMod(start, slotMicros) != 0;
+        boolean partialLast = Math.floorMod(end, slotMicros) != 0;
+        int innerFirst = partialFirst ? first + 1 : first;
+        int innerLast = partialLast ? last - 1 : last;
+        if (innerFirst <= innerLast && anySet(bits, innerFirst, innerLast)) {
+            return false;
+        }
+        return !reservationIndex.timeline(carId).overlaps(start, end);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int carCount() {
+        return state.bitmaps().size();
+    }
+
+    public Instant getOrigin() {
+        return Instant.ofEpochSecond(state.originSlot() * slotMicros / 1_000_000L);
+    }
+
+    @Override
+    public void onRebuilt(Map<Long, CarTimeline> timelines) {
+        long origin = currentOriginSlot();
+        Map<Long, long[]> rebuilt = new ConcurrentHashMap<>();
+        timelines.forEach((carId, timeline) -> {
+            long[] bits = toBitmap(timeline, origin);
+            if (bits != null) {
+                rebuilt.put(carId, bits);
+            }
+        });
+        state = new State(origin, rebuilt);
+        log.info("Slot bitmap rebuilt: cars = {}, slots = {}, origin = {}", rebuilt.size(), horizonSlots, getOrigin());
+    }
+
+    @Override
+    public void onTimelineChanged(Long carId, CarTimeline timeline) {
+        State current = state;
+        long[] bits = toBitmap(timeline, current.originSlot());
+        if (bits == null) {
+            current.bitmaps().remove(carId);
+        } else {
+            // Новый массив вместо изменения старого: читатели никогда не видят частично записанную карту
+            current.bitmaps().put(carId, bits);
+        }
+    }
+
+    /**
+     * Сдвигает горизонт при наступлении новых суток. Перестройка берёт лок записи индекса.
+     */
+    private void rollIfNeeded() {
+        if (currentOriginSlot() != state.originSlot()) {
+            synchronized (reservationIndex) {
+                if (currentOriginSlot() != state.originSlot()) {
+                    onRebuilt(reservationIndex.timelines());
+                }
+            }
+        }
+    }
+
+    private long currentOriginSlot() {
+        long now = CarTimeline.toMicros(clock.instant());
+        return Math.floorDiv(now - Math.floorMod(now, MICROS_PER_DAY), slotMicros);
+    }
+
+    /**
+     * Строит карту занятости шкалы в пределах горизонта; null — если в горизонте ничего не занято.
+     */
+    private long[] toBitmap(CarTimeline timeline, long origin) {
+        long[] bits = new long[(horizonSlots + 63) >>> 6];
+        boolean[] any = new boolean[1];
+        timeline.forEach((id, start, end) -> {
+            long from = Math.max(Math.floorDiv(start, slotMicros) - origin, 0);
+            long to = Math.min(Math.floorDiv(end - 1, slotMicros) - origin, horizonSlots - 1L);
+            if (from <= to) {
+                setRange(bits, (int) from, (int) to);
+                any[0] = true;
+            }
+        });
+        return any[0] ? bits : null;
+    }
+
+    /** Устанавливает биты [from, to] включительно. */
+    private static void setRange(long[] bits, int from, int to) {
+        int firstWord = from >>> 6;
+        int lastWord = to >>> 6;
+        for (int w = firstWord; w <= lastWord; w++) {
+            bits[w] |= wordMask(w, from, to);
+        }
+    }
+
+    /** Есть ли установленные биты в диапазоне [from, to] включительно. */
+    private static boolean anySet(long[] bits, int from, int to) {
+        int firstWord = from >>> 6;
+        int lastWord = to >>> 6;
+        for (int w = firstWord; w <= lastWord; w++) {
+            if ((bits[w] & wordMask(w, from, to)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Маска битов слова {@code w}, попадающих в диапазон [from, to]. */
+    private static long wordMask(int w, int from, int to) {
+        long mask = -1L;
+        if (w == from >>> 6) {
+            mask &= -1L << (from & 63);
+        }
+        if (w == to >>> 6) {
+            mask &= -1L >>> (63 - (to & 63));
+        }
+        return mask;
+    }
+
+    /**
+     * Снимок карты: начало горизонта и битовые карты, согласованные между собой.
+     *
+     * @param originSlot первый слот горизонта (номер слота от эпохи)
+     * @param bitmaps    карты занятости по идентификаторам автомобилей
+     */
+    private record State(long originSlot, Map<Long, long[]> bitmaps) {
+    }
+}
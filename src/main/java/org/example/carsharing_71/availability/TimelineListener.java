@@ -0,0 +1,21 @@
+package org.example.carsharing_71.availability;
+
+import java.util.Map;
+
+/**
+ * Подписчик на изменения {@link ReservationIndex}.
+ * Вызывается синхронно под локом записи индекса, поэтому не должен выполнять долгих операций.
+ */
+interface TimelineListener {
+    /**
+     * Индекс полностью пересобран.
+     *
+     * @param timelines новые шкалы по идентификаторам автомобилей
+     */
+    void onRebuilt(Map<Long, CarTimeline> timelines);
+
+    /**
+     * Изменилась шкала одного автомобиля (пустая шкала — бронирований не осталось).
+     */
+    void onTimelineChanged(Long carId, CarTimeline timeline);
+}
@@ -0,0 +1,178 @@
+package org.example.carsharing_71.availability;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.repository.LocationZoneRepository;
+import org.example.carsharing_71.repository.projection.CarLocation;
+import org.example.carsharing_71.repository.projection.ZoneLocation;
+import org.example.carsharing_71.service.CarsReleasedEvent;
+import org.example.carsharing_71.service.ReservationCancelledEvent;
+import org.example.carsharing_71.service.ReservationCreatedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.LongStream;
+
+/**
+ * In-memory индекс «зона → автомобили».
+ * <p>
+ * Зона — это набор локаций с одинаковым кодом в {@code location_zones}. Для каждой зоны
+ * хранится отсортированный массив идентификаторов автомобилей со статусом AVAILABLE
+ * во всех её локациях, поэтому агрегаты по всем зонам считаются без запросов по каждой локации.
+ * <p>
+ * Индекс загружается при старте приложения и заменяется целиком при {@link #rebuild()}
+ * (состав парка и зон меняется редко; см. {@code POST /api/admin/availability/zones/rebuild}).
+ * Смена статуса автомобиля применяется после коммита по событиям: бронирование убирает автомобиль
+ * из зон, а после отмены и освобождения по окончании статус перечитывается из БД. Затронутые
+ * зоны получают новые массивы, поэтому читатели по-прежнему работают без блокировок.
+ */
+@Slf4j
+@Component
+public class ZoneIndex {
+    private final LocationZoneRepository locationZoneRepository;
+    private final CarRepository carRepository;
+
+    /** Зоны в порядке кода; заменяются целиком при пересборке. */
+    private volatile Map<String, Zone> zones = Map.of();
+    /** Коды зон каждой локации — куда добавлять освободившийся автомобиль. */
+    private Map<Long, List<String>> zoneCodesByLocation = Map.of();
+    private volatile Instant lastRebuildAt;
+
+    public ZoneIndex(LocationZoneRepository locationZoneRepository, CarRepository carRepository) {
+        this.locationZoneRepository = locationZoneRepository;
+        this.carRepository = carRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Перечитывает зоны и автомобили из БД (два запроса с проекциями).
+     *
+     * @return количество зон
+     */
+    public synchronized int rebuild() {
+        Map<Long, List<Long>> carsByLocation = new HashMap<>();
+        for (CarLocation car : carRepository.findAvailableCarLocations()) {
+            carsByLocation.computeIfAbsent(car.getLocationId(), id -> new ArrayList<>()).add(car.getId());
+        }
+        Map<String, String> names = new LinkedHashMap<>();
+        Map<String, TreeSet<Long>> carsByZone = new HashMap<>();
+        Map<Long, List<String>> codesByLocation = new HashMap<>();
+        for (ZoneLocation row : locationZoneRepository.findAllZoneLocations()) {
+            names.putIfAbsent(row.getCode(), row.getName());
+            List<String> codes = codesByLocation.computeIfAbsent(row.getLocationId(), id -> new ArrayList<>());
+            if (!codes.contains(row.getCode())) {
+                codes.add(row.getCode());
+            }
+            // Множество: одна локация может быть указана в зоне повторно
+            carsByZone.computeIfAbsent(row.getCode(), code -> new TreeSet<>())
+                    .addAll(carsByLocation.getOrDefault(row.getLocationId(), List.of()));
+        }
+        Map<String, Zone> rebuilt = new LinkedHashMap<>();
+        names.forEach((code, name) -> rebuilt.put(code, new Zone(code, name,
+                carsByZone.get(code).stream().mapToLong(Long::longValue).toArray())));
+        zones = rebuilt;
+        zoneCodesByLocation = codesByLocation;
+        lastRebuildAt = Instant.now();
+        log.info("Zone index rebuilt: zones = {}", rebuilt.size());
+        return rebuilt.size();
+    }
+
+    /**
+     * Забронированный автомобиль (статус RESERVED) убирается из зон после коммита.
+     */
+    @TransactionalEventListener
+    public void onReservationCreated(ReservationCreatedEvent event) {
+        apply(Set.of(event.carId()), List.of());
+    }
+
+    /**
+     * После отмены автомобиль возвращается в зоны, если его статус снова AVAILABLE.
+     */
+    @TransactionalEventListener
+    public void onReservationCancelled(ReservationCancelledEvent event) {
+        refresh(Set.of(event.carId()));
+    }
+
+    /**
+     * Освобождённые по окончании бронирований автомобили возвращаются в зоны.
+     */
+    @TransactionalEventListener
+    public void onCarsReleased(CarsReleasedEvent event) {
+        refresh(new HashSet<>(event.carIds()));
+    }
+
+    public Collection<Zone> zones() {
+        return zones.values();
+    }
+
+    public Optional<Zone> zone(String code) {
+        return Optional.ofNullable(zones.get(code));
+    }
+
+    public int size() {
+        return zones.size();
+    }
+
+    public Instant getLastRebuildAt() {
+        return lastRebuildAt;
+    }
+
+    /**
+     * Перечитывает статус автомобилей одним запросом: AVAILABLE остаются в зонах своей локации,
+     * остальные убираются.
+     */
+    private void refresh(Set<Long> carIds) {
+        apply(carIds, carRepository.findAvailableCarLocations(carIds));
+    }
+
+    /**
+     * Убирает {@code carIds} из всех зон и добавляет {@code available} в зоны их локаций.
+     * Массивы заменяются только у затронутых зон.
+     */
+    private synchronized void apply(Set<Long> carIds, List<CarLocation> available) {
+        Map<String, Set<Long>> added = new HashMap<>();
+        for (CarLocation car : available) {
+            for (String code : zoneCodesByLocation.getOrDefault(car.getLocationId(), List.of())) {
+                added.computeIfAbsent(code, c -> new HashSet<>()).add(car.getId());
+            }
+        }
+        Map<String, Zone> next = new LinkedHashMap<>(zones);
+        boolean changed = false;
+        for (Zone zone : zones.values()) {
+            Set<Long> toAdd = added.getOrDefault(zone.code(), Set.of());
+            boolean touched = !toAdd.isEmpty()
+                    || carIds.stream().anyMatch(id -> Arrays.binarySearch(zone.carIds(), id) >= 0);
+            if (!touched) {
+                continue;
+            }
+            long[] ids = LongStream.concat(
+                            Arrays.stream(zone.carIds()).filter(id -> !carIds.contains(id)),
+                            toAdd.stream().mapToLong(Long::longValue))
+                    .sorted()
+                    .toArray();
+            next.put(zone.code(), new Zone(zone.code(), zone.name(), ids));
+            changed = true;
+        }
+        if (changed) {
+            zones = next;
+        }
+    }
+
+    /**
+     * Зона и идентификаторы её автомобилей (по возрастанию).
+     *
+     * @param code   код зоны
+     * @param name   название зоны
+     * @param carIds автомобили со статусом AVAILABLE во всех локациях зоны
+     */
+    public record Zone(String code, String name, long[] carIds) {
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.carsharing_71.cache;
+
+import org.example.carsharing_71.domain.CarModel;
+import org.example.carsharing_71.domain.FuelType;
+import org.example.carsharing_71.domain.Transmission;
+
+/**
+ * Неизменяемая копия {@link CarModel} для {@link ReferenceDataCache}: не связана
+ * с persistence context, поэтому её безопасно делить между потоками.
+ */
+public record CarModelSnapshot(Long id, String brand, String modelName, Integer seats,
+                               Transmission transmission, FuelType fuelType) {
+    public static CarModelSnapshot of(CarModel model) {
+        return new CarModelSnapshot(model.getId(), model.getBrand(), model.getModelName(), model.getSeats(),
+                model.getTransmission(), model.getFuelType());
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.carsharing_71.cache;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.Reservation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA-слушатель, поднимающий {@link FleetVersions} при записи автомобилей, бронирований
+ * и справочников ({@code CarModel} / {@code Location}).
+ * Как и {@link ReferenceDataCacheListener}, берёт зависимость лениво.
+ */
+@Component
+public class FleetVersionListener {
+    private final ObjectProvider<FleetVersions> fleetVersions;
+
+    public FleetVersionListener(ObjectProvider<FleetVersions> fleetVersions) {
+        this.fleetVersions = fleetVersions;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        FleetVersions versions = fleetVersions.getIfAvailable();
+        if (versions == null) {
+            return;
+        }
+        if (entity instanceof Car car) {
+            versions.carChanged(car.getId());
+        } else if (entity instanceof Reservation reservation) {
+            versions.carChanged(reservation.getCar().getId());
+        } else {
+            versions.referenceChanged();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.carsharing_71.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Монотонные версии парка для условных GET (ETag / Last-Modified).
+ * <p>
+ * Версия парка растёт при любом изменении автомобиля, его бронирований или справочников
+ * (модели, локации). У каждого автомобиля своя версия — номер последнего изменения,
+ * затронувшего именно его; изменение справочника поднимает версии всех автомобилей сразу.
+ * Версии живут в памяти: в ETag входит метка запуска приложения, поэтому после рестарта
+ * старые ETag клиентов не совпадут. Записи в обход JPA (SQL, Liquibase) версии не меняют.
+ */
+@Component
+public class FleetVersions {
+    /**
+     * Версия и момент последнего изменения.
+     */
+    public record Stamp(long version, Instant modifiedAt) {
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong counter = new AtomicLong();
+    private final Map<Long, Stamp> cars = new ConcurrentHashMap<>();
+    private volatile Stamp fleet = new Stamp(0, Instant.now());
+    private volatile Stamp references = fleet;
+
+    /**
+     * Текущая версия всего парка.
+     */
+    public Stamp fleet() {
+        return fleet;
+    }
+
+    /**
+     * Текущая версия автомобиля: последнее изменение самого автомобиля, его бронирований или справочников.
+     */
+    public Stamp car(long carId) {
+        Stamp own = cars.get(carId);
+        Stamp shared = references;
+        return own == null || own.version() < shared.version() ? shared : own;
+    }
+
+    /**
+     * Сильный ETag для версии; метка запуска отличает версии разных экземпляров приложения.
+     */
+    public String etag(Stamp stamp) {
+        return "\"" + epoch + "-" + stamp.version() + "\"";
+    }
+
+    /**
+     * Отмечает изменение автомобиля (или его бронирования): сразу и ещё раз после завершения
+     * текущей транзакции, чтобы ETag, выданный по данным до коммита, не пережил коммит.
+     */
+    public void carChanged(Long carId) {
+        if (carId == null) {
+            return;
+        }
+        afterCompletion(() -> cars.put(carId, bump()));
+    }
+
+    /**
+     * Отмечает изменение справочника, общего для многих автомобилей.
+     */
+    public void referenceChanged() {
+        afterCompletion(() -> references = bump());
+    }
+
+    private void afterCompletion(Runnable change) {
+        change.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    change.run();
+                }
+            });
+        }
+    }
+
+    private synchronized Stamp bump() {
+        Stamp stamp = new Stamp(counter.incrementAndGet(), Instant.now());
+        fleet = stamp;
+        return stamp;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.carsharing_71.cache;
+
+import org.example.carsharing_71.domain.Location;
+
+/**
+ * Неизменяемая копия {@link Location} для {@link ReferenceDataCache}: не связана
+ * с persistence context, поэтому её безопасно делить между потоками.
+ */
+public record LocationSnapshot(Long id, String name, String address, Double latitude, Double longitude) {
+    public static LocationSnapshot of(Location location) {
+        return new LocationSnapshot(location.getId(), location.getName(), location.getAddress(),
+                location.getLatitude(), location.getLongitude());
+    }
+}
@@ -0,0 +1,194 @@
+package org.example.carsharing_71.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.example.carsharing_71.domain.CarModel;
+import org.example.carsharing_71.domain.Location;
+import org.example.carsharing_71.repository.CarModelRepository;
+import org.example.carsharing_71.repository.LocationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through кэш справочников {@link CarModel} и {@link Location} (Caffeine).
+ * <p>
+ * Промах загружает записи из репозитория (пачкой — одним {@code findAllById}); размер кэша
+ * ограничен {@code carsharing.reference-cache.max-size}, а {@code expire-after-write} страхует
+ * от изменений, сделанных другими экземплярами приложения.
+ * При изменении справочника через JPA запись удаляется из кэша {@link ReferenceDataCacheListener}
+ * сразу и повторно после завершения транзакции.
+ * <p>
+ * Кэшируются не сущности, а неизменяемые копии ({@link CarModelSnapshot}, {@link LocationSnapshot}):
+ * сущность, загруженная промахом, остаётся в persistence context загрузившего потока, и её
+ * изменения или ленивые связи не должны попадать в общий кэш. От кэша второго уровня Hibernate
+ * этот слой отличается тем, что пачка промахов догружается одним запросом, а попадание
+ * не требует ни запроса, ни гидрации сущности.
+ */
+@Component
+public class ReferenceDataCache {
+    private final LoadingCache<Long, CarModelSnapshot> carModels;
+    private final LoadingCache<Long, LocationSnapshot> locations;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ReferenceDataCache(
+            CarModelRepository carModelRepository,
+            LocationRepository locationRepository,
+            @Value("${carsharing.reference-cache.max-size:10000}") long maxSize,
+            @Value("${carsharing.reference-cache.expire-after-write:1h}") Duration expireAfterWrite
+    ) {
+        this.carModels = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build(loader(carModelRepository::findById, carModelRepository::findAllById, CarModelSnapshot::of, CarModelSnapshot::id));
+        this.locations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build(loader(locationRepository::findById, locationRepository::findAllById, LocationSnapshot::of, LocationSnapshot::id));
+    }
+
+    /**
+     * @throws ResponseStatusException 404, если модели нет
+     */
+    public CarModelSnapshot carModel(Long id) {
+        return require(carModels.get(id), "Car model not found");
+    }
+
+    /**
+     * @throws ResponseStatusException 404, если локации нет
+     */
+    public LocationSnapshot location(Long id) {
+        return require(locations.get(id), "Location not found");
+    }
+
+    /**
+     * Модели по идентификаторам; отсутствующие в кэше загружаются одним запросом.
+     *
+     * @throws ResponseStatusException 404, если какой-либо модели нет
+     */
+    public Map<Long, CarModelSnapshot> carModels(Collection<Long> ids) {
+        return requireAll(carModels.getAll(ids), ids, "Car model not found");
+    }
+
+    /**
+     * Локации по идентификаторам; отсутствующие в кэше загружаются одним запросом.
+     *
+     * @throws ResponseStatusException 404, если какой-либо локации нет
+     */
+    public Map<Long, LocationSnapshot> locations(Collection<Long> ids) {
+        return requireAll(locations.getAll(ids), ids, "Location not found");
+    }
+
+    /**
+     * Удаляет изменённую сущность справочника из кэша: сразу и ещё раз после завершения
+     * текущей транзакции (чтобы не осталась версия, прочитанная параллельно до коммита).
+     */
+    public void invalidate(Object entity) {
+        Runnable eviction;
+        if (entity instanceof CarModel model) {
+            eviction = () -> carModels.invalidate(model.getId());
+        } else if (entity instanceof Location location) {
+            eviction = () -> locations.invalidate(location.getId());
+        } else {
+            return;
+        }
+        eviction.run();
+        invalidations.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        carModels.invalidateAll();
+        locations.invalidateAll();
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Статистика для подбора размера кэша: попадания, промахи, вытеснения по размеру/сроку
+     * и явные инвалидации при записи.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("carModels", stats(carModels));
+        result.put("locations", stats(locations));
+        result.put("invalidations", invalidations.get());
+        return result;
+    }
+
+    private static Map<String, Object> stats(LoadingCache<Long, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("loads", stats.loadCount());
+        return result;
+    }
+
+    private static <T> T require(T value, String reason) {
+        if (value == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, reason);
+        }
+        return value;
+    }
+
+    private static <T> Map<Long, T> requireAll(Map<Long, T> found, Collection<Long> ids, String reason) {
+        if (found.size() < new HashSet<>(ids).size()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, reason);
+        }
+        return found;
+    }
+
+    /**
+     * Загрузчик, сразу копирующий сущности в снимки; отсутствующие id в кэш не попадают.
+     */
+    private static <E, T> CacheLoader<Long, T> loader(Function<Long, Optional<E>> findById,
+                                                      Function<Iterable<Long>, ? extends Collection<E>> findAllById,
+                                                      Function<E, T> snapshot,
+                                                      Function<T, Long> idOf) {
+        return new CacheLoader<>() {
+            @Override
+            public T load(Long id) {
+                return findById.apply(id).map(snapshot).orElse(null);
+            }
+
+            @Override
+            public Map<Long, T> loadAll(Set<? extends Long> ids) {
+                Map<Long, T> loaded = new HashMap<>();
+                for (E entity : findAllById.apply(List.copyOf(ids))) {
+                    T value = snapshot.apply(entity);
+                    loaded.put(idOf.apply(value), value);
+                }
+                return loaded;
+            }
+        };
+    }
+}
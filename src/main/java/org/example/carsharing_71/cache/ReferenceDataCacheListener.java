@@ -0,0 +1,31 @@
+package org.example.carsharing_71.cache;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA-слушатель справочников: при изменении или удалении {@code CarModel} / {@code Location}
+ * удаляет запись из {@link ReferenceDataCache}.
+ * <p>
+ * Экземпляр создаёт Hibernate через контейнер бинов Spring; кэш берётся лениво,
+ * т.к. он сам зависит от репозиториев (и, значит, от EntityManagerFactory).
+ */
+@Component
+public class ReferenceDataCacheListener {
+    private final ObjectProvider<ReferenceDataCache> referenceDataCache;
+
+    public ReferenceDataCacheListener(ObjectProvider<ReferenceDataCache> referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        ReferenceDataCache cache = referenceDataCache.getIfAvailable();
+        if (cache != null) {
+            cache.invalidate(entity);
+        }
+    }
+}
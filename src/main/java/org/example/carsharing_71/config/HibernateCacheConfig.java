@@ -0,0 +1,48 @@
+package org.example.carsharing_71.config;
+
+import com.github.benmanes.caffeine.jcache.CacheManagerImpl;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * Собственный JCache {@link CacheManager} для кэша второго уровня Hibernate.
+ * <p>
+ * По умолчанию Hibernate берёт менеджер у провайдера Caffeine, а тот раздаёт один экземпляр
+ * на пару (URI, ClassLoader) всем фабрикам сессий процесса. При закрытии любой из них
+ * (например, контекста теста с {@code @DirtiesContext}) Hibernate закрывает общий менеджер,
+ * и остальные контексты получают {@code IllegalStateException} при обращении к кэшу.
+ * Здесь каждый контекст получает свой менеджер с той же конфигурацией регионов
+ * ({@code spring.jpa.properties.hibernate.javax.cache.uri}); закрывает его Hibernate.
+ */
+@Configuration
+public class HibernateCacheConfig {
+    @Bean
+    public HibernatePropertiesCustomizer jcacheManagerCustomizer(
+            @Value("${spring.jpa.properties.hibernate.javax.cache.uri}") String configResource) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, createCacheManager(configResource));
+    }
+
+    private CacheManager createCacheManager(String configResource) {
+        ClassLoader classLoader = getClass().getClassLoader();
+        URL config = classLoader.getResource(configResource);
+        if (config == null) {
+            throw new IllegalStateException("JCache configuration not found in classpath: " + configResource);
+        }
+        try {
+            return new CacheManagerImpl(Caching.getCachingProvider(CaffeineCachingProvider.class.getName()),
+                    false, config.toURI(), classLoader, new Properties());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Invalid JCache configuration location: " + config, e);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package org.example.carsharing_71.config;
 
-import org.example.carsharing_71.security.JpaUserDetailsService;
+import org.example.carsharing_71.security.AccessTokens;
+import org.example.carsharing_71.security.BasicAuthEntryPoint;
+import org.example.carsharing_71.security.BearerTokenFilter;
+import org.example.carsharing_71.security.BoundedPasswordEncoder;
+import org.example.carsharing_71.security.CachingBasicAuthenticationProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -17,20 +21,24 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import java.time.Duration;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfiguration {
 
-    private final JpaUserDetailsService userDetailsService;
+    private final AccessTokens accessTokens;
 
-    public SecurityConfiguration(JpaUserDetailsService userDetailsService) {
-        this.userDetailsService = userDetailsService;
+    public SecurityConfiguration(AccessTokens accessTokens) {
+        this.accessTokens = accessTokens;
     }
 
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                            CachingBasicAuthenticationProvider authenticationProvider) throws Exception {
         // Отключаем CSRF для чистого REST (иначе POST/PUT/PATCH/DELETE без CSRF‑токена дадут 403)
         http.csrf(AbstractHttpConfigurer::disable);
         // Правила доступа к маршрутам
@@ -51,6 +59,9 @@ public class SecurityConfiguration {
                 // Диагностика текущего пользователя/ролей (для отладки входа)
                 .requestMatchers(HttpMethod.GET, "/api/whoami").permitAll()
 
+                // Выдача токена: пароль проверяется в самом эндпоинте
+                .requestMatchers(HttpMethod.POST, "/api/auth/token").permitAll()
+
                 // Админ‑маршруты доступны только пользователям с ролью ADMIN
                 // ВАЖНО: hasRole("ADMIN") ожидает, что в БД роль записана или
                 // мапится в Authority как "ROLE_ADMIN".
@@ -60,14 +71,18 @@ public class SecurityConfiguration {
                 // Остальные эндпоинты требуют аутентификации
                 .anyRequest().authenticated()
         );
-        // Подключаем наш UserDetailsService
-        // Явно указываем использовать наш сервис для БД
-        http.userDetailsService(userDetailsService);
+        // Подключаем наш UserDetailsService (JpaUserDetailsService) через провайдер с кэшем
+        // проверенных учётных данных: повторный Basic-запрос не ходит в БД и не считает BCrypt
+        http.authenticationProvider(authenticationProvider);
 
         // Включаем HTTP Basic аутентификацию с настройками по умолчанию:
         // браузер/клиент присылает заголовок Authorization: Basic <base64(user:pass)>,
-        // фильтры Spring Security валидируют креды (учетные данные) и создают SecurityContext
-        http.httpBasic(Customizer.withDefaults());
+        // фильтры Spring Security валидируют креды (учетные данные) и создают SecurityContext.
+        // Перегрузка пула BCrypt отвечает 503, а не 401: пароль мог быть верным
+        http.httpBasic(basic -> basic.authenticationEntryPoint(new BasicAuthEntryPoint()));
+
+        // Bearer-токен из POST /api/auth/token проверяется раньше Basic: по подписи, без БД и BCrypt
+        http.addFilterBefore(new BearerTokenFilter(accessTokens), BasicAuthenticationFilter.class);
         return http.build();
     }
 
@@ -84,9 +99,14 @@ public class SecurityConfiguration {
     // ОБЯЗАТЕЛЬНО: Если мы используем БД, нам нужен энкодер паролей.
     // Без него Spring выдаст ошибку "There is no PasswordEncoder mapped for the id null"
     // при попытке входа, если пароли в БД захешированы.
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    // BCrypt выполняется на ограниченном пуле (carsharing.security.bcrypt.*), чтобы всплеск входов
+    // не занял все потоки сервера; см. BoundedPasswordEncoder
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(
+            @Value("${carsharing.security.bcrypt.threads:2}") int threads,
+            @Value("${carsharing.security.bcrypt.queue-capacity:64}") int queueCapacity,
+            @Value("${carsharing.security.bcrypt.timeout:5s}") Duration timeout) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, timeout);
     }
 
 }
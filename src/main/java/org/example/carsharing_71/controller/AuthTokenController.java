@@ -0,0 +1,40 @@
+package org.example.carsharing_71.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.example.carsharing_71.api.dto.TokenDto;
+import org.example.carsharing_71.api.dto.TokenRequest;
+import org.example.carsharing_71.security.TokenLoginService;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Выдача bearer-токенов.
+ * - POST /api/auth/token — проверить логин и пароль и выдать короткоживущий токен
+ * <p>
+ * Дальше клиент передаёт {@code Authorization: Bearer <token>}: такой запрос проверяется
+ * по подписи, без BCrypt и без запроса пользователя в БД. HTTP Basic продолжает работать.
+ */
+@RestController
+@RequestMapping("/api/auth")
+@Tag(name = "Auth", description = "Выдача bearer-токенов")
+public class AuthTokenController {
+    private final TokenLoginService tokenLoginService;
+
+    public AuthTokenController(TokenLoginService tokenLoginService) {
+        this.tokenLoginService = tokenLoginService;
+    }
+
+    @PostMapping("/token")
+    @Operation(summary = "Получить токен", description = "Проверяет пароль один раз и выдаёт подписанный токен")
+    @ApiResponse(responseCode = "200", description = "OK")
+    @ApiResponse(responseCode = "401", description = "Bad credentials")
+    @ApiResponse(responseCode = "503", description = "Too many logins, retry later")
+    public TokenDto token(@Valid @RequestBody TokenRequest request) {
+        return TokenDto.fromIssued(tokenLoginService.login(request.getLogin(), request.getPassword()));
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.carsharing_71.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.carsharing_71.availability.AvailabilityChecker;
+import org.example.carsharing_71.availability.ReservationIndex;
+import org.example.carsharing_71.availability.ZoneIndex;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Служебные эндпоинты in-memory индекса бронирований (только для ADMIN, см. SecurityConfiguration).
+ * - GET  /api/admin/availability/index         — состояние индекса
+ * - POST /api/admin/availability/index/rebuild — пересборка по данным БД
+ * - GET  /api/admin/availability/index/verify  — сверка индекса с БД
+ * - GET  /api/admin/availability/zones         — состояние индекса зон
+ * - POST /api/admin/availability/zones/rebuild — пересборка индекса зон (после изменения парка или зон)
+ */
+@RestController
+@RequestMapping("/api/admin/availability")
+@Tag(name = "Availability admin", description = "Диагностика in-memory индекса доступности")
+public class AvailabilityAdminController {
+    private final ReservationIndex reservationIndex;
+    private final AvailabilityChecker availabilityChecker;
+    private final ZoneIndex zoneIndex;
+
+    public AvailabilityAdminController(ReservationIndex reservationIndex,
+                                       AvailabilityChecker availabilityChecker,
+                                       ZoneIndex zoneIndex) {
+        this.reservationIndex = reservationIndex;
+        this.availabilityChecker = availabilityChecker;
+        this.zoneIndex = zoneIndex;
+    }
+
+    @GetMapping("/index")
+    @Operation(summary = "Состояние индекса бронирований")
+    public Map<String, Object> status() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("engine", availabilityChecker.getEngine().name());
+        result.put("verify", availabilityChecker.isVerify());
+        result.put("ready", reservationIndex.isReady());
+        result.put("cars", reservationIndex.carCount());
+        result.put("intervals", reservationIndex.intervalCount());
+        result.put("lastRebuildAt", reservationIndex.getLastRebuildAt());
+        return result;
+    }
+
+    @PostMapping("/index/rebuild")
+    @Operation(summary = "Пересобрать индекс по данным БД")
+    public Map<String, Object> rebuild() {
+        reservationIndex.rebuild();
+        return status();
+    }
+
+    @GetMapping("/index/verify")
+    @Operation(summary = "Сверить индекс с БД")
+    public Map<String, Object> verify() {
+        Set<Long> mismatched = reservationIndex.verify();
+        return Map.of(
+                "consistent", mismatched.isEmpty(),
+                "mismatchedCarIds", mismatched
+        );
+    }
+
+    @GetMapping("/zones")
+    @Operation(summary = "Состояние индекса зон")
+    public Map<String, Object> zones() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("zones", zoneIndex.size());
+        result.put("lastRebuildAt", zoneIndex.getLastRebuildAt());
+        return result;
+    }
+
+    @PostMapping("/zones/rebuild")
+    @Operation(summary = "Пересобрать индекс зон по данным БД")
+    public Map<String, Object> rebuildZones() {
+        zoneIndex.rebuild();
+        return zones();
+    }
+}
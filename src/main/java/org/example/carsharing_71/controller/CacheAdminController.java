@@ -0,0 +1,58 @@
+package org.example.carsharing_71.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.carsharing_71.cache.ReferenceDataCache;
+import org.example.carsharing_71.security.VerifiedCredentialCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Служебные эндпоинты кэшей (только для ADMIN, см. SecurityConfiguration).
+ * - GET  /api/admin/cache                        — справочники: размер, попадания, промахи и вытеснения
+ * - POST /api/admin/cache/invalidate             — очистить кэш справочников
+ * - GET  /api/admin/cache/credentials            — кэш проверенных учётных данных HTTP Basic, доля попаданий
+ * - POST /api/admin/cache/credentials/invalidate — сбросить его (например, после правки пользователей SQL)
+ */
+@RestController
+@RequestMapping("/api/admin/cache")
+@Tag(name = "Cache admin", description = "Статистика кэшей")
+public class CacheAdminController {
+    private final ReferenceDataCache referenceDataCache;
+    private final VerifiedCredentialCache credentialCache;
+
+    public CacheAdminController(ReferenceDataCache referenceDataCache, VerifiedCredentialCache credentialCache) {
+        this.referenceDataCache = referenceDataCache;
+        this.credentialCache = credentialCache;
+    }
+
+    @GetMapping
+    @Operation(summary = "Статистика кэша справочников")
+    public Map<String, Object> stats() {
+        return referenceDataCache.stats();
+    }
+
+    @PostMapping("/invalidate")
+    @Operation(summary = "Очистить кэш справочников")
+    public Map<String, Object> invalidate() {
+        referenceDataCache.invalidateAll();
+        return stats();
+    }
+
+    @GetMapping("/credentials")
+    @Operation(summary = "Статистика кэша проверенных учётных данных HTTP Basic")
+    public Map<String, Object> credentialStats() {
+        return credentialCache.stats();
+    }
+
+    @PostMapping("/credentials/invalidate")
+    @Operation(summary = "Сбросить кэш проверенных учётных данных")
+    public Map<String, Object> invalidateCredentials() {
+        credentialCache.invalidateAll();
+        return credentialStats();
+    }
+}
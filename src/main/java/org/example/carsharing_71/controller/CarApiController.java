@@ -1,37 +1,70 @@
 package org.example.carsharing_71.controller;
 
+import org.example.carsharing_71.api.CarCursor;
 import org.example.carsharing_71.api.dto.CarDto;
+import org.example.carsharing_71.api.dto.NearbyCarDto;
+import org.example.carsharing_71.cache.FleetVersions;
 import org.example.carsharing_71.service.CarService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
 
 import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * http://localhost:8080/api/cars
  * REST-контроллер каталога и доступности автомобилей.
  * - GET /api/cars - каталог с фильтрами
  * - GET /api/cars/availablity - доступные автомобили по временному интервалу
+ * - GET /api/cars/nearby - доступные автомобили в радиусе от точки, ближайшие первыми
+ * <p>
+ * Оба списка поддерживают keyset-пагинацию: параметры {@code limit}, {@code cursor} и {@code sort}
+ * ({@code id} или {@code plateNumber}). Курсор следующей страницы возвращается в заголовке
+ * {@code X-Next-Cursor} и в {@code Link: <...>; rel="next"}; на последней странице заголовков нет.
+ * Без {@code limit} и {@code cursor} возвращается полный список, как раньше.
+ * <p>
+ * {@code GET /api/cars?stream=true} отдаёт тот же каталог потоково (для выгрузок):
+ * строки читаются из БД курсором и сразу пишутся в ответ, без промежуточных списков.
+ * <p>
+ * {@code GET /api/cars} и {@code GET /api/cars/{id}} отдают {@code ETag} и {@code Last-Modified}
+ * по версиям из {@link FleetVersions}; на {@code If-None-Match} / {@code If-Modified-Since}
+ * без изменений отвечают 304 до обращения к БД и сериализации.
  */
 @RestController
 @RequestMapping("/api")
 @Validated
 @Tag(name = "Cars", description = "Каталог и доступность автомобилей")
 public class CarApiController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     private final CarService carService;
+    private final FleetVersions fleetVersions;
+    private final ObjectMapper objectMapper;
 
-    public CarApiController(CarService carService) {
+    public CarApiController(CarService carService, FleetVersions fleetVersions, ObjectMapper objectMapper) {
         this.carService = carService;
+        this.fleetVersions = fleetVersions;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -40,43 +73,139 @@ public class CarApiController {
      * @param locationId идентификатор локации (опционально)
      * @param modelId    идентификатор модели автомобиля (опционально)
      * @param seats      минимальное количество мест (опционально, должно быть > 0)
+     * @param limit      размер страницы (опционально, не больше 500)
+     * @param cursor     курсор из {@code X-Next-Cursor} предыдущей страницы (опционально)
+     * @param sort       стабильная сортировка страниц: {@code id} (по умолчанию) или {@code plateNumber}
      * @return список автомобилей в формате {@link CarDto}
      */
     @GetMapping("/cars")
     @Operation(summary = "Каталог автомобилей", description = "Фильтры: locationId, modelId, seats")
     @ApiResponse(responseCode = "200", description = "Все гаразд!")
     @Parameter(name = "Location ID", description = "Идентификатор локации (опционально)")
-    public List<CarDto> cars(
+    public ResponseEntity<List<CarDto>> cars(
+            @RequestParam(required = false) Long locationId,
+            @RequestParam(required = false) Long modelId,
+            @RequestParam(required = false) @Positive Integer seats,
+            @RequestParam(required = false) @Positive @Max(500) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "id") String sort,
+            WebRequest request
+    ) {
+        if (notModified(request, fleetVersions.fleet())) {
+            return null;
+        }
+        if (limit != null || cursor != null) {
+            CarCursor.Sort order = CarCursor.Sort.fromParam(sort);
+            int size = limit != null ? limit : DEFAULT_PAGE_SIZE;
+            return page(carService.listPage(locationId, modelId, seats,
+                    CarCursor.decode(cursor, order), order, size), order, size);
+        }
+        return ResponseEntity.ok(carService.catalog(locationId, modelId, seats));
+    }
+
+    /**
+     * Потоковая выгрузка каталога с теми же фильтрами, что и {@link #cars}.
+     * JSON-массив пишется по мере чтения строк из БД и сбрасывается клиенту порциями.
+     */
+    @GetMapping(value = "/cars", params = "stream=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Потоковая выгрузка каталога", description = "Фильтры: locationId, modelId, seats")
+    @ApiResponse(responseCode = "200", description = "OK")
+    public ResponseEntity<StreamingResponseBody> carsStream(
             @RequestParam(required = false) Long locationId,
             @RequestParam(required = false) Long modelId,
             @RequestParam(required = false) @Positive Integer seats
     ) {
-        return carService.list(locationId, modelId, seats).stream()
-                .map(CarDto::fromEntity)
-                .collect(Collectors.toList());
-//                .toList();
+        StreamingResponseBody body = out -> {
+            // Генератор не закрываем: выходным потоком управляет контейнер
+            JsonGenerator generator = objectMapper.createGenerator(out);
+            generator.writeStartArray();
+            carService.forEachInCatalog(locationId, modelId, seats,
+                    car -> generator.writePOJO(CarDto.fromEntity(car)),
+                    generator::flush);
+            generator.writeEndArray();
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/cars/availability")
     @Operation(summary = "Доступность автомобилей", description = "Интервал времени ISO-8601 и опциональные фильтры: locationId, seats")
     @ApiResponse(responseCode = "200", description = "OK")
-    public List<CarDto> availablity(
+    public ResponseEntity<List<CarDto>> availablity(
             @RequestParam(name = "locationId", required = false) @Positive(message = "locationId must be positive") Long locationId,
             @RequestParam(name = "startAt") @Parameter(description = "Начало интервала (ISO‑8601)") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startAt,
             @RequestParam(name = "endAt") @Parameter(description = "Конец интервала (ISO‑8601)") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endAt,
-            @RequestParam(name = "seats", required = false) @Positive(message = "seats must be positive") Integer seats) {
-        return carService.available(locationId, startAt, endAt, seats).stream()
-                .map(CarDto::fromEntity)
-                .toList();      // "синтаксический сахар"
+            @RequestParam(name = "seats", required = false) @Positive(message = "seats must be positive") Integer seats,
+            @RequestParam(name = "limit", required = false) @Positive @Max(500) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "sort", defaultValue = "id") String sort) {
+        if (limit != null || cursor != null) {
+            CarCursor.Sort order = CarCursor.Sort.fromParam(sort);
+            int size = limit != null ? limit : DEFAULT_PAGE_SIZE;
+            return page(carService.availablePage(locationId, startAt, endAt, seats,
+                    CarCursor.decode(cursor, order), order, size).stream()
+                    .map(CarDto::fromEntity)
+                    .toList(), order, size);
+        }
+        return ResponseEntity.ok(carService.availableDtos(locationId, startAt, endAt, seats));
+    }
+
+    /**
+     * Доступные автомобили в радиусе от точки (например, текущего положения клиента), ближайшие первыми.
+     */
+    @GetMapping("/cars/nearby")
+    @Operation(summary = "Доступные автомобили рядом", description = "Точка (lat, lon), радиус в км и интервал времени ISO-8601")
+    @ApiResponse(responseCode = "200", description = "OK")
+    public List<NearbyCarDto> nearby(
+            @RequestParam(name = "lat") @DecimalMin("-90") @DecimalMax("90") Double lat,
+            @RequestParam(name = "lon") @DecimalMin("-180") @DecimalMax("180") Double lon,
+            @RequestParam(name = "radiusKm") @Positive @DecimalMax("200") Double radiusKm,
+            @RequestParam(name = "startAt") @Parameter(description = "Начало интервала (ISO‑8601)") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startAt,
+            @RequestParam(name = "endAt") @Parameter(description = "Конец интервала (ISO‑8601)") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endAt,
+            @RequestParam(name = "limit", required = false) @Positive @Max(500) Integer limit) {
+        return carService.nearby(lat, lon, radiusKm, startAt, endAt, limit).stream()
+                .map(NearbyCarDto::from)
+                .toList();
     }
 
     @GetMapping("/cars/{id:\\d+}")
     @Operation(summary = "Получение автомобиля по ID")
     @ApiResponse(responseCode = "200", description = "OK")
     @ApiResponse(responseCode = "404", description = "Автомобиль не найден")
-    public CarDto getById(@PathVariable Long id) {
+    @ApiResponse(responseCode = "304", description = "Автомобиль не менялся (If-None-Match)")
+    public CarDto getById(@PathVariable Long id, WebRequest request) {
+        if (notModified(request, fleetVersions.car(id))) {
+            return null;
+        }
         return carService.findById(id)
                 .map(CarDto::fromEntity)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Car not found"));
     }
+
+    /**
+     * Проверяет условные заголовки запроса по версии; при совпадении Spring сам выставит 304.
+     * ETag и Last-Modified добавляются в ответ в обоих случаях.
+     */
+    private boolean notModified(WebRequest request, FleetVersions.Stamp stamp) {
+        return request.checkNotModified(fleetVersions.etag(stamp), stamp.modifiedAt().toEpochMilli());
+    }
+
+    /**
+     * Отрезает лишнюю (limit + 1) запись и, если она была, добавляет ссылку на следующую страницу.
+     */
+    private ResponseEntity<List<CarDto>> page(List<CarDto> fetched, CarCursor.Sort sort, int limit) {
+        List<CarDto> body = fetched.size() > limit ? fetched.subList(0, limit) : fetched;
+        if (fetched.size() <= limit) {
+            return ResponseEntity.ok(body);
+        }
+        String next = CarCursor.after(body.get(body.size() - 1), sort).encode();
+        String link = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", next)
+                .replaceQueryParam("limit", limit)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, next)
+                .header(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"")
+                .body(body);
+    }
 }
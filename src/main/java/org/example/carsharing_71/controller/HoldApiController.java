@@ -0,0 +1,54 @@
+package org.example.carsharing_71.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.example.carsharing_71.api.dto.HoldDto;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.service.CarHolds;
+import org.example.carsharing_71.service.ReservationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * Удержание автомобиля на время оформления бронирования.
+ * - POST   /api/holds      — удержать окно автомобиля на {@code carsharing.reservation.hold.ttl}
+ * - DELETE /api/holds/{id} — отпустить своё удержание раньше срока
+ * <p>
+ * Идентификатор удержания передаётся в {@code holdId} запроса POST /api/reservations.
+ */
+@RestController
+@RequestMapping("/api/holds")
+@Tag(name = "Holds", description = "Удержание автомобиля на время оформления")
+public class HoldApiController {
+    private final ReservationService reservationService;
+    private final CarHolds carHolds;
+
+    public HoldApiController(ReservationService reservationService, CarHolds carHolds) {
+        this.reservationService = reservationService;
+        this.carHolds = carHolds;
+    }
+
+    @PostMapping
+    @Operation(summary = "Удержать автомобиль", description = "Проверяет доступность и закрывает окно для других на время оформления")
+    @ApiResponse(responseCode = "201", description = "Created")
+    @ApiResponse(responseCode = "404", description = "User/Car not found")
+    @ApiResponse(responseCode = "422", description = "Car is not available, overlapping reservation or on hold")
+    public ResponseEntity<HoldDto> hold(@Valid @RequestBody ReservationCreateRequest request) {
+        return ResponseEntity.status(201).body(HoldDto.fromHold(reservationService.hold(request)));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Отпустить удержание")
+    @ApiResponse(responseCode = "204", description = "Released")
+    @ApiResponse(responseCode = "403", description = "Hold belongs to another user")
+    @ApiResponse(responseCode = "404", description = "Hold not found or expired")
+    public ResponseEntity<Void> release(@PathVariable UUID id, Principal principal) {
+        carHolds.release(id, reservationService.userIdOf(principal.getName()));
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.carsharing_71.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.carsharing_71.scheduling.CarReleaseScheduler;
+import org.example.carsharing_71.scheduling.ReservationArchiver;
+import org.example.carsharing_71.service.ReservationContention;
+import org.example.carsharing_71.service.ReservationPipeline;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Служебные эндпоинты бронирований (только для ADMIN, см. SecurityConfiguration).
+ * - GET  /api/admin/reservations/contention       — конфликты версий, повторы и отказы по локациям
+ * - POST /api/admin/reservations/contention/reset — обнулить счётчики
+ * - GET  /api/admin/reservations/pipeline         — глубина очередей и пакеты по шардам
+ * - GET  /api/admin/reservations/release          — колесо освобождения автомобилей
+ * - GET  /api/admin/reservations/archive          — перенос завершённых бронирований в архив
+ * - POST /api/admin/reservations/archive/run      — перенести сейчас, не дожидаясь прогона по расписанию
+ */
+@RestController
+@RequestMapping("/api/admin/reservations")
+@Tag(name = "Reservation admin", description = "Конкуренция при создании бронирований")
+public class ReservationAdminController {
+    private final ReservationContention contention;
+    private final ReservationPipeline pipeline;
+    private final CarReleaseScheduler releaseScheduler;
+    private final ReservationArchiver archiver;
+
+    public ReservationAdminController(ReservationContention contention, ReservationPipeline pipeline,
+                                      CarReleaseScheduler releaseScheduler, ReservationArchiver archiver) {
+        this.contention = contention;
+        this.pipeline = pipeline;
+        this.releaseScheduler = releaseScheduler;
+        this.archiver = archiver;
+    }
+
+    @GetMapping("/contention")
+    @Operation(summary = "Конфликты бронирований по локациям")
+    public List<Map<String, Object>> contention() {
+        return contention.stats();
+    }
+
+    @PostMapping("/contention/reset")
+    @Operation(summary = "Обнулить счётчики конфликтов")
+    public List<Map<String, Object>> reset() {
+        contention.reset();
+        return contention.stats();
+    }
+
+    @GetMapping("/pipeline")
+    @Operation(summary = "Очереди бронирований по шардам")
+    public List<Map<String, Object>> pipeline() {
+        return pipeline.stats();
+    }
+
+    @GetMapping("/release")
+    @Operation(summary = "Колесо освобождения автомобилей по окончании бронирований")
+    public Map<String, Object> release() {
+        return releaseScheduler.stats();
+    }
+
+    @GetMapping("/archive")
+    @Operation(summary = "Архивация завершённых и отменённых бронирований")
+    public Map<String, Object> archive() {
+        return archiver.stats();
+    }
+
+    @PostMapping("/archive/run")
+    @Operation(summary = "Перенести завершённые и отменённые бронирования в архив сейчас")
+    public Map<String, Object> runArchive() {
+        archiver.archive();
+        return archiver.stats();
+    }
+}
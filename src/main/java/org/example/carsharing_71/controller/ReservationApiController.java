@@ -1,19 +1,36 @@
 package org.example.carsharing_71.controller;
 
+import org.example.carsharing_71.api.ReservationCursor;
+import org.example.carsharing_71.api.dto.ReservationBatchItemDto;
+import org.example.carsharing_71.api.dto.ReservationBatchRequest;
 import org.example.carsharing_71.api.dto.ReservationCreateRequest;
 import org.example.carsharing_71.api.dto.ReservationDto;
 import org.example.carsharing_71.domain.Reservation;
+import org.example.carsharing_71.service.ReservationIdempotency;
+import org.example.carsharing_71.service.ReservationPipeline;
 import org.example.carsharing_71.service.ReservationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.security.Principal;
+import java.util.List;
 
 /**
  * Контроллер для обработки HTTP-запросов, связанных с бронированием автомобилей.
@@ -21,46 +38,164 @@ import org.springframework.web.bind.annotation.RestController;
  * 
  * <p>Основные функции:
  * - Создание нового бронирования
+ * - Пакетное создание бронирований с результатом по каждому элементу
+ * - Отмена бронирования и список активных бронирований текущего пользователя
  * - Валидация входных данных
  * - Преобразование DTO в сущности и обратно</p>
  */
 @RestController
 @RequestMapping("/api")
-@Tag(name = "Reservations", description = "Создание бронирования автомобиля")
+@Validated
+@Tag(name = "Reservations", description = "Создание и отмена бронирования автомобиля")
 // При значении параметров по умолчанию
 // будет в заголовке описания контроллера - reservation-api-controller
 public class ReservationApiController {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     // Сервис для работы с бизнес-логикой бронирований
     private final ReservationService reservationService;
 
+    // Очередь с одним писателем на шард автомобилей (для локаций с пиковым спросом)
+    private final ReservationPipeline reservationPipeline;
+
+    // Повторы запросов с тем же Idempotency-Key
+    private final ReservationIdempotency idempotency;
+
     /**
      * Конструктор контроллера.
      * 
      * @param reservationService сервис для работы с бронированиями
+     * @param reservationPipeline очередь бронирований по шардам автомобилей
+     * @param idempotency хранилище ключей идемпотентности
      */
-    public ReservationApiController(ReservationService reservationService) {
+    public ReservationApiController(ReservationService reservationService, ReservationPipeline reservationPipeline,
+                                    ReservationIdempotency idempotency) {
         this.reservationService = reservationService;
+        this.reservationPipeline = reservationPipeline;
+        this.idempotency = idempotency;
     }
 
     /**
      * Обрабатывает POST запрос на создание нового бронирования.
      * 
      * @param request DTO с данными для создания бронирования
+     * @param idempotencyKey необязательный заголовок Idempotency-Key
+     * @param principal аутентифицированный пользователь (ключи не пересекаются между пользователями)
      * @return ResponseEntity с созданным бронированием и статусом 201 (Created)
      * 
      * <p>Параметры запроса валидируются с помощью аннотации @Valid.
-     * В случае успеха возвращает HTTP 201 с данными созданного бронирования.</p>
+     * В случае успеха возвращает HTTP 201 с данными созданного бронирования.
+     * Автомобили локаций из {@code carsharing.reservation.pipeline.location-ids} бронируются через
+     * очередь шарда ({@link ReservationPipeline}); ответ по-прежнему синхронный.
+     * Повтор с тем же {@code Idempotency-Key} возвращает сохранённый ответ с заголовком
+     * {@code Idempotent-Replayed: true}, не бронируя заново.</p>
      */
     @PostMapping("/reservations")
     @Operation(summary = "Создать бронирование", description = "Проверяет доступность и создает запись о бронировании")
     @ApiResponse(responseCode = "201", description = "Created")
     @ApiResponse(responseCode = "404", description = "User/Car not found")
+    @ApiResponse(responseCode = "409", description = "Request with this Idempotency-Key is still in progress")
     @ApiResponse(responseCode = "422", description = "Validation/Business error")
+    @ApiResponse(responseCode = "503", description = "Reservation queue is full")
     @Parameter(name = "Request", description = "DTO с данными для создания бронирования")
     public ResponseEntity<ReservationDto> create(
-            @Valid @RequestBody ReservationCreateRequest request
+            @Valid @RequestBody ReservationCreateRequest request,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            Principal principal
+    ) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(201).body(ReservationDto.fromEntity(reserve(request)));
+        }
+        ReservationIdempotency.Result result = idempotency.execute(idempotencyKey, principal.getName(), request,
+                () -> ReservationDto.fromEntity(reserve(request)));
+        return ResponseEntity.status(201)
+                .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                .body(result.reservation());
+    }
+
+    private Reservation reserve(ReservationCreateRequest request) {
+        return reservationPipeline.handles(request.getCarId())
+                ? reservationPipeline.submit(request)
+                : reservationService.create(request);
+    }
+
+    /**
+     * Обрабатывает POST запрос на пакетное создание бронирований.
+     *
+     * @param request DTO с элементами пакета
+     * @return ResponseEntity с результатами по каждому элементу (в порядке запроса) и статусом 200
+     *
+     * <p>Отказ отдельного элемента (404/422) не отменяет остальные: он возвращается в его результате
+     * с тем же статусом и причиной, что и у одиночного бронирования.</p>
+     */
+    @PostMapping("/reservations/batch")
+    @Operation(summary = "Создать пакет бронирований",
+            description = "Проверяет пересечения одним запросом на пакет и возвращает результат по каждому элементу")
+    @ApiResponse(responseCode = "200", description = "Результаты по элементам (CREATED/REJECTED)")
+    @ApiResponse(responseCode = "409", description = "Автомобили пакета параллельно изменялись")
+    @ApiResponse(responseCode = "422", description = "Пустой или слишком большой пакет, невалидный элемент")
+    public ResponseEntity<List<ReservationBatchItemDto>> createBatch(
+            @Valid @RequestBody ReservationBatchRequest request
+    ) {
+        List<ReservationBatchItemDto> results = reservationService.createBatch(request.getReservations()).stream()
+                .map(ReservationBatchItemDto::fromItem)
+                .toList();
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Отменяет бронирование текущего пользователя.
+     *
+     * @param id        идентификатор бронирования
+     * @param principal аутентифицированный пользователь (отменить можно только своё бронирование)
+     * @return отменённое бронирование
+     *
+     * <p>Если у автомобиля не осталось активных бронирований, он сразу становится доступным.</p>
+     */
+    @PostMapping("/reservations/{id}/cancel")
+    @Operation(summary = "Отменить бронирование", description = "Отменяет своё активное бронирование и освобождает автомобиль")
+    @ApiResponse(responseCode = "200", description = "Cancelled")
+    @ApiResponse(responseCode = "403", description = "Reservation belongs to another user")
+    @ApiResponse(responseCode = "404", description = "Reservation not found")
+    @ApiResponse(responseCode = "409", description = "Car was modified concurrently")
+    @ApiResponse(responseCode = "422", description = "Reservation is not active or has already ended")
+    public ReservationDto cancel(@PathVariable Long id, Principal principal) {
+        return ReservationDto.fromEntity(reservationService.cancel(id, reservationService.userIdOf(principal.getName())));
+    }
+
+    /**
+     * Возвращает активные (ещё не закончившиеся) бронирования текущего пользователя по началу.
+     *
+     * @param limit     размер страницы (не больше 500, по умолчанию 50)
+     * @param cursor    курсор из {@code X-Next-Cursor} предыдущей страницы (опционально)
+     * @param principal аутентифицированный пользователь
+     * @return страница бронирований; ссылка на следующую — в {@code X-Next-Cursor} и {@code Link: <...>; rel="next"}
+     */
+    @GetMapping("/reservations/active")
+    @Operation(summary = "Активные бронирования", description = "Keyset-страницы по началу бронирования")
+    @ApiResponse(responseCode = "200", description = "OK")
+    @ApiResponse(responseCode = "422", description = "Invalid cursor")
+    public ResponseEntity<List<ReservationDto>> active(
+            @RequestParam(required = false) @Positive @Max(500) Integer limit,
+            @RequestParam(required = false) String cursor,
+            Principal principal
     ) {
-        Reservation reservation = reservationService.create(request);
-        return ResponseEntity.status(201).body(ReservationDto.fromEntity(reservation));
+        int size = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        List<Reservation> fetched = reservationService.activeReservations(
+                reservationService.userIdOf(principal.getName()), ReservationCursor.decode(cursor), size);
+        List<Reservation> page = fetched.size() > size ? fetched.subList(0, size) : fetched;
+        List<ReservationDto> body = page.stream().map(ReservationDto::fromEntity).toList();
+        if (fetched.size() <= size) {
+            return ResponseEntity.ok(body);
+        }
+        String next = ReservationCursor.after(page.get(page.size() - 1)).encode();
+        String link = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", next)
+                .replaceQueryParam("limit", size)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(CarApiController.NEXT_CURSOR_HEADER, next)
+                .header(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"")
+                .body(body);
     }
 }
@@ -0,0 +1,60 @@
+package org.example.carsharing_71.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.carsharing_71.api.dto.CarDto;
+import org.example.carsharing_71.api.dto.ZoneAvailabilityDto;
+import org.example.carsharing_71.service.ZoneService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * REST-контроллер доступности автомобилей по зонам города.
+ * - GET /api/zones/availability - число автомобилей и свободных автомобилей в каждой зоне за интервал
+ * - GET /api/zones/{code}/cars/availability - свободные автомобили зоны за интервал
+ */
+@RestController
+@RequestMapping("/api/zones")
+@Validated
+@Tag(name = "Zones", description = "Доступность автомобилей по зонам")
+public class ZoneApiController {
+    private final ZoneService zoneService;
+
+    public ZoneApiController(ZoneService zoneService) {
+        this.zoneService = zoneService;
+    }
+
+    @GetMapping("/availability")
+    @Operation(summary = "Сводка доступности по зонам", description = "Интервал времени ISO-8601")
+    @ApiResponse(responseCode = "200", description = "OK")
+    public List<ZoneAvailabilityDto> availability(
+            @RequestParam(name = "startAt") @Parameter(description = "Начало интервала (ISO‑8601)") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startAt,
+            @RequestParam(name = "endAt") @Parameter(description = "Конец интервала (ISO‑8601)") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endAt) {
+        return zoneService.availability(startAt, endAt).stream()
+                .map(ZoneAvailabilityDto::from)
+                .toList();
+    }
+
+    @GetMapping("/{code}/cars/availability")
+    @Operation(summary = "Свободные автомобили зоны", description = "Интервал времени ISO-8601")
+    @ApiResponse(responseCode = "200", description = "OK")
+    @ApiResponse(responseCode = "404", description = "Зона не найдена")
+    public List<CarDto> availableCars(
+            @PathVariable String code,
+            @RequestParam(name = "startAt") @Parameter(description = "Начало интервала (ISO‑8601)") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startAt,
+            @RequestParam(name = "endAt") @Parameter(description = "Конец интервала (ISO‑8601)") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endAt) {
+        return zoneService.availableCars(code, startAt, endAt).stream()
+                .map(CarDto::fromEntity)
+                .toList();
+    }
+}
@@ -1,12 +1,19 @@
 package org.example.carsharing_71.domain;
 
 import jakarta.persistence.*;
+import org.example.carsharing_71.cache.FleetVersionListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@EntityListeners(FleetVersionListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "car")
 @Table(name = "cars")
 public class Car {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cars_seq")
+    @SequenceGenerator(name = "cars_seq", sequenceName = "cars_seq", allocationSize = 50)
     private Long id;
     @ManyToOne(optional = false)
     @JoinColumn(name = "model_id", nullable = false)
@@ -21,6 +28,9 @@ public class Car {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private CarStatus status;
+    // Оптимистичная блокировка: смена статуса на основе устаревших данных завершится ошибкой, а не перезапишет чужую
+    @Version
+    private Long version;
 
     public Long getId() {
         return id;
@@ -69,4 +79,8 @@ public class Car {
     public void setStatus(CarStatus status) {
         this.status = status;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
@@ -1,15 +1,23 @@
 package org.example.carsharing_71.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.example.carsharing_71.cache.FleetVersionListener;
+import org.example.carsharing_71.cache.ReferenceDataCacheListener;
 
 /**
  * Модель автомобиля (бренд/модель + характеристики)
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "car-model")
+@EntityListeners({ReferenceDataCacheListener.class, FleetVersionListener.class})
 @Table(name = "car_models")
 public class CarModel {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_models_seq")
+    @SequenceGenerator(name = "car_models_seq", sequenceName = "car_models_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String brand;
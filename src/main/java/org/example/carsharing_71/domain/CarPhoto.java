@@ -14,7 +14,8 @@ import java.time.Instant;
 @Table(name = "car_photos")
 public class CarPhoto {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_photos_seq")
+    @SequenceGenerator(name = "car_photos_seq", sequenceName = "car_photos_seq", allocationSize = 50)
     private Long id;
 
     /** Связь «многие к одному» с автомобилем. Обязательное поле. */
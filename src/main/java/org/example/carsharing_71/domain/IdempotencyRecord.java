@@ -0,0 +1,61 @@
+package org.example.carsharing_71.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Ключ идемпотентности запроса на бронирование.
+ * <p>
+ * Связан с таблицей {@code reservation_idempotency_keys}. Хранит отпечаток запроса
+ * (повтор с тем же ключом, но другим телом отклоняется) и сохранённый JSON ответа;
+ * пока ответа нет, ключ захвачен выполняющимся запросом. Ключи принадлежат пользователю:
+ * одинаковые значения заголовка у разных пользователей — разные записи.
+ */
+@Entity
+@Table(name = "reservation_idempotency_keys")
+@IdClass(IdempotencyRecord.Key.class)
+public class IdempotencyRecord {
+    /**
+     * Составной первичный ключ: владелец и значение заголовка.
+     *
+     * @param owner логин пользователя
+     * @param key   значение заголовка Idempotency-Key
+     */
+    public record Key(String owner, String key) implements Serializable {
+    }
+
+    /** Логин пользователя, отправившего запрос. */
+    @Id
+    @Column(name = "owner", length = 50)
+    private String owner;
+
+    /** Значение заголовка Idempotency-Key. */
+    @Id
+    @Column(name = "idempotency_key", length = 128)
+    private String key;
+
+    /** SHA-256 пользователя и тела запроса (hex). */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /** JSON ответа ({@code ReservationDto}); null — запрос ещё выполняется. */
+    @Column(name = "response")
+    private String response;
+
+    /** Время захвата ключа (UTC); по нему отсчитывается TTL. */
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+    public String getResponse() { return response; }
+    public void setResponse(String response) { this.response = response; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
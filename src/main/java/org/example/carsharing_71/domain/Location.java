@@ -1,12 +1,21 @@
 package org.example.carsharing_71.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.example.carsharing_71.cache.FleetVersionListener;
+import org.example.carsharing_71.cache.ReferenceDataCacheListener;
+import org.example.carsharing_71.geo.LocationGeoIndexListener;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "location")
+@EntityListeners({ReferenceDataCacheListener.class, FleetVersionListener.class, LocationGeoIndexListener.class})
 @Table(name = "locations")
 public class Location {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "locations_seq")
+    @SequenceGenerator(name = "locations_seq", sequenceName = "locations_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String name;
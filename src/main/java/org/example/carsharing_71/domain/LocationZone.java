@@ -0,0 +1,56 @@
+package org.example.carsharing_71.domain;
+
+import jakarta.persistence.*;
+
+/**
+ * Доменная сущность привязки локации к зоне (району города).
+ * <p>
+ * Связана с таблицей {@code location_zones}. Зона определяется кодом: строки с одинаковым
+ * {@code code} образуют одну зону из нескольких локаций, а одна локация может входить в несколько зон.
+ */
+@Entity
+@Table(name = "location_zones")
+public class LocationZone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "location_zones_seq")
+    @SequenceGenerator(name = "location_zones_seq", sequenceName = "location_zones_seq", allocationSize = 50)
+    private Long id;
+
+    /** Локация, входящая в зону. */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "location_id", nullable = false)
+    private Location location;
+
+    /** Человекочитаемое название зоны. */
+    @Column(nullable = false)
+    private String name;
+
+    /** Код зоны (например, {@code BER-CENTER}). */
+    @Column(nullable = false)
+    private String code;
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+    public Location getLocation() {
+        return location;
+    }
+    public void setLocation(Location location) {
+        this.location = location;
+    }
+    public String getName() {
+        return name;
+    }
+    public void setName(String name) {
+        this.name = name;
+    }
+    public String getCode() {
+        return code;
+    }
+    public void setCode(String code) {
+        this.code = code;
+    }
+}
@@ -9,7 +9,8 @@ import java.time.Instant;
 @Table(name = "promo_codes")
 public class PromoCode {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "promo_codes_seq")
+    @SequenceGenerator(name = "promo_codes_seq", sequenceName = "promo_codes_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false, length = 64)
     private String code;
@@ -1,16 +1,20 @@
 package org.example.carsharing_71.domain;
 
 import jakarta.persistence.*;
+import org.example.carsharing_71.cache.FleetVersionListener;
 import java.time.Instant;
 
 /**
  * Бронирование автомобиля.
  */
 @Entity
+@EntityListeners(FleetVersionListener.class)
 @Table(name = "reservations")
 public class Reservation {
+    // Последовательность с шагом 50 (changeset 009): id выдаются пачкой, вставки идут JDBC-батчами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservations_seq")
+    @SequenceGenerator(name = "reservations_seq", sequenceName = "reservations_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -34,6 +38,10 @@ public class Reservation {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
+    // Оптимистичная блокировка: параллельное изменение (например, отмена) не затрёт чужую запись
+    @Version
+    private Long version;
+
     @PrePersist
     void onCreate() {
         if (createdAt == null) createdAt = Instant.now();
@@ -53,5 +61,6 @@ public class Reservation {
     public void setStatus(ReservationStatus status) { this.status = status; }
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public Long getVersion() { return version; }
 }
 
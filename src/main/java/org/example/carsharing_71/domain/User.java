@@ -1,6 +1,7 @@
 package org.example.carsharing_71.domain;
 
 import jakarta.persistence.*;
+import org.example.carsharing_71.security.CredentialCacheListener;
 import java.time.Instant;
 
 /**
@@ -11,9 +12,11 @@ import java.time.Instant;
  */
 @Entity
 @Table(name = "users")
+@EntityListeners(CredentialCacheListener.class)
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -0,0 +1,204 @@
+package org.example.carsharing_71.geo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharing_71.domain.Location;
+import org.example.carsharing_71.repository.LocationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory пространственный индекс локаций: равномерная сетка по широте/долготе.
+ * <p>
+ * Каждая локация попадает в ячейку {@code (floor(lat / cell), floor(lon / cell))}, где размер
+ * ячейки в градусах соответствует {@code carsharing.geo.cell-km} по меридиану.
+ * Поиск в радиусе перебирает только ячейки, пересекающие ограничивающий прямоугольник круга,
+ * и затем отсекает лишнее точным расстоянием по формуле гаверсинусов.
+ * <p>
+ * Индекс загружается при старте приложения и заменяется целиком при {@link #rebuild()};
+ * добавление, перемещение и удаление локации через JPA ({@link LocationGeoIndexListener})
+ * применяются после коммита копированием затронутых ячеек. Читатели всегда видят неизменяемый
+ * снимок, поэтому чтение не требует блокировок. Переход через антимеридиан (±180°) не поддерживается.
+ */
+@Slf4j
+@Component
+public class LocationGeoIndex {
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private final LocationRepository locationRepository;
+    private final double cellDegrees;
+
+    /** Ячейки сетки; при изменениях заменяются новой картой, списки точек не изменяются. */
+    private volatile Map<Long, List<Point>> cells = Map.of();
+    /** Точки по id локации — чтобы при перемещении и удалении найти прежнюю ячейку. */
+    private Map<Long, Point> points = new HashMap<>();
+
+    public LocationGeoIndex(LocationRepository locationRepository,
+                            @Value("${carsharing.geo.cell-km:5}") double cellKm) {
+        if (cellKm <= 0) {
+            throw new IllegalArgumentException("cell-km must be positive: " + cellKm);
+        }
+        this.locationRepository = locationRepository;
+        this.cellDegrees = cellKm / KM_PER_DEGREE;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Перечитывает все локации из БД.
+     *
+     * @return количество проиндексированных локаций
+     */
+    public synchronized int rebuild() {
+        Map<Long, List<Point>> rebuilt = new HashMap<>();
+        Map<Long, Point> byId = new HashMap<>();
+        List<Location> locations = locationRepository.findAll();
+        for (Location location : locations) {
+            Point point = new Point(location.getId(), location.getLatitude(), location.getLongitude());
+            rebuilt.computeIfAbsent(cellKey(point), key -> new ArrayList<>()).add(point);
+            byId.put(point.locationId(), point);
+        }
+        cells = rebuilt;
+        points = byId;
+        log.info("Location geo index rebuilt: locations = {}, cells = {}", byId.size(), rebuilt.size());
+        return byId.size();
+    }
+
+    /**
+     * Добавляет или перемещает локацию после коммита текущей транзакции (или сразу, если её нет).
+     */
+    public void locationSaved(Location location) {
+        Point point = new Point(location.getId(), location.getLatitude(), location.getLongitude());
+        afterCommit(() -> put(point));
+    }
+
+    /**
+     * Убирает локацию после коммита текущей транзакции (или сразу, если её нет).
+     */
+    public void locationRemoved(Long locationId) {
+        afterCommit(() -> remove(locationId));
+    }
+
+    /**
+     * Локации в радиусе {@code radiusKm} от точки, упорядоченные по расстоянию (ближайшие первыми).
+     */
+    public List<NearbyLocation> within(double lat, double lon, double radiusKm) {
+        Map<Long, List<Point>> current = cells;
+        double dLat = radiusKm / KM_PER_DEGREE;
+        // Градус долготы короче к полюсам; у полюса ограничиваемся всем диапазоном долгот
+        double cosLat = Math.cos(Math.toRadians(Math.min(Math.abs(lat) + dLat, 90)));
+        double dLon = cosLat > 1e-9 ? Math.min(dLat / cosLat, 180) : 180;
+        long fromLat = cell(lat - dLat);
+        long toLat = cell(lat + dLat);
+        long fromLon = cell(Math.max(lon - dLon, -180));
+        long toLon = cell(Math.min(lon + dLon, 180));
+
+        List<NearbyLocation> result = new ArrayList<>();
+        for (long cy = fromLat; cy <= toLat; cy++) {
+            for (long cx = fromLon; cx <= toLon; cx++) {
+                List<Point> points = current.get(cellKey(cy, cx));
+                if (points == null) {
+                    continue;
+                }
+                for (Point point : points) {
+                    double distance = distanceKm(lat, lon, point.lat(), point.lon());
+                    if (distance <= radiusKm) {
+                        result.add(new NearbyLocation(point.locationId(), distance));
+                    }
+                }
+            }
+        }
+        result.sort(Comparator.comparingDouble(NearbyLocation::distanceKm)
+                .thenComparing(NearbyLocation::locationId));
+        return result;
+    }
+
+    public synchronized int size() {
+        return points.size();
+    }
+
+    /**
+     * Расстояние по большому кругу (формула гаверсинусов), км.
+     */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private synchronized void put(Point point) {
+        Map<Long, List<Point>> next = new HashMap<>(cells);
+        Point previous = points.put(point.locationId(), point);
+        if (previous != null) {
+            without(next, previous);
+        }
+        List<Point> cell = new ArrayList<>(next.getOrDefault(cellKey(point), List.of()));
+        cell.add(point);
+        next.put(cellKey(point), cell);
+        cells = next;
+    }
+
+    private synchronized void remove(Long locationId) {
+        Point previous = points.remove(locationId);
+        if (previous != null) {
+            Map<Long, List<Point>> next = new HashMap<>(cells);
+            without(next, previous);
+            cells = next;
+        }
+    }
+
+    private void without(Map<Long, List<Point>> next, Point point) {
+        List<Point> cell = new ArrayList<>(next.getOrDefault(cellKey(point), List.of()));
+        cell.removeIf(p -> p.locationId().equals(point.locationId()));
+        if (cell.isEmpty()) {
+            next.remove(cellKey(point));
+        } else {
+            next.put(cellKey(point), cell);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private long cellKey(Point point) {
+        return cellKey(cell(point.lat()), cell(point.lon()));
+    }
+
+    private long cell(double degrees) {
+        return (long) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long cellKey(long cy, long cx) {
+        // Номера ячеек по модулю заведомо меньше 2^31 при любом разумном размере ячейки
+        return (cy << 32) ^ (cx & 0xFFFFFFFFL);
+    }
+
+    private record Point(Long locationId, double lat, double lon) {
+    }
+}
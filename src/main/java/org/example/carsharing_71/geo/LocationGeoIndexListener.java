@@ -0,0 +1,39 @@
+package org.example.carsharing_71.geo;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.example.carsharing_71.domain.Location;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA-слушатель локаций: передаёт добавление, перемещение и удаление {@link Location}
+ * в {@link LocationGeoIndex} (применяются после коммита).
+ * Как и {@code ReferenceDataCacheListener}, берёт индекс лениво.
+ */
+@Component
+public class LocationGeoIndexListener {
+    private final ObjectProvider<LocationGeoIndex> geoIndex;
+
+    public LocationGeoIndexListener(ObjectProvider<LocationGeoIndex> geoIndex) {
+        this.geoIndex = geoIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Location location) {
+        LocationGeoIndex index = geoIndex.getIfAvailable();
+        if (index != null) {
+            index.locationSaved(location);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Location location) {
+        LocationGeoIndex index = geoIndex.getIfAvailable();
+        if (index != null) {
+            index.locationRemoved(location.getId());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.carsharing_71.geo;
+
+/**
+ * Локация, найденная поиском по радиусу.
+ *
+ * @param locationId идентификатор локации
+ * @param distanceKm расстояние от точки поиска, км
+ */
+public record NearbyLocation(Long locationId, double distanceKm) {
+}
@@ -1,15 +1,31 @@
 package org.example.carsharing_71.repository;
 
 import org.example.carsharing_71.domain.Car;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.carsharing_71.repository.projection.CarInfo;
+import org.example.carsharing_71.repository.projection.CarLocation;
+import org.example.carsharing_71.repository.projection.CarView;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий автомобилей.
@@ -19,8 +35,14 @@ import java.util.List;
  *   для проверки уникальности госномера при создании.
  * - Для выборок с связями (model/location) используйте {@code @EntityGraph} или проекции,
  *   чтобы избежать N+1 и лишних полей.
+ * - Фильтры каталога и доступности собираются из {@link CarSpecifications} и выполняются
+ *   через {@link JpaSpecificationExecutor} или {@link CarRowQueries} (проекции без JOIN справочников,
+ *   страницы с лимитом и потоковое чтение).
  */
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car>, CarRowQueries {
+    /** Регион кэша запросов по автомобилям (см. hibernate-jcache.conf). */
+    String CAR_QUERIES_REGION = "car-queries";
+
     boolean existsByPlateNumber(String plateNumber);
 
     // --- Урок 7: EntityGraph ---
@@ -28,6 +50,10 @@ public interface CarRepository extends JpaRepository<Car, Long> {
     @EntityGraph(attributePaths = {"carModel", "location"})
     List<Car> findAll();
 
+    // То же для выборок по Specification (см. CarSpecifications)
+    @EntityGraph(attributePaths = {"carModel", "location"})
+    List<Car> findAll(Specification<Car> spec, Sort sort);
+
     // --- Урок 7: Пагинация ---
     // Возвращает страницу (Page) автомобилей для заданной локации.
     // Pageable содержит номер страницы, размер и сортировку.
@@ -36,12 +62,166 @@ public interface CarRepository extends JpaRepository<Car, Long> {
     // --- Урок 7: Проекции ---
     // Возвращает облегченный список (только ID, номер и бренд/модель),
     // не извлекая лишние поля (status, fuelType и т.д.).
+    // Результат кэшируется в кэше запросов (регион car-queries).
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CAR_QUERIES_REGION)
+    })
     List<CarInfo> findByLocation_Id(Long locationId);
 
     // --- Урок 7: JPQL (Поиск с условиями) ---
     // Пример кастомного запроса: найти доступные машины определенного бренда.
+    // Кэшируется; любое изменение таблицы cars через Hibernate (например, смена статуса
+    // при бронировании) делает закэшированный результат устаревшим.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CAR_QUERIES_REGION)
+    })
     @Query("select c from Car c where c.status = org.example.carsharing_71.domain.CarStatus.AVAILABLE " +
             "and c.carModel.brand = :brand")
     List<Car> findAvailableByBrand(@Param("brand") String brand);
-}
 
+    /**
+     * Идентификаторы и локации всех автомобилей со статусом AVAILABLE (для индекса зон).
+     */
+    @Query("select c.id as id, c.location.id as locationId from Car c " +
+            "where c.status = org.example.carsharing_71.domain.CarStatus.AVAILABLE")
+    List<CarLocation> findAvailableCarLocations();
+
+    /**
+     * То же для перечисленных автомобилей (обновление индекса зон после отмены или освобождения).
+     */
+    @Query("select c.id as id, c.location.id as locationId from Car c where c.id in :ids " +
+            "and c.status = org.example.carsharing_71.domain.CarStatus.AVAILABLE")
+    List<CarLocation> findAvailableCarLocations(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Читает автомобиль для бронирования: при коммите его версия увеличивается, даже если
+     * статус не менялся. Два параллельных бронирования одного автомобиля (в том числе
+     * из разных экземпляров приложения) не пройдут оба — второе получит конфликт версий.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select c from Car c where c.id = :id")
+    Optional<Car> findByIdForReservation(@Param("id") Long id);
+
+    /**
+     * То же для пакетного бронирования: все автомобили пакета одним запросом.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select c from Car c where c.id in :ids")
+    List<Car> findAllByIdForReservation(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Из перечисленных автомобилей — те, что в статусе RESERVED и без активных бронирований,
+     * заканчивающихся позже {@code now} (их можно вернуть в AVAILABLE).
+     */
+    @Query("select c.id from Car c where c.id in :ids " +
+            "and c.status = org.example.carsharing_71.domain.CarStatus.RESERVED " +
+            "and not exists (select r.id from Reservation r where r.car = c " +
+            "and r.status = org.example.carsharing_71.domain.ReservationStatus.ACTIVE and r.endAt > :now)")
+    List<Long> findReleasable(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    /**
+     * Возвращает автомобили в AVAILABLE одним UPDATE (с увеличением версии — параллельное
+     * бронирование получит конфликт версий). Условия повторяют {@link #findReleasable}.
+     *
+     * @return число освобождённых автомобилей
+     */
+    @Modifying
+    @Query("update versioned Car c set c.status = org.example.carsharing_71.domain.CarStatus.AVAILABLE " +
+            "where c.id in :ids and c.status = org.example.carsharing_71.domain.CarStatus.RESERVED " +
+            "and not exists (select r.id from Reservation r where r.car = c " +
+            "and r.status = org.example.carsharing_71.domain.ReservationStatus.ACTIVE and r.endAt > :now)")
+    int release(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    // --- Доступность ---
+    // Фильтры и анти‑джойн по бронированиям собираются из CarSpecifications (available / availableBetween),
+    // сами запросы строятся Criteria API (findAll по Specification или CarRowQueries).
+    // В SQL попадают только заданные фильтры, поэтому БД может использовать индексы по локации и модели.
+
+    /**
+     * Возвращает автомобили, доступные для бронирования в интервале, одним SQL‑запросом.
+     * <p>
+     * Фильтры по статусу, локации и числу мест применяются в БД, а отсутствие пересечений
+     * с активными бронированиями проверяется анти‑джойном ({@code not exists}), который
+     * использует индекс {@code ix_reservations_car_status_start_end}.
+     * Модель и локация подгружаются тем же запросом, чтобы маппинг в DTO не вызывал N+1.
+     *
+     * @param locationId идентификатор локации (null — любая)
+     * @param seats      минимальное число мест (null — без ограничения)
+     * @param startAt    начало интервала
+     * @param endAt      конец интервала
+     * @return доступные автомобили, упорядоченные по id
+     */
+    default List<Car> findAvailable(Long locationId, Integer seats, Instant startAt, Instant endAt) {
+        return findAll(CarSpecifications.availableBetween(locationId, seats, startAt, endAt), Sort.by("id"));
+    }
+
+    /**
+     * То же, что {@link #findAvailable}, но строки читаются сразу в {@link CarView}:
+     * без сущностей, записей в persistence context и снимков для dirty checking.
+     */
+    default List<CarView> findAvailableViews(Long locationId, Integer seats, Instant startAt, Instant endAt) {
+        return findViews(CarSpecifications.availableBetween(locationId, seats, startAt, endAt), Sort.by("id"),
+                Limit.unlimited());
+    }
+
+    /**
+     * Кандидаты для проверки доступности in-memory индексом: те же фильтры,
+     * что и в {@link #findAvailable}, но без анти‑джойна по бронированиям.
+     */
+    default List<Car> findAvailableCandidates(Long locationId, Integer seats) {
+        return findAll(CarSpecifications.available(locationId, seats), Sort.by("id"));
+    }
+
+    // --- Поиск рядом (см. LocationGeoIndex): локации уже отобраны по радиусу ---
+
+    default List<Car> findAvailableAtLocations(Collection<Long> locationIds, Instant startAt, Instant endAt) {
+        return findAll(Specification.allOf(CarSpecifications.isAvailable(), CarSpecifications.atLocations(locationIds),
+                CarSpecifications.noActiveOverlap(startAt, endAt)), Sort.by("id"));
+    }
+
+    default List<Car> findAvailableCandidatesAtLocations(Collection<Long> locationIds) {
+        return findAll(CarSpecifications.isAvailable().and(CarSpecifications.atLocations(locationIds)), Sort.by("id"));
+    }
+
+    // --- Keyset-пагинация ---
+    // В отличие от Page/OFFSET, страница ищется по индексу (PK или uq_cars_plate) от последнего ключа,
+    // поэтому стоимость глубоких страниц не растёт. Для первой страницы afterId = 0, afterPlate = "".
+    // Условия после последнего ключа — CarSpecifications.afterId / afterPlate, как у страниц каталога.
+
+    default List<Car> findAvailablePageOrderById(Long locationId, Integer seats, Instant startAt, Instant endAt,
+                                                 long afterId, Limit limit) {
+        return findCars(CarSpecifications.availableBetween(locationId, seats, startAt, endAt)
+                .and(CarSpecifications.afterId(afterId)), Sort.by("id"), limit);
+    }
+
+    default List<Car> findAvailablePageOrderByPlate(Long locationId, Integer seats, Instant startAt, Instant endAt,
+                                                    String afterPlate, long afterId, Limit limit) {
+        return findCars(CarSpecifications.availableBetween(locationId, seats, startAt, endAt)
+                .and(CarSpecifications.afterPlate(afterPlate, afterId)), Sort.by("plateNumber", "id"), limit);
+    }
+
+    default List<Car> findAvailableCandidatesPageOrderById(Long locationId, Integer seats, long afterId, Limit limit) {
+        return findCars(CarSpecifications.available(locationId, seats).and(CarSpecifications.afterId(afterId)),
+                Sort.by("id"), limit);
+    }
+
+    default List<Car> findAvailableCandidatesPageOrderByPlate(Long locationId, Integer seats,
+                                                              String afterPlate, long afterId, Limit limit) {
+        return findCars(CarSpecifications.available(locationId, seats)
+                .and(CarSpecifications.afterPlate(afterPlate, afterId)), Sort.by("plateNumber", "id"), limit);
+    }
+
+    // --- Потоковая выгрузка ---
+
+    /**
+     * Каталог с фильтрами как поток (см. {@link CarRowQueries#streamCars}): строки читаются из курсора
+     * JDBC порциями, а не загружаются списком целиком. Фильтры — {@link CarSpecifications#catalog}.
+     * <p>
+     * Поток нужно читать внутри транзакции и закрывать (try-with-resources).
+     */
+    default Stream<Car> streamCatalog(Long locationId, Long modelId, Integer seats) {
+        return streamCars(CarSpecifications.catalog(locationId, modelId, seats), Sort.by("id"));
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.carsharing_71.repository;
+
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.repository.projection.CarRow;
+import org.example.carsharing_71.repository.projection.CarView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Фрагмент {@link CarRepository}: выборки строк {@code cars} без JOIN справочников.
+ */
+public interface CarRowQueries {
+    /**
+     * Строки автомобилей, удовлетворяющих условию; читается только таблица {@code cars}
+     * (модель и локация — значения внешних ключей).
+     */
+    List<CarRow> findRows(Specification<Car> spec, Sort sort);
+
+    /**
+     * Автомобили, удовлетворяющие условию, в виде {@link CarView} (constructor expression).
+     * Модель и локация присоединяются тем же запросом, но сущности не создаются: нет записей
+     * в persistence context и снимков для dirty checking.
+     */
+    List<CarView> findViews(Specification<Car> spec, Sort sort, Limit limit);
+
+    /**
+     * Автомобили, удовлетворяющие условию, вместе с моделью и локацией (тем же запросом, без N+1).
+     */
+    List<Car> findCars(Specification<Car> spec, Sort sort, Limit limit);
+
+    /**
+     * То же, что {@link #findCars}, но потоком: строки читаются из курсора JDBC порциями по fetch size,
+     * сущности только для чтения (без снимков для dirty checking).
+     * <p>
+     * Поток нужно читать внутри транзакции и закрывать (try-with-resources).
+     */
+    Stream<Car> streamCars(Specification<Car> spec, Sort sort);
+}
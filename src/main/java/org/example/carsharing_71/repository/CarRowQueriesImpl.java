@@ -0,0 +1,117 @@
+package org.example.carsharing_71.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.TypedQuery;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.CarModel;
+import org.example.carsharing_71.domain.Location;
+import org.example.carsharing_71.repository.projection.CarRow;
+import org.example.carsharing_71.repository.projection.CarView;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Реализация {@link CarRowQueries} на Criteria API: те же {@link CarSpecifications},
+ * но с конструктором {@link CarRow} / {@link CarView} в select вместо сущности. Обращение к
+ * {@code carModel.id} / {@code location.id} читает внешний ключ и JOIN не добавляет.
+ * Сущности ({@link #findCars}, {@link #streamCars}) читаются с fetch join модели и локации.
+ */
+class CarRowQueriesImpl implements CarRowQueries {
+    /** Строк за одно обращение к курсору JDBC при потоковом чтении. */
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CarRow> findRows(Specification<Car> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CarRow> query = cb.createQuery(CarRow.class);
+        Root<Car> car = query.from(Car.class);
+        query.select(cb.construct(CarRow.class,
+                car.get("id"),
+                car.get("plateNumber"),
+                car.get("status"),
+                car.get("carModel").get("id"),
+                car.get("location").get("id")));
+        Predicate predicate = spec.toPredicate(car, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, car, cb));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<CarView> findViews(Specification<Car> spec, Sort sort, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CarView> query = cb.createQuery(CarView.class);
+        Root<Car> car = query.from(Car.class);
+        Join<Car, CarModel> model = car.join("carModel");
+        Join<Car, Location> location = car.join("location");
+        query.select(cb.construct(CarView.class,
+                car.get("id"),
+                model.get("brand"),
+                model.get("modelName"),
+                model.get("seats"),
+                model.get("transmission"),
+                model.get("fuelType"),
+                car.get("plateNumber"),
+                location.get("id"),
+                location.get("name"),
+                car.get("status")));
+        Predicate predicate = spec.toPredicate(car, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, car, cb));
+        TypedQuery<CarView> typed = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typed.setMaxResults(limit.max());
+        }
+        return typed.getResultList();
+    }
+
+    @Override
+    public List<Car> findCars(Specification<Car> spec, Sort sort, Limit limit) {
+        TypedQuery<Car> typed = carsQuery(spec, sort);
+        if (limit.isLimited()) {
+            typed.setMaxResults(limit.max());
+        }
+        return typed.getResultList();
+    }
+
+    @Override
+    public Stream<Car> streamCars(Specification<Car> spec, Sort sort) {
+        return carsQuery(spec, sort)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private TypedQuery<Car> carsQuery(Specification<Car> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Car> query = cb.createQuery(Car.class);
+        Root<Car> car = query.from(Car.class);
+        car.fetch("carModel");
+        car.fetch("location");
+        Predicate predicate = spec.toPredicate(car, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, car, cb));
+        return entityManager.createQuery(query);
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.carsharing_71.repository;
+
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.domain.Reservation;
+import org.example.carsharing_71.domain.ReservationStatus;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Составные условия (Specification) для выборок автомобилей.
+ * <p>
+ * Каждое условие добавляет предикат, только если параметр задан, поэтому в SQL попадают
+ * лишь реально применённые фильтры и БД может использовать индексы {@code ix_cars_location}
+ * и {@code ix_cars_model} (в отличие от шаблона {@code :param is null or ...}).
+ * Сравнение по {@code carModel.id} / {@code location.id} идёт по внешнему ключу без JOIN.
+ * <p>
+ * Через Specification строятся все выборки по фильтрам: каталог ({@code CarService}: список, строки,
+ * keyset-страницы и потоковая выгрузка), выборка по зоне ({@code ZoneService}) и запросы доступности
+ * {@link CarRepository} ({@link #available}, {@link #availableBetween}), поэтому каждый фильтр определён один раз.
+ */
+public final class CarSpecifications {
+    private CarSpecifications() {
+    }
+
+    /**
+     * Фильтры каталога: локация, модель и минимальное число мест (null — фильтр не применяется).
+     */
+    public static Specification<Car> catalog(Long locationId, Long modelId, Integer seats) {
+        return Specification.allOf(atLocation(locationId), ofModel(modelId), withSeatsAtLeast(seats));
+    }
+
+    /**
+     * Кандидаты на бронирование: статус AVAILABLE, локация и минимальное число мест (null — фильтр не применяется).
+     */
+    public static Specification<Car> available(Long locationId, Integer seats) {
+        return Specification.allOf(isAvailable(), atLocation(locationId), withSeatsAtLeast(seats));
+    }
+
+    /**
+     * Кандидаты без пересечений с активными бронированиями в интервале {@code [startAt, endAt)}.
+     */
+    public static Specification<Car> availableBetween(Long locationId, Integer seats, Instant startAt, Instant endAt) {
+        return available(locationId, seats).and(noActiveOverlap(startAt, endAt));
+    }
+
+    public static Specification<Car> atLocation(Long locationId) {
+        if (locationId == null) {
+            return Specification.unrestricted();
+        }
+        return (root, query, cb) -> cb.equal(root.get("location").get("id"), locationId);
+    }
+
+    public static Specification<Car> ofModel(Long modelId) {
+        if (modelId == null) {
+            return Specification.unrestricted();
+        }
+        return (root, query, cb) -> cb.equal(root.get("carModel").get("id"), modelId);
+    }
+
+    public static Specification<Car> withSeatsAtLeast(Integer seats) {
+        if (seats == null) {
+            return Specification.unrestricted();
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("carModel").get("seats"), seats);
+    }
+
+    public static Specification<Car> isAvailable() {
+        return (root, query, cb) -> cb.equal(root.get("status"), CarStatus.AVAILABLE);
+    }
+
+    public static Specification<Car> withIds(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Car> atLocations(Collection<Long> locationIds) {
+        return (root, query, cb) -> root.get("location").get("id").in(locationIds);
+    }
+
+    /**
+     * Анти‑джойн ({@code not exists}) по активным бронированиям, пересекающим {@code [startAt, endAt)};
+     * использует индекс {@code ix_reservations_car_status_start_end}.
+     */
+    public static Specification<Car> noActiveOverlap(Instant startAt, Instant endAt) {
+        return (root, query, cb) -> {
+            Subquery<Long> overlapping = query.subquery(Long.class);
+            Root<Reservation> reservation = overlapping.from(Reservation.class);
+            overlapping.select(reservation.get("id")).where(
+                    cb.equal(reservation.get("car"), root),
+                    cb.equal(reservation.get("status"), ReservationStatus.ACTIVE),
+                    cb.lessThan(reservation.get("startAt"), endAt),
+                    cb.greaterThan(reservation.get("endAt"), startAt));
+            return cb.not(cb.exists(overlapping));
+        };
+    }
+
+    /**
+     * Keyset-условие для сортировки по id: строго после {@code afterId}.
+     */
+    public static Specification<Car> afterId(long afterId) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), afterId);
+    }
+
+    /**
+     * Keyset-условие для сортировки по (plateNumber, id): строго после пары {@code (afterPlate, afterId)}.
+     */
+    public static Specification<Car> afterPlate(String afterPlate, long afterId) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("plateNumber"), afterPlate),
+                cb.and(cb.equal(root.get("plateNumber"), afterPlate), cb.greaterThan(root.get("id"), afterId)));
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.carsharing_71.repository;
+
+import org.example.carsharing_71.domain.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+/**
+ * Репозиторий ключей идемпотентности бронирований.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+    /**
+     * Удаляет ключи, захваченные раньше {@code before} (просроченные по TTL).
+     *
+     * @return число удалённых ключей
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,19 @@
+package org.example.carsharing_71.repository;
+
+import org.example.carsharing_71.domain.LocationZone;
+import org.example.carsharing_71.repository.projection.ZoneLocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+/**
+ * Репозиторий привязок локаций к зонам.
+ */
+public interface LocationZoneRepository extends JpaRepository<LocationZone, Long> {
+    /**
+     * Все привязки зон к локациям (без загрузки сущностей) — для построения in-memory индекса зон.
+     */
+    @Query("select z.code as code, z.name as name, z.location.id as locationId from LocationZone z order by z.code")
+    List<ZoneLocation> findAllZoneLocations();
+}
@@ -0,0 +1,55 @@
+package org.example.carsharing_71.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Замена exclusion constraint {@code ex_reservations_car_no_overlap} для H2 (dev и тесты),
+ * где ограничений {@code EXCLUDE USING gist} нет.
+ * <p>
+ * {@link #noOverlap} регистрируется в H2 функцией ({@code CREATE ALIAS}) и вызывается из
+ * CHECK-ограничения с тем же именем, поэтому класс не зависит от API H2 и драйвер остаётся
+ * в runtime-области. Перед вставкой или изменением активного бронирования функция блокирует
+ * строку автомобиля ({@code select ... for update}), чтобы параллельные транзакции по одному
+ * автомобилю проверяли пересечения по очереди, и отклоняет интервал, пересекающийся с другим
+ * активным бронированием этого автомобиля. Подключается changeset'ом {@code 008-reservations-no-overlap}.
+ */
+public final class ReservationOverlapRule {
+    public static final String CONSTRAINT = "ex_reservations_car_no_overlap";
+    /**
+     * SQLState нарушения exclusion constraint в PostgreSQL.
+     */
+    public static final String EXCLUSION_VIOLATION = "23P01";
+
+    private ReservationOverlapRule() {
+    }
+
+    /**
+     * @return true, если у автомобиля нет другого активного бронирования, пересекающего интервал
+     * (или бронирование не активно)
+     */
+    public static boolean noOverlap(Connection conn, Long id, Long carId, Timestamp startAt, Timestamp endAt,
+                                    String status) throws SQLException {
+        if (!"ACTIVE".equals(status)) {
+            return true;
+        }
+        try (PreparedStatement lock = conn.prepareStatement("select id from cars where id = ? for update")) {
+            lock.setObject(1, carId);
+            lock.executeQuery().close();
+        }
+        try (PreparedStatement overlap = conn.prepareStatement(
+                "select count(*) from reservations where car_id = ? and status = 'ACTIVE' " +
+                "and start_at < ? and end_at > ? and id <> coalesce(?, -1)")) {
+            overlap.setObject(1, carId);
+            overlap.setTimestamp(2, endAt);
+            overlap.setTimestamp(3, startAt);
+            overlap.setObject(4, id);
+            try (ResultSet rs = overlap.executeQuery()) {
+                return !rs.next() || rs.getLong(1) == 0;
+            }
+        }
+    }
+}
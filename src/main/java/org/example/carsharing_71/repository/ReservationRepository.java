@@ -1,17 +1,27 @@
 package org.example.carsharing_71.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.carsharing_71.domain.Reservation;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.example.carsharing_71.repository.projection.CarReservedUntil;
+import org.example.carsharing_71.repository.projection.ReservationInterval;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Репозиторий бронирований.
- * Содержит JPQL‑метод для подсчёта пересечений активных бронирований по интервалу.
+ * Содержит JPQL‑метод для подсчёта пересечений активных бронирований по интервалу
+ * и keyset-страницы бронирований пользователя.
  */
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
     /**
@@ -31,8 +41,122 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
             @Param("endAt") Instant endAt
     );
 
-    List<Reservation> findByUser_Id(Long userId);
+    /**
+     * Возвращает интервалы всех активных бронирований (без загрузки сущностей).
+     * Используется для построения in-memory индекса доступности.
+     */
+    @Query("select r.id as id, r.car.id as carId, r.startAt as startAt, r.endAt as endAt " +
+            "from Reservation r where r.status = org.example.carsharing_71.domain.ReservationStatus.ACTIVE")
+    List<ReservationInterval> findActiveIntervals();
+
+    /**
+     * Интервалы активных бронирований перечисленных автомобилей, пересекающие окно {@code [startAt, endAt)}.
+     * Один запрос на весь пакет бронирований вместо проверки по каждому элементу.
+     */
+    @Query("select r.id as id, r.car.id as carId, r.startAt as startAt, r.endAt as endAt " +
+            "from Reservation r where r.car.id in :carIds " +
+            "and r.status = org.example.carsharing_71.domain.ReservationStatus.ACTIVE " +
+            "and r.startAt < :endAt and r.endAt > :startAt")
+    List<ReservationInterval> findActiveIntervals(
+            @Param("carIds") Collection<Long> carIds,
+            @Param("startAt") Instant startAt,
+            @Param("endAt") Instant endAt
+    );
+
+    /**
+     * Для каждого автомобиля в статусе RESERVED — конец его последнего активного бронирования
+     * (срок, когда автомобиль освобождается).
+     */
+    @Query("select r.car.id as carId, max(r.endAt) as endAt from Reservation r " +
+            "where r.status = org.example.carsharing_71.domain.ReservationStatus.ACTIVE " +
+            "and r.car.status = org.example.carsharing_71.domain.CarStatus.RESERVED group by r.car.id")
+    List<CarReservedUntil> findReservedUntil();
+
+    /**
+     * Возвращает идентификаторы автомобилей, у которых есть активное бронирование, пересекающее интервал.
+     */
+    @Query("select distinct r.car.id from Reservation r " +
+            "where r.status = org.example.carsharing_71.domain.ReservationStatus.ACTIVE " +
+            "and r.startAt < :endAt and r.endAt > :startAt")
+    Set<Long> findBusyCarIds(
+            @Param("startAt") Instant startAt,
+            @Param("endAt") Instant endAt
+    );
+
+    // --- Архивация ---
+    // ReservationArchiver переносит отменённые и давно закончившиеся бронирования в reservations_archive,
+    // чтобы горячая таблица и её индексы оставались размером с действующие бронирования.
+
+    /**
+     * Очередная пачка бронирований для архива: отменённые и закончившиеся раньше {@code cutoff}.
+     */
+    @Query("select r.id as id, r.car.id as carId, r.startAt as startAt, r.endAt as endAt from Reservation r " +
+            "where r.status = org.example.carsharing_71.domain.ReservationStatus.CANCELLED or r.endAt < :cutoff " +
+            "order by r.id")
+    List<ReservationInterval> findArchivable(@Param("cutoff") Instant cutoff, Limit limit);
+
+    /**
+     * Копирует бронирования в архив одним INSERT ... SELECT.
+     * Затронутая таблица указана явно: иначе Hibernate считает, что нативный запрос мог изменить
+     * что угодно, и сбрасывает все регионы кэша второго уровня и кэш запросов.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "reservations_archive"))
+    @Query(value = "insert into reservations_archive " +
+            "(id, user_id, car_id, start_at, end_at, status, created_at, version, archived_at) " +
+            "select id, user_id, car_id, start_at, end_at, status, created_at, version, :archivedAt " +
+            "from reservations where id in (:ids)", nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids, @Param("archivedAt") Instant archivedAt);
 
-    // Новый метод с пагинацией
-    Page<Reservation> findByUser_Id(Long userId, Pageable pageable);
+    /**
+     * Удаляет перенесённые в архив бронирования одним DELETE (слушатели сущностей не вызываются).
+     */
+    @Modifying
+    @Query("delete from Reservation r where r.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    // --- Бронирования пользователя ---
+    // Keyset-страницы по индексу ix_reservations_user_status_start (changeset 012): равенство по
+    // user_id и status, порядок (start_at, id) — глубокие страницы стоят столько же, сколько первая.
+    // Автомобиль (с моделью и локацией) и пользователь подгружаются тем же запросом, без N+1.
+    // Для первой страницы afterStartAt = Instant.EPOCH, afterId = 0.
+
+    /**
+     * Страница активных бронирований пользователя, которые ещё не закончились.
+     */
+    @EntityGraph(attributePaths = {"user", "car", "car.carModel", "car.location"})
+    @Query("select r from Reservation r where r.user.id = :userId " +
+            "and r.status = org.example.carsharing_71.domain.ReservationStatus.ACTIVE and r.endAt > :now " +
+            "and (r.startAt > :afterStartAt or (r.startAt = :afterStartAt and r.id > :afterId)) " +
+            "order by r.startAt, r.id")
+    List<Reservation> findActivePageByUser(
+            @Param("userId") Long userId,
+            @Param("now") Instant now,
+            @Param("afterStartAt") Instant afterStartAt,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
+
+    /**
+     * Бронирование вместе с автомобилем и пользователем (для отмены).
+     */
+    @EntityGraph(attributePaths = {"user", "car"})
+    @Query("select r from Reservation r where r.id = :id")
+    Optional<Reservation> findWithCarById(@Param("id") Long id);
+
+    /**
+     * Бронирования пользователя на это окно автомобиля, созданные не раньше {@code since}: результат запроса,
+     * чей ключ идемпотентности остался незавершённым (экземпляр упал или не смог записать ответ).
+     */
+    @EntityGraph(attributePaths = {"user", "car"})
+    @Query("select r from Reservation r where r.user.id = :userId and r.car.id = :carId " +
+            "and r.startAt = :startAt and r.endAt = :endAt and r.createdAt >= :since order by r.id")
+    List<Reservation> findCreatedSince(
+            @Param("userId") Long userId,
+            @Param("carId") Long carId,
+            @Param("startAt") Instant startAt,
+            @Param("endAt") Instant endAt,
+            @Param("since") Instant since,
+            Limit limit
+    );
 }
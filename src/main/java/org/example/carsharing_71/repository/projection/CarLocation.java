@@ -0,0 +1,9 @@
+package org.example.carsharing_71.repository.projection;
+
+/**
+ * Проекция автомобиля: только идентификатор и локация (без загрузки сущностей).
+ */
+public interface CarLocation {
+    Long getId();
+    Long getLocationId();
+}
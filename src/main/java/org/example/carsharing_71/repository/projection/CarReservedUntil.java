@@ -0,0 +1,11 @@
+package org.example.carsharing_71.repository.projection;
+
+import java.time.Instant;
+
+/**
+ * Проекция: автомобиль и конец его последнего активного бронирования.
+ */
+public interface CarReservedUntil {
+    Long getCarId();
+    Instant getEndAt();
+}
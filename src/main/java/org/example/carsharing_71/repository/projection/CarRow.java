@@ -0,0 +1,16 @@
+package org.example.carsharing_71.repository.projection;
+
+import org.example.carsharing_71.domain.CarStatus;
+
+/**
+ * Строка таблицы {@code cars} без связей: модель и локация — только идентификаторы.
+ * Связанные справочники подставляются из кэша (см. {@code ReferenceDataCache}).
+ *
+ * @param id          идентификатор автомобиля
+ * @param plateNumber госномер
+ * @param status      статус
+ * @param modelId     идентификатор модели
+ * @param locationId  идентификатор локации
+ */
+public record CarRow(Long id, String plateNumber, CarStatus status, Long modelId, Long locationId) {
+}
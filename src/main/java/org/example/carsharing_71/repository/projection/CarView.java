@@ -0,0 +1,25 @@
+package org.example.carsharing_71.repository.projection;
+
+import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.domain.FuelType;
+import org.example.carsharing_71.domain.Transmission;
+
+/**
+ * Строка каталога: автомобиль вместе с моделью и локацией, прочитанные одним запросом
+ * (constructor expression) без создания сущностей. В DTO маппится в сервисе.
+ *
+ * @param id           идентификатор автомобиля
+ * @param brand        марка
+ * @param modelName    модель
+ * @param seats        число мест
+ * @param transmission коробка передач
+ * @param fuelType     тип топлива
+ * @param plateNumber  госномер
+ * @param locationId   идентификатор локации
+ * @param locationName название локации
+ * @param status       статус
+ */
+public record CarView(Long id, String brand, String modelName, Integer seats, Transmission transmission,
+                      FuelType fuelType, String plateNumber, Long locationId, String locationName,
+                      CarStatus status) {
+}
@@ -0,0 +1,14 @@
+package org.example.carsharing_71.repository.projection;
+
+import java.time.Instant;
+
+/**
+ * Лёгкая проекция бронирования: только интервал и автомобиль.
+ * Используется для построения in-memory индексов без гидрации сущностей.
+ */
+public interface ReservationInterval {
+    Long getId();
+    Long getCarId();
+    Instant getStartAt();
+    Instant getEndAt();
+}
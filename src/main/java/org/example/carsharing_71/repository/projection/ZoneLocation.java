@@ -0,0 +1,10 @@
+package org.example.carsharing_71.repository.projection;
+
+/**
+ * Проекция строки {@code location_zones}: код и название зоны и идентификатор локации.
+ */
+public interface ZoneLocation {
+    String getCode();
+    String getName();
+    Long getLocationId();
+}
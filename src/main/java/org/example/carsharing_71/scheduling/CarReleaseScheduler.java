@@ -0,0 +1,180 @@
+package org.example.carsharing_71.scheduling;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharing_71.cache.FleetVersions;
+import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.repository.ReservationRepository;
+import org.example.carsharing_71.repository.projection.CarReservedUntil;
+import org.example.carsharing_71.service.CarsReleasedEvent;
+import org.example.carsharing_71.service.ReservationCreatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Возвращает автомобили из RESERVED в AVAILABLE, когда заканчиваются их бронирования.
+ * <p>
+ * Сроки ({@code endAt}) лежат в {@link HierarchicalTimingWheel}: при старте колесо заполняется
+ * одним запросом по автомобилям в статусе RESERVED, дальше — событиями {@link ReservationCreatedEvent}
+ * после коммита. Таблица бронирований по таймеру не опрашивается: колесо продвигается в памяти
+ * раз в тик ({@code carsharing.reservation.release.tick}), а к БД обращается только когда срок
+ * наступил — пачкой UPDATE по {@code batch-size} автомобилей.
+ * <p>
+ * Автомобиль освобождается, только если у него не осталось активных бронирований, заканчивающихся
+ * позже; UPDATE условный, поэтому лишние или повторные срабатывания (в том числе из разных
+ * экземпляров) безопасны. Если UPDATE не удался, автомобили повторяются через оборот нижнего колеса.
+ */
+@Slf4j
+@Component
+public class CarReleaseScheduler {
+    private final CarRepository carRepository;
+    private final ReservationRepository reservationRepository;
+    private final FleetVersions fleetVersions;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int batchSize;
+    private final HierarchicalTimingWheel<Long> wheel;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong released = new AtomicLong();
+
+    public CarReleaseScheduler(
+            CarRepository carRepository,
+            ReservationRepository reservationRepository,
+            FleetVersions fleetVersions,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${carsharing.reservation.release.enabled:true}") boolean enabled,
+            @Value("${carsharing.reservation.release.tick:1s}") Duration tick,
+            @Value("${carsharing.reservation.release.wheel-size:64}") int wheelSize,
+            @Value("${carsharing.reservation.release.levels:4}") int levels,
+            @Value("${carsharing.reservation.release.batch-size:500}") int batchSize
+    ) {
+        this.carRepository = carRepository;
+        this.reservationRepository = reservationRepository;
+        this.fleetVersions = fleetVersions;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.tickMillis = tick.toMillis();
+        this.wheelSize = wheelSize;
+        this.batchSize = batchSize;
+        this.wheel = new HierarchicalTimingWheel<>(wheelSize, levels, System.currentTimeMillis() / tickMillis);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "car-release-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Заполняет колесо сроками зарезервированных автомобилей (просроченные освободятся на первом тике)
+     * и запускает продвижение колеса.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        List<CarReservedUntil> reserved = reservationRepository.findReservedUntil();
+        reserved.forEach(row -> schedule(row.getCarId(), row.getEndAt()));
+        log.info("Car release wheel started: {} reserved cars scheduled", reserved.size());
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Планирует освобождение автомобиля нового бронирования после успешного коммита.
+     */
+    @TransactionalEventListener
+    public void onReservationCreated(ReservationCreatedEvent event) {
+        if (enabled) {
+            schedule(event.carId(), event.endAt());
+        }
+    }
+
+    /**
+     * Планирует освобождение автомобиля на первый тик не раньше {@code endAt}.
+     */
+    public void schedule(Long carId, Instant endAt) {
+        wheel.schedule(carId, Math.floorDiv(endAt.toEpochMilli() + tickMillis - 1, tickMillis));
+    }
+
+    /**
+     * Освобождает автомобили, у которых закончились все активные бронирования.
+     *
+     * @param carIds кандидаты (срок которых наступил)
+     * @return число освобождённых автомобилей
+     */
+    public int release(Collection<Long> carIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(carIds));
+        int count = 0;
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            Integer updated = transaction.execute(status -> {
+                Instant now = Instant.now();
+                List<Long> releasable = carRepository.findReleasable(batch, now);
+                if (releasable.isEmpty()) {
+                    return 0;
+                }
+                int rows = carRepository.release(releasable, now);
+                // Массовый UPDATE минует слушателей сущностей — версии каталога поднимаем сами,
+                // а индекс зон узнаёт об освобождении из события
+                releasable.forEach(fleetVersions::carChanged);
+                eventPublisher.publishEvent(new CarsReleasedEvent(releasable));
+                return rows;
+            });
+            count += updated == null ? 0 : updated;
+        }
+        released.addAndGet(count);
+        return count;
+    }
+
+    /**
+     * Состояние колеса: запланировано сроков, освобождено автомобилей, текущий тик.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("scheduled", wheel.size());
+        stats.put("released", released.get());
+        stats.put("currentTick", Instant.ofEpochMilli(wheel.currentTick() * tickMillis));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void tick() {
+        List<Long> due = wheel.advanceTo(System.currentTimeMillis() / tickMillis);
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            int count = release(due);
+            log.debug("Released {} of {} due cars", count, due.size());
+        } catch (RuntimeException e) {
+            // Исключение остановило бы периодическую задачу; автомобили повторим позже
+            log.warn("Car release failed for {} cars, retrying later: {}", due.size(), e.getMessage());
+            long retryTick = wheel.currentTick() + wheelSize;
+            due.forEach(carId -> wheel.schedule(carId, retryTick));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.carsharing_71.scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Иерархическое колесо таймеров: {@code levels} колёс по {@code wheelSize} слотов.
+ * <p>
+ * Время дискретно — в тиках (номер тика = миллисекунды эпохи / длительность тика).
+ * Слот уровня 0 — один тик, слот уровня L — {@code wheelSize^L} тиков. Элемент кладётся
+ * на самый нижний уровень, чей охват покрывает срок; когда текущий тик доходит до начала
+ * слота верхнего уровня, слот «осыпается» — его элементы перекладываются ниже.
+ * Вставка и срабатывание — O(1) на элемент, без сортировки и без перебора несработавших.
+ * Сроки за горизонтом всех уровней ждут в отдельном списке до оборота верхнего колеса.
+ * <p>
+ * Класс потокобезопасен: все методы синхронизированы.
+ *
+ * @param <T> элемент, привязанный к сроку
+ */
+public class HierarchicalTimingWheel<T> {
+    private final int wheelSize;
+    private final long[] spans;
+    private final List<List<Entry<T>>>[] wheels;
+    private final List<Entry<T>> overflow = new ArrayList<>();
+    private final List<T> due = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    private record Entry<T>(long tick, T item) {
+    }
+
+    /**
+     * @param wheelSize   число слотов в колесе каждого уровня
+     * @param levels      число уровней
+     * @param currentTick тик, с которого начинается отсчёт
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(int wheelSize, int levels, long currentTick) {
+        if (wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Wheel needs at least 2 slots and 1 level");
+        }
+        this.wheelSize = wheelSize;
+        this.spans = new long[levels + 1];
+        this.wheels = new List[levels];
+        long span = 1;
+        for (int level = 0; level < levels; level++) {
+            spans[level] = span;
+            wheels[level] = new ArrayList<>(wheelSize);
+            for (int slot = 0; slot < wheelSize; slot++) {
+                wheels[level].add(new ArrayList<>());
+            }
+            span = Math.multiplyExact(span, wheelSize);
+        }
+        spans[levels] = span;
+        this.currentTick = currentTick;
+    }
+
+    /**
+     * Планирует элемент на тик {@code tick}; сроки в прошлом сработают при ближайшем {@link #advanceTo}.
+     */
+    public synchronized void schedule(T item, long tick) {
+        place(new Entry<>(tick, item));
+        size++;
+    }
+
+    /**
+     * Продвигает колесо до тика {@code tick} включительно.
+     *
+     * @return элементы, чей срок наступил, в порядке срабатывания
+     */
+    public synchronized List<T> advanceTo(long tick) {
+        while (currentTick < tick) {
+            currentTick++;
+            for (int level = wheels.length - 1; level > 0; level--) {
+                if (currentTick % spans[level] == 0) {
+                    cascade(wheels[level].get(slot(currentTick, level)));
+                }
+            }
+            if (currentTick % spans[wheels.length] == 0) {
+                cascade(overflow);
+            }
+            List<Entry<T>> slot = wheels[0].get(slot(currentTick, 0));
+            for (Entry<T> entry : slot) {
+                due.add(entry.item());
+            }
+            slot.clear();
+        }
+        List<T> result = new ArrayList<>(due);
+        due.clear();
+        size -= result.size();
+        return result;
+    }
+
+    public synchronized long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Число запланированных и ещё не выданных элементов.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.tick() - currentTick;
+        if (delta <= 0) {
+            due.add(entry.item());
+            return;
+        }
+        for (int level = 0; level < wheels.length; level++) {
+            if (delta < spans[level + 1]) {
+                wheels[level].get(slot(entry.tick(), level)).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private void cascade(List<Entry<T>> entries) {
+        List<Entry<T>> moved = new ArrayList<>(entries);
+        entries.clear();
+        moved.forEach(this::place);
+    }
+
+    private int slot(long tick, int level) {
+        return (int) Math.floorMod(tick / spans[level], (long) wheelSize);
+    }
+}
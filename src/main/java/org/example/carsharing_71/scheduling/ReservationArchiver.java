@@ -0,0 +1,203 @@
+package org.example.carsharing_71.scheduling;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharing_71.cache.FleetVersions;
+import org.example.carsharing_71.repository.ReservationRepository;
+import org.example.carsharing_71.repository.projection.ReservationInterval;
+import org.example.carsharing_71.service.ReservationsArchivedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Переносит отменённые и закончившиеся бронирования из {@code reservations} в {@code reservations_archive}.
+ * <p>
+ * Горячие запросы (пересечения, доступность, активные бронирования пользователя) читают только
+ * {@code reservations}, поэтому их стоимость и размер индексов определяются действующими
+ * бронированиями, а не всей историей. Закончившиеся активные бронирования переносятся
+ * через {@code carsharing.reservation.archive.grace} после окончания.
+ * <p>
+ * Перенос идёт пачками по {@code batch-size} строк, каждая — в своей транзакции: INSERT ... SELECT
+ * в архив и DELETE из горячей таблицы. После коммита пачки интервалы убираются из in-memory индекса
+ * ({@link ReservationsArchivedEvent}).
+ * <p>
+ * На PostgreSQL архив секционирован по месяцам {@code start_at}: перед переносом пачки задача
+ * создаёт недостающие месячные секции. Сама {@code reservations} не секционируется:
+ * exclusion constraint на секционированной таблице требует равенства по ключу секционирования,
+ * а запрет пересечений интервалов через границу месяца так не выразить.
+ */
+@Slf4j
+@Component
+public class ReservationArchiver {
+    private final ReservationRepository reservationRepository;
+    private final FleetVersions fleetVersions;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final Duration interval;
+    private final Duration grace;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+    private final Set<YearMonth> partitions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong archived = new AtomicLong();
+    private volatile boolean partitioned;
+    private volatile Instant lastRunAt;
+
+    public ReservationArchiver(
+            ReservationRepository reservationRepository,
+            FleetVersions fleetVersions,
+            ApplicationEventPublisher eventPublisher,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${carsharing.reservation.archive.enabled:true}") boolean enabled,
+            @Value("${carsharing.reservation.archive.interval:1h}") Duration interval,
+            @Value("${carsharing.reservation.archive.grace:7d}") Duration grace,
+            @Value("${carsharing.reservation.archive.batch-size:1000}") int batchSize
+    ) {
+        this.reservationRepository = reservationRepository;
+        this.fleetVersions = fleetVersions;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.interval = interval;
+        this.grace = grace;
+        this.batchSize = batchSize;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Определяет, секционирован ли архив (PostgreSQL), и запускает перенос раз в {@code interval}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        partitioned = "PostgreSQL".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        if (!enabled) {
+            return;
+        }
+        executor.scheduleWithFixedDelay(this::run, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Переносит в архив все отменённые бронирования и закончившиеся раньше {@code now - grace}.
+     * Прогоны по расписанию и ручные (POST /api/admin/reservations/archive/run) выполняются
+     * по очереди: параллельные прогоны выбрали бы одни и те же строки и вставили их в архив дважды.
+     *
+     * @return число перенесённых бронирований
+     */
+    public synchronized int archive() {
+        Instant cutoff = Instant.now().minus(grace);
+        int total = 0;
+        int moved;
+        do {
+            Integer count = transaction.execute(status -> archiveBatch(cutoff));
+            moved = count == null ? 0 : count;
+            total += moved;
+        } while (moved == batchSize);
+        archived.addAndGet(total);
+        lastRunAt = Instant.now();
+        return total;
+    }
+
+    /**
+     * Состояние архивации: перенесено бронирований, время последнего прогона, секционирование.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("partitioned", partitioned);
+        stats.put("archived", archived.get());
+        stats.put("lastRunAt", lastRunAt);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private int archiveBatch(Instant cutoff) {
+        List<ReservationInterval> batch = reservationRepository.findArchivable(cutoff, Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        if (partitioned) {
+            ensurePartitions(batch);
+        }
+        Map<Long, Long> carIds = batch.stream()
+                .collect(Collectors.toMap(ReservationInterval::getId, ReservationInterval::getCarId));
+        reservationRepository.copyToArchive(carIds.keySet(), Instant.now());
+        reservationRepository.deleteAllByIdIn(carIds.keySet());
+        // Массовый DELETE минует слушателей сущностей — версии каталога поднимаем сами
+        new HashSet<>(carIds.values()).forEach(fleetVersions::carChanged);
+        eventPublisher.publishEvent(new ReservationsArchivedEvent(carIds));
+        return batch.size();
+    }
+
+    /**
+     * Создаёт месячные секции архива для начал бронирований пачки (PostgreSQL).
+     * Соседние месяцы берутся с запасом в сутки: start_at хранится без зоны, и строка у границы
+     * месяца не должна уйти в DEFAULT-секцию (тогда секцию её месяца уже не создать).
+     */
+    private void ensurePartitions(List<ReservationInterval> batch) {
+        Set<YearMonth> months = batch.stream()
+                .flatMap(row -> Stream.of(row.getStartAt().minus(Duration.ofDays(1)), row.getStartAt().plus(Duration.ofDays(1))))
+                .map(startAt -> YearMonth.from(startAt.atOffset(ZoneOffset.UTC)))
+                .filter(month -> !partitions.contains(month))
+                .collect(Collectors.toCollection(TreeSet::new));
+        for (YearMonth month : months) {
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS reservations_archive_y%04dm%02d PARTITION OF reservations_archive " +
+                            "FOR VALUES FROM ('%s') TO ('%s')",
+                    month.getYear(), month.getMonthValue(), month.atDay(1), month.plusMonths(1).atDay(1)));
+        }
+        // Запоминаем секции только после коммита: при откате DDL откатится вместе с пачкой
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                partitions.addAll(months);
+            }
+        });
+    }
+
+    private void run() {
+        try {
+            int count = archive();
+            if (count > 0) {
+                log.info("Archived {} reservations", count);
+            }
+        } catch (RuntimeException e) {
+            // Исключение остановило бы периодическую задачу; оставшиеся строки перенесутся в следующий раз
+            log.warn("Reservation archival failed, retrying in {}: {}", interval, e.getMessage());
+        }
+    }
+}
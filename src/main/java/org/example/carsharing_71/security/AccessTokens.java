@@ -0,0 +1,144 @@
+package org.example.carsharing_71.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Короткоживущие bearer-токены, подписанные HMAC-SHA256.
+ * <p>
+ * Токен — {@code base64url(payload).base64url(hmac(payload))}, где payload содержит версию формата,
+ * срок действия, роли и логин. Проверка не обращается к БД и не запускает BCrypt: подпись
+ * и срок проверяются за микросекунды. Отозвать отдельный токен нельзя — поэтому срок короткий
+ * ({@code carsharing.security.token.ttl}).
+ * <p>
+ * Ключ задаётся {@code carsharing.security.token.secret} (не короче 32 байт) и должен совпадать
+ * на всех экземплярах. Без ключа генерируется случайный: токены действуют только в этом экземпляре
+ * и до его перезапуска.
+ */
+@Slf4j
+@Component
+public class AccessTokens {
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    /**
+     * Выданный токен и момент его истечения.
+     */
+    public record Issued(String token, Instant expiresAt) {
+    }
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Clock clock;
+    // Mac не потокобезопасен, а создавать его на каждый запрос дороже самой подписи
+    private final ThreadLocal<Mac> macs;
+
+    @Autowired
+    public AccessTokens(@Value("${carsharing.security.token.secret:}") String secret,
+                        @Value("${carsharing.security.token.ttl:15m}") Duration ttl) {
+        this(secret, ttl, Clock.systemUTC());
+    }
+
+    AccessTokens(String secret, Duration ttl, Clock clock) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0) {
+            log.warn("carsharing.security.token.secret is not set: using a random key, tokens are valid only in this instance");
+            bytes = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(bytes);
+        } else if (bytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("carsharing.security.token.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        this.key = new SecretKeySpec(bytes, ALGORITHM);
+        this.ttl = ttl;
+        this.clock = clock;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Выдаёт токен пользователю с его ролями.
+     */
+    public Issued issue(String login, Collection<? extends GrantedAuthority> authorities) {
+        Instant expiresAt = clock.instant().plus(ttl);
+        String roles = authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","));
+        // Логин последним: он единственное поле, которое может содержать разделитель
+        String payload = VERSION + "\n" + expiresAt.toEpochMilli() + "\n" + roles + "\n" + login;
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        return new Issued(encode(bytes) + "." + encode(sign(bytes)), expiresAt);
+    }
+
+    /**
+     * Проверяет подпись и срок токена.
+     *
+     * @return аутентификация с логином и ролями из токена
+     * @throws BadCredentialsException если токен повреждён, подделан или истёк
+     */
+    public Authentication authenticate(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            throw new BadCredentialsException("Malformed token");
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BadCredentialsException("Malformed token");
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            throw new BadCredentialsException("Invalid token signature");
+        }
+        String[] parts = new String(payload, StandardCharsets.UTF_8).split("\n", 4);
+        if (parts.length < 4 || !VERSION.equals(parts[0])) {
+            throw new BadCredentialsException("Unknown token format");
+        }
+        if (Long.parseLong(parts[1]) <= clock.millis()) {
+            throw new BadCredentialsException("Token expired");
+        }
+        List<GrantedAuthority> authorities = parts[2].isEmpty() ? List.of() : Arrays.stream(parts[2].split(","))
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        return UsernamePasswordAuthenticationToken.authenticated(parts[3], null, authorities);
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC is not available", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.carsharing_71.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+
+import java.io.IOException;
+
+/**
+ * Ответ на неудачный вход по HTTP Basic: перегрузка пула проверки паролей
+ * ({@link BoundedPasswordEncoder.PasswordVerificationBusyException}) — 503, как у POST /api/auth/token;
+ * остальные ошибки — обычный 401 с {@code WWW-Authenticate: Basic}.
+ * <p>
+ * Не бин Spring, подключается в {@code SecurityConfiguration}.
+ */
+public class BasicAuthEntryPoint implements AuthenticationEntryPoint {
+    private final BasicAuthenticationEntryPoint basic = new BasicAuthenticationEntryPoint();
+
+    public BasicAuthEntryPoint() {
+        basic.setRealmName("Realm");
+    }
+
+    @Override
+    public void commence(HttpServletRequest request, HttpServletResponse response,
+                         AuthenticationException authException) throws IOException {
+        if (authException instanceof BoundedPasswordEncoder.PasswordVerificationBusyException) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many logins, retry later");
+            return;
+        }
+        basic.commence(request, response, authException);
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.carsharing_71.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выполняет проверку пароля (BCrypt — десятки миллисекунд CPU) на ограниченном пуле потоков.
+ * <p>
+ * Всплеск входов (выдача токенов, HTTP Basic) занимает не больше {@code threads} ядер, а запросы
+ * сверх очереди {@code queue-capacity} сразу отклоняются, вместо того чтобы занять все потоки
+ * сервера. Отказ — {@link PasswordVerificationBusyException}: для Spring Security это ошибка
+ * аутентификации, а выдача токенов отвечает на неё 503.
+ * <p>
+ * {@link #encode} выполняется в вызывающем потоке: пароли кодируются редко (регистрация, смена пароля).
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration timeout) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeout.toMillis();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-verifier-" + counter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    /**
+     * Проверяет пароль на пуле.
+     *
+     * @throws PasswordVerificationBusyException если очередь пула полна или проверка не уложилась в таймаут
+     */
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> delegate.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            throw new PasswordVerificationBusyException("Password verification queue is full");
+        }
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new PasswordVerificationBusyException("Password verification timed out");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordVerificationBusyException("Interrupted while verifying password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Число проверок в очереди (без уже выполняющихся).
+     */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Проверка пароля отклонена из-за перегрузки пула.
+     */
+    public static class PasswordVerificationBusyException extends AuthenticationServiceException {
+        public PasswordVerificationBusyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.carsharing_71.security;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Проверка логина и пароля HTTP Basic с кэшем {@link VerifiedCredentialCache}.
+ * <p>
+ * Повторный запрос с теми же учётными данными проверяется по отпечатку в памяти — без запроса
+ * пользователя в {@link JpaUserDetailsService} и без BCrypt. Промах (нет записи, другой пароль,
+ * кэш выключен) проходит обычный {@link DaoAuthenticationProvider}, и успешный результат кэшируется.
+ */
+@Component
+public class CachingBasicAuthenticationProvider implements AuthenticationProvider {
+    private final DaoAuthenticationProvider delegate;
+    private final VerifiedCredentialCache cache;
+
+    public CachingBasicAuthenticationProvider(JpaUserDetailsService userDetailsService,
+                                              PasswordEncoder passwordEncoder,
+                                              VerifiedCredentialCache cache) {
+        this.delegate = new DaoAuthenticationProvider(userDetailsService);
+        this.delegate.setPasswordEncoder(passwordEncoder);
+        this.cache = cache;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String login = authentication.getName();
+        String password = authentication.getCredentials() == null ? null : authentication.getCredentials().toString();
+        UserDetails cached = cache.lookup(login, password);
+        if (cached != null) {
+            UsernamePasswordAuthenticationToken result =
+                    UsernamePasswordAuthenticationToken.authenticated(cached, password, cached.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+        long generation = cache.generation();
+        Authentication result = delegate.authenticate(authentication);
+        if (password != null && result.getPrincipal() instanceof UserDetails user) {
+            cache.put(login, password, user, generation);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.carsharing_71.security;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA-слушатель пользователей: при изменении (пароль, роль, логин) или удалении {@code User}
+ * сбрасывает {@link VerifiedCredentialCache}. Кэш берётся лениво, как в {@code ReferenceDataCacheListener}.
+ */
+@Component
+public class CredentialCacheListener {
+    private final ObjectProvider<VerifiedCredentialCache> credentialCache;
+
+    public CredentialCacheListener(ObjectProvider<VerifiedCredentialCache> credentialCache) {
+        this.credentialCache = credentialCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        VerifiedCredentialCache cache = credentialCache.getIfAvailable();
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.carsharing_71.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Вход по логину и паролю с выдачей bearer-токена.
+ * <p>
+ * Пароль проверяется один раз — тем же {@link DaoAuthenticationProvider}, что и в HTTP Basic
+ * (с защитой от подбора логинов по времени ответа), а BCrypt выполняется на ограниченном пуле
+ * {@link BoundedPasswordEncoder}. Дальнейшие запросы с токеном ни БД, ни BCrypt не трогают.
+ */
+@Service
+public class TokenLoginService {
+    private final DaoAuthenticationProvider authenticationProvider;
+    private final AccessTokens accessTokens;
+
+    public TokenLoginService(JpaUserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                             AccessTokens accessTokens) {
+        this.authenticationProvider = new DaoAuthenticationProvider(userDetailsService);
+        this.authenticationProvider.setPasswordEncoder(passwordEncoder);
+        this.accessTokens = accessTokens;
+    }
+
+    /**
+     * Проверяет логин и пароль и выдаёт токен.
+     *
+     * @throws ResponseStatusException 401, если логин или пароль неверны
+     * @throws ResponseStatusException 503, если пул проверки паролей перегружен
+     */
+    public AccessTokens.Issued login(String login, String password) {
+        Authentication authentication;
+        try {
+            authentication = authenticationProvider.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(login, password));
+        } catch (BoundedPasswordEncoder.PasswordVerificationBusyException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins, retry later");
+        } catch (AuthenticationException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Bad credentials");
+        }
+        return accessTokens.issue(authentication.getName(), authentication.getAuthorities());
+    }
+}
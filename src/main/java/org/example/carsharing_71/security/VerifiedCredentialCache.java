@@ -0,0 +1,172 @@
+package org.example.carsharing_71.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш успешно проверенных учётных данных HTTP Basic: логин → {@link UserDetails} и отпечаток пароля.
+ * <p>
+ * Отпечаток — HMAC-SHA256 (ключ случайный на запуск) от хеша пароля из БД и присланного пароля.
+ * Сам пароль в памяти не хранится, а без ключа отпечаток не годится для перебора паролей.
+ * Совпадение отпечатка заменяет запрос пользователя и BCrypt; несовпадение — обычный промах,
+ * и пароль проверяется полностью.
+ * <p>
+ * Записи живут не дольше {@code carsharing.security.credential-cache.ttl} и сбрасываются
+ * при изменении пользователя ({@link CredentialCacheListener}) — смена пароля или роли
+ * действует сразу; правки в обход JPA ограничены сроком жизни записи.
+ */
+@Component
+public class VerifiedCredentialCache {
+    private record Verified(String username, String passwordHash,
+                            List<GrantedAuthority> authorities, byte[] fingerprint) {
+    }
+
+    private final boolean enabled;
+    private final Cache<String, Verified> cache;
+    private final SecretKeySpec fingerprintKey;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public VerifiedCredentialCache(
+            @Value("${carsharing.security.credential-cache.enabled:true}") boolean enabled,
+            @Value("${carsharing.security.credential-cache.max-size:10000}") long maxSize,
+            @Value("${carsharing.security.credential-cache.ttl:5m}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.fingerprintKey = new SecretKeySpec(key, "HmacSHA256");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ищет проверенные ранее учётные данные.
+     *
+     * @return пользователь, если логин в кэше и пароль совпадает с проверенным; иначе null
+     */
+    public UserDetails lookup(String login, String rawPassword) {
+        if (!enabled || login == null || rawPassword == null) {
+            return null;
+        }
+        Verified verified = cache.getIfPresent(login);
+        if (verified == null
+                || !MessageDigest.isEqual(verified.fingerprint(), fingerprint(verified.passwordHash(), rawPassword))) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        // Каждый раз новый объект: ProviderManager стирает пароль у principal после входа
+        return User.withUsername(verified.username())
+                .password(verified.passwordHash())
+                .authorities(verified.authorities())
+                .build();
+    }
+
+    /**
+     * Поколение кэша: растёт при каждом сбросе. Берётся до полной проверки пароля и передаётся в {@link #put}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Запоминает учётные данные после успешной полной проверки.
+     *
+     * @param generation {@link #generation()} до проверки; если кэш с тех пор сбрасывался,
+     *                   пользователь мог быть прочитан до изменения — запись не сохраняется
+     */
+    public void put(String login, String rawPassword, UserDetails user, long generation) {
+        if (!enabled || user.getPassword() == null) {
+            return;
+        }
+        cache.put(login, new Verified(user.getUsername(), user.getPassword(), List.copyOf(user.getAuthorities()),
+                fingerprint(user.getPassword(), rawPassword)));
+        if (this.generation.get() != generation) {
+            cache.invalidate(login);
+        }
+    }
+
+    /**
+     * Сбрасывает кэш сразу и ещё раз после завершения текущей транзакции, чтобы не осталась
+     * запись, проверенная параллельно по данным до коммита.
+     * <p>
+     * Сбрасывается весь кэш, а не один логин: по новому состоянию пользователя не видно
+     * прежний логин, а пользователи меняются редко.
+     */
+    public void invalidateAll() {
+        clear();
+        invalidations.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    /**
+     * Размер, попадания, промахи, доля попаданий, вытеснения по размеру/сроку и сбросы.
+     * Попадание считается по совпавшему паролю: логин в кэше с другим паролем — промах.
+     */
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("size", cache.estimatedSize());
+        result.put("hits", hitCount);
+        result.put("misses", missCount);
+        result.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        result.put("evictions", cache.stats().evictionCount());
+        result.put("invalidations", invalidations.get());
+        return result;
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private byte[] fingerprint(String passwordHash, String rawPassword) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(fingerprintKey);
+            mac.update(passwordHash.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(rawPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
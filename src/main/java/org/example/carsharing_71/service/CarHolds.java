@@ -0,0 +1,237 @@
+package org.example.carsharing_71.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * Короткие удержания (soft hold) автомобиля на время оформления бронирования.
+ * <p>
+ * Удержание закрывает окно {@code [startAt, endAt)} автомобиля для всех остальных запросов
+ * на {@code carsharing.reservation.hold.ttl}; бронирование с {@code holdId} превращает его
+ * в бронирование без повторной проверки пересечений. Удержания живут только в памяти
+ * экземпляра (Caffeine с истечением по времени записи) — между экземплярами они не видны.
+ * <p>
+ * Размещение удержания выполняется под блокировкой автомобиля ({@link ReservationService#hold}),
+ * поэтому удержания одного автомобиля не пересекаются.
+ * <p>
+ * Для выдачи доступных удержания дополнительно упорядочены по началу окна: пересечь интервал
+ * {@code [startAt, endAt)} могут только окна, начавшиеся после {@code startAt} минус длина самого
+ * длинного действующего окна, поэтому просматривается лишь этот диапазон, а не все удержания.
+ */
+@Component
+public class CarHolds {
+    /**
+     * Удержание окна автомобиля.
+     *
+     * @param expiresAt момент, после которого удержание недействительно
+     */
+    public record Hold(UUID id, Long userId, Long carId, Instant startAt, Instant endAt, Instant expiresAt) {
+        boolean overlaps(Instant otherStart, Instant otherEnd) {
+            return startAt.isBefore(otherEnd) && endAt.isAfter(otherStart);
+        }
+
+        boolean covers(ReservationCreateRequest request) {
+            return userId.equals(request.getUserId()) && carId.equals(request.getCarId())
+                    && !request.getStartAt().isBefore(startAt) && !request.getEndAt().isAfter(endAt);
+        }
+
+        boolean isLive(Instant now) {
+            return expiresAt.isAfter(now);
+        }
+    }
+
+    private final Duration ttl;
+    private final Cache<UUID, Hold> byId;
+    private final Map<Long, Set<Hold>> byCar = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Instant, Set<Hold>> byStart = new ConcurrentSkipListMap<>();
+    /** Длины окон: последний ключ — самое длинное действующее окно, граница просмотра {@link #byStart}. */
+    private final ConcurrentNavigableMap<Duration, Set<Hold>> bySpan = new ConcurrentSkipListMap<>();
+
+    public CarHolds(@Value("${carsharing.reservation.hold.ttl:2m}") Duration ttl,
+                    @Value("${carsharing.reservation.hold.max-holds:100000}") long maxHolds) {
+        this.ttl = ttl;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxHolds)
+                .expireAfterWrite(ttl)
+                // Истёкшие удержания вычищаются по таймеру, а не только при следующем обращении
+                .scheduler(Scheduler.systemScheduler())
+                .<UUID, Hold>removalListener((id, hold, cause) -> detach(hold))
+                .build();
+    }
+
+    /**
+     * Размещает удержание; вызывать под блокировкой автомобиля после проверки бронирований.
+     *
+     * @throws ResponseStatusException 422, если окно пересекается с чужим действующим удержанием
+     */
+    Hold place(Long userId, Long carId, Instant startAt, Instant endAt) {
+        if (firstConflict(carId, startAt, endAt, null) != null) {
+            throw onHold();
+        }
+        Hold hold = new Hold(UUID.randomUUID(), userId, carId, startAt, endAt, Instant.now().plus(ttl));
+        synchronized (byStart) {
+            // Длина — раньше начала: просмотр по началу окна не должен увидеть окно без его границы
+            attach(bySpan, Duration.between(startAt, endAt), hold);
+            attach(byStart, startAt, hold);
+        }
+        attach(byCar, carId, hold);
+        byId.put(hold.id(), hold);
+        return hold;
+    }
+
+    /**
+     * Проверяет бронирование против удержаний.
+     *
+     * @return удержание, указанное в запросе ({@code holdId}), или null, если запрос без удержания
+     * @throws ResponseStatusException 422, если указанное удержание истекло или не совпадает с запросом,
+     *                                 либо окно занято чужим удержанием
+     */
+    Hold check(ReservationCreateRequest request) {
+        Hold own = null;
+        if (request.getHoldId() != null) {
+            own = byId.getIfPresent(request.getHoldId());
+            if (own == null || !own.isLive(Instant.now())) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Hold expired or not found");
+            }
+            if (!own.covers(request)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Reservation does not match hold");
+            }
+        }
+        if (firstConflict(request.getCarId(), request.getStartAt(), request.getEndAt(), own) != null) {
+            throw onHold();
+        }
+        return own;
+    }
+
+    /**
+     * Снимает удержание после коммита текущей транзакции (или сразу, если транзакции нет).
+     */
+    void releaseAfterCommit(Hold hold) {
+        if (hold == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(hold.id());
+                }
+            });
+        } else {
+            release(hold.id());
+        }
+    }
+
+    /**
+     * Снимает удержание по запросу пользователя.
+     *
+     * @param userId идентификатор пользователя, отпускающего удержание
+     * @throws ResponseStatusException 404, если удержания нет или оно уже истекло
+     * @throws ResponseStatusException 403, если удержание принадлежит другому пользователю
+     */
+    public void release(UUID holdId, Long userId) {
+        Hold hold = byId.getIfPresent(holdId);
+        if (hold == null || !hold.isLive(Instant.now())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Hold not found");
+        }
+        if (!hold.userId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Hold belongs to another user");
+        }
+        if (byId.asMap().remove(holdId, hold)) {
+            detach(hold);
+        }
+    }
+
+    /**
+     * Снимает удержание.
+     *
+     * @return false, если удержания нет или оно уже истекло
+     */
+    boolean release(UUID holdId) {
+        Hold hold = byId.asMap().remove(holdId);
+        // removalListener Caffeine срабатывает асинхронно — окно освобождаем сразу
+        detach(hold);
+        return hold != null && hold.isLive(Instant.now());
+    }
+
+    /**
+     * Автомобили с действующими удержаниями, пересекающими интервал (для выдачи доступных).
+     * Учитываются удержания всех пользователей, включая вызывающего: удержавший бронирует по {@code holdId}.
+     */
+    public Set<Long> heldCarIds(Instant startAt, Instant endAt) {
+        Map.Entry<Duration, Set<Hold>> longest = bySpan.lastEntry();
+        if (longest == null) {
+            return Set.of();
+        }
+        Instant now = Instant.now();
+        // Окно, начавшееся на длину самого длинного окна раньше startAt (или ещё раньше), уже закончилось
+        return byStart.subMap(startAt.minus(longest.getKey()), false, endAt, false).values().stream()
+                .flatMap(Set::stream)
+                .filter(h -> h.isLive(now) && h.overlaps(startAt, endAt))
+                .map(Hold::carId)
+                .collect(Collectors.toSet());
+    }
+
+    public int size() {
+        return (int) byId.estimatedSize();
+    }
+
+    private Hold firstConflict(Long carId, Instant startAt, Instant endAt, Hold own) {
+        Set<Hold> holds = byCar.get(carId);
+        if (holds == null) {
+            return null;
+        }
+        Instant now = Instant.now();
+        return holds.stream()
+                .filter(h -> !h.equals(own) && h.isLive(now) && h.overlaps(startAt, endAt))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void detach(Hold hold) {
+        if (hold == null) {
+            return;
+        }
+        detach(byCar, hold.carId(), hold);
+        // compute в ConcurrentSkipListMap не атомарен относительно изменения самого множества — записи сериализованы
+        synchronized (byStart) {
+            detach(byStart, hold.startAt(), hold);
+            detach(bySpan, Duration.between(hold.startAt(), hold.endAt()), hold);
+        }
+    }
+
+    private static <K> void attach(Map<K, Set<Hold>> index, K key, Hold hold) {
+        index.compute(key, (k, holds) -> {
+            Set<Hold> result = holds == null ? ConcurrentHashMap.newKeySet() : holds;
+            result.add(hold);
+            return result;
+        });
+    }
+
+    private static <K> void detach(Map<K, Set<Hold>> index, K key, Hold hold) {
+        index.computeIfPresent(key, (k, holds) -> {
+            holds.remove(hold);
+            return holds.isEmpty() ? null : holds;
+        });
+    }
+
+    private static ResponseStatusException onHold() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Car is on hold");
+    }
+}
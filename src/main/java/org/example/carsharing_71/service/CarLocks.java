@@ -0,0 +1,143 @@
+package org.example.carsharing_71.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Полосатые (striped) блокировки по автомобилю внутри одного экземпляра приложения.
+ * <p>
+ * Автомобиль отображается на одну из {@code carsharing.reservation.lock-stripes} блокировок,
+ * поэтому операции с одним автомобилем выполняются строго по очереди, а с разными —
+ * почти никогда не конкурируют (только при совпадении полосы). Память не зависит от размера парка.
+ * Блокировку нужно держать до конца транзакции, включая обработчики после коммита: либо транзакция
+ * открывается и закрывается внутри {@link #withCarLock}/{@link #withCarLocks}, либо блокировка берётся
+ * в уже открытой транзакции через {@link #lockUntilCompletion} и снимается при её завершении.
+ */
+@Component
+public class CarLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMillis;
+
+    public CarLocks(@Value("${carsharing.reservation.lock-stripes:1024}") int stripes,
+                    @Value("${carsharing.reservation.lock-timeout:5s}") Duration timeout) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Выполняет действие под блокировкой автомобиля.
+     *
+     * @throws ResponseStatusException 503, если блокировку не удалось получить за {@code lock-timeout}
+     */
+    public <T> T withCarLock(long carId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripe(carId)];
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Car is busy, retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for car lock");
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Выполняет действие под блокировками всех перечисленных автомобилей (пакетное бронирование).
+     * Полосы берутся по возрастанию номера и без повторов, поэтому два пакета с общими автомобилями
+     * не могут взаимно заблокироваться. Общий таймаут — {@code lock-timeout} на весь набор.
+     *
+     * @throws ResponseStatusException 503, если все блокировки не удалось получить за {@code lock-timeout}
+     */
+    public <T> T withCarLocks(Collection<Long> carIds, Supplier<T> action) {
+        int[] order = lockAll(carIds);
+        try {
+            return action.get();
+        } finally {
+            unlockAll(order);
+        }
+    }
+
+    /**
+     * Берёт блокировки автомобилей внутри уже открытой транзакции и держит их до её завершения
+     * (коммита или отката, после обработчиков после коммита). Порядок и таймаут — как у
+     * {@link #withCarLocks}. Повторный вызов для того же автомобиля в той же транзакции допустим.
+     *
+     * @throws IllegalStateException   если синхронизация транзакции не активна
+     * @throws ResponseStatusException 503, если все блокировки не удалось получить за {@code lock-timeout}
+     */
+    public void lockUntilCompletion(Collection<Long> carIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Car locks can be held until completion only inside a transaction");
+        }
+        int[] order = lockAll(carIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unlockAll(order);
+            }
+        });
+    }
+
+    /**
+     * Берёт полосы по возрастанию номера и без повторов; при неудаче снимает уже взятые.
+     */
+    private int[] lockAll(Collection<Long> carIds) {
+        int[] order = carIds.stream().mapToInt(this::stripe).distinct().sorted().toArray();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        int locked = 0;
+        try {
+            for (int stripe : order) {
+                if (!stripes[stripe].tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Cars are busy, retry later");
+                }
+                locked++;
+            }
+            return order;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for car lock");
+        } finally {
+            if (locked < order.length) {
+                unlockAll(Arrays.copyOf(order, locked));
+            }
+        }
+    }
+
+    private void unlockAll(int[] order) {
+        for (int i = order.length - 1; i >= 0; i--) {
+            stripes[order[i]].unlock();
+        }
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+
+    private int stripe(long carId) {
+        // Перемешивание битов: соседние id попадают в разные полосы
+        long h = carId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -1,29 +1,73 @@
 package org.example.carsharing_71.service;
 
+import jakarta.persistence.EntityManager;
+import org.example.carsharing_71.api.CarCursor;
+import org.example.carsharing_71.api.dto.CarDto;
+import org.example.carsharing_71.availability.AvailabilityChecker;
+import org.example.carsharing_71.cache.CarModelSnapshot;
+import org.example.carsharing_71.cache.LocationSnapshot;
+import org.example.carsharing_71.cache.ReferenceDataCache;
 import org.example.carsharing_71.domain.Car;
-import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.geo.LocationGeoIndex;
+import org.example.carsharing_71.geo.NearbyLocation;
 import org.example.carsharing_71.repository.CarRepository;
-import org.example.carsharing_71.repository.ReservationRepository;
+import org.example.carsharing_71.repository.CarSpecifications;
+import org.example.carsharing_71.repository.projection.CarRow;
+import org.example.carsharing_71.repository.projection.CarView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервис работы с каталогом и доступностью автомобилей.
- * list(...) возвращает список автомобилей, отфильтрованный по локации, модели и количеству мест.
- * available(...) возвращает только доступные автомобили без пересечений активных бронирований в заданном интервале.
+ * list(...) возвращает список автомобилей, отфильтрованный по локации, модели и количеству мест (фильтрация в БД).
+ * available(...) возвращает только доступные автомобили без пересечений активных бронирований в заданном интервале
+ * и без действующих удержаний ({@link CarHolds}) на этот интервал — любых пользователей, включая вызывающего.
  */
 @Service
 public class CarService {
     private final CarRepository carRepository;
-    private final ReservationRepository reservationRepository;
+    private final AvailabilityChecker availabilityChecker;
+    private final LocationGeoIndex locationGeoIndex;
+    private final ReferenceDataCache referenceDataCache;
+    private final CarHolds carHolds;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int exportBatchSize;
 
-    public CarService(CarRepository carRepository, ReservationRepository reservationRepository) {
+    public CarService(CarRepository carRepository,
+                      AvailabilityChecker availabilityChecker,
+                      LocationGeoIndex locationGeoIndex,
+                      ReferenceDataCache referenceDataCache,
+                      CarHolds carHolds,
+                      EntityManager entityManager,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${carsharing.export.batch-size:500}") int exportBatchSize) {
         this.carRepository = carRepository;
-        this.reservationRepository = reservationRepository;
+        this.availabilityChecker = availabilityChecker;
+        this.locationGeoIndex = locationGeoIndex;
+        this.referenceDataCache = referenceDataCache;
+        this.carHolds = carHolds;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.exportBatchSize = exportBatchSize;
     }
 
     /**
@@ -32,21 +76,36 @@ public class CarService {
      * @param locationId идентификатор локации (опционально)
      * @param modelId    идентификатор модели (опционально)
      * @param seats      минимальное число мест (опционально)
-     * @return список автомобилей, удовлетворяющих фильтрам
+     * @return список автомобилей, удовлетворяющих фильтрам, упорядоченный по id
      */
     public List<Car> list(Long locationId, Long modelId, Integer seats) {
-        return carRepository.findAll().stream()
-                .filter(car -> locationId == null || car.getLocation().getId().equals(locationId))
-                .filter(car -> modelId == null || car.getCarModel().getModelName().equals(modelId))
-                .filter(car -> seats == null || car.getCarModel().getSeats() >= seats)
-                .collect(Collectors.toList());
+        return carRepository.findAll(CarSpecifications.catalog(locationId, modelId, seats), Sort.by("id"));
+    }
 
+    /**
+     * Каталог с теми же фильтрами, что и {@link #list}, сразу в виде DTO.
+     * Из БД читается только таблица {@code cars}; модели и локации подставляются
+     * из {@link ReferenceDataCache} (промахи догружаются одним запросом на справочник).
+     */
+    public List<CarDto> catalog(Long locationId, Long modelId, Integer seats) {
+        List<CarRow> rows = carRepository.findRows(CarSpecifications.catalog(locationId, modelId, seats), Sort.by("id"));
+        Map<Long, CarModelSnapshot> models = referenceDataCache.carModels(
+                rows.stream().map(CarRow::modelId).collect(Collectors.toSet()));
+        Map<Long, LocationSnapshot> locations = referenceDataCache.locations(
+                rows.stream().map(CarRow::locationId).collect(Collectors.toSet()));
+        return rows.stream()
+                .map(row -> CarDto.fromRow(row, models.get(row.modelId()), locations.get(row.locationId())))
+                .toList();
     }
 
     /**
      * Возвращает доступные для бронирования автомобили в заданном интервале времени.
      * Учитываются только автомобили со статусом AVAILABLE, удовлетворяющие фильтрам,
      * и не имеющие пересечений с активными бронированиями.
+     * В режиме {@code database} вся выборка выполняется одним запросом
+     * (см. {@link CarRepository#findAvailable}), поэтому число SQL‑запросов не зависит от размера парка.
+     * В режиме {@code index} из БД читаются только кандидаты, а пересечения проверяются в памяти.
+     * Удержания проверяются в памяти в обоих режимах.
      *
      * @param locationId идентификатор локации (опционально)
      * @param startAt    начало интервала (ISO‑8601)
@@ -55,15 +114,164 @@ public class CarService {
      * @return список доступных автомобилей
      */
     public List<Car> available(Long locationId, Instant startAt, Instant endAt, Integer seats) {
-        return  carRepository.findAll().stream()
-                .filter(car -> car.getStatus() == CarStatus.AVAILABLE)
-                .filter(car -> locationId == null || car.getLocation().getId().equals(locationId))
-                .filter(car -> seats == null || car.getCarModel().getSeats() >= seats)
-                .filter(car -> reservationRepository.countOverlaps(car.getId(), startAt, endAt) == 0)
-                .collect(Collectors.toList());
+        Set<Long> held = carHolds.heldCarIds(startAt, endAt);
+        List<Car> cars = availabilityChecker.usesIndex()
+                ? availabilityChecker.filterFree(carRepository.findAvailableCandidates(locationId, seats), startAt, endAt)
+                : carRepository.findAvailable(locationId, seats, startAt, endAt);
+        return withoutHeld(cars, held, Car::getId);
+    }
+
+    /**
+     * То же, что {@link #available}, сразу в виде DTO. В режиме {@code database} строки читаются
+     * constructor expression'ом без гидрации сущностей; в режиме индекса кандидаты остаются
+     * сущностями (их фильтрует индекс) и маппятся в DTO после фильтрации.
+     */
+    public List<CarDto> availableDtos(Long locationId, Instant startAt, Instant endAt, Integer seats) {
+        if (!availabilityChecker.usesIndex()) {
+            Set<Long> held = carHolds.heldCarIds(startAt, endAt);
+            return withoutHeld(carRepository.findAvailableViews(locationId, seats, startAt, endAt), held, CarView::id)
+                    .stream().map(CarDto::fromView).toList();
+        }
+        return available(locationId, startAt, endAt, seats).stream().map(CarDto::fromEntity).toList();
+    }
+
+    /**
+     * Возвращает доступные автомобили в радиусе от точки, ближайшие первыми.
+     * <p>
+     * Локации в радиусе находит {@link LocationGeoIndex} без обращения к БД, затем доступные
+     * автомобили этих локаций выбираются одним запросом (или кандидаты + in-memory индекс).
+     * При равном расстоянии порядок — по id автомобиля.
+     *
+     * @param lat      широта точки поиска
+     * @param lon      долгота точки поиска
+     * @param radiusKm радиус поиска, км
+     * @param limit    максимальное число автомобилей (null — без ограничения)
+     */
+    public List<NearbyCar> nearby(double lat, double lon, double radiusKm,
+                                  Instant startAt, Instant endAt, Integer limit) {
+        Map<Long, Double> distances = locationGeoIndex.within(lat, lon, radiusKm).stream()
+                .collect(Collectors.toMap(NearbyLocation::locationId, NearbyLocation::distanceKm));
+        if (distances.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> held = carHolds.heldCarIds(startAt, endAt);
+        List<Car> cars = withoutHeld(availabilityChecker.usesIndex()
+                ? availabilityChecker.filterFree(
+                        carRepository.findAvailableCandidatesAtLocations(distances.keySet()), startAt, endAt)
+                : carRepository.findAvailableAtLocations(distances.keySet(), startAt, endAt), held, Car::getId);
+        // Автомобили уже упорядочены по id, сортировка стабильна
+        Stream<NearbyCar> sorted = cars.stream()
+                .map(car -> new NearbyCar(car, distances.get(car.getLocation().getId())))
+                .sorted(Comparator.comparingDouble(NearbyCar::distanceKm));
+        return (limit != null ? sorted.limit(limit) : sorted).toList();
+    }
+
+    /**
+     * Возвращает страницу каталога (keyset-пагинация) с теми же фильтрами, что и {@link #list}.
+     * Выбирается до {@code limit + 1} записей: лишняя запись означает, что есть следующая страница.
+     * Строки читаются проекцией (см. {@link CarRepository#findViews}), сущности не создаются.
+     *
+     * @param cursor позиция после последней записи предыдущей страницы (null — первая страница)
+     * @param sort   стабильная сортировка
+     * @param limit  размер страницы
+     */
+    public List<CarDto> listPage(Long locationId, Long modelId, Integer seats,
+                              CarCursor cursor, CarCursor.Sort sort, int limit) {
+        Specification<Car> spec = CarSpecifications.catalog(locationId, modelId, seats);
+        if (cursor != null) {
+            spec = spec.and(switch (sort) {
+                case ID -> CarSpecifications.afterId(cursor.getId());
+                case PLATE_NUMBER -> CarSpecifications.afterPlate(cursor.getPlateNumber(), cursor.getId());
+            });
+        }
+        Sort order = switch (sort) {
+            case ID -> Sort.by("id");
+            case PLATE_NUMBER -> Sort.by("plateNumber", "id");
+        };
+        return carRepository.findViews(spec, order, Limit.of(limit + 1)).stream().map(CarDto::fromView).toList();
+    }
+
+    /**
+     * Возвращает страницу доступных автомобилей (keyset-пагинация), до {@code limit + 1} записей.
+     * <p>
+     * В режиме {@code database} страница выбирается запросом с анти‑джойном, в режиме индекса
+     * читаются кандидаты и фильтруются в памяти. Удержанные автомобили отбрасываются после выборки,
+     * поэтому в обоих режимах строки читаются порциями по {@code limit + 1} от последней прочитанной,
+     * пока не наберётся {@code limit + 1} автомобилей или строки не закончатся.
+     */
+    public List<Car> availablePage(Long locationId, Instant startAt, Instant endAt, Integer seats,
+                                   CarCursor cursor, CarCursor.Sort sort, int limit) {
+        Set<Long> held = carHolds.heldCarIds(startAt, endAt);
+        Limit fetch = Limit.of(limit + 1);
+        boolean index = availabilityChecker.usesIndex();
+        List<Car> result = new ArrayList<>();
+        CarCursor position = cursor;
+        while (result.size() <= limit) {
+            List<Car> batch = index
+                    ? switch (sort) {
+                        case ID -> carRepository.findAvailableCandidatesPageOrderById(
+                                locationId, seats, afterId(position), fetch);
+                        case PLATE_NUMBER -> carRepository.findAvailableCandidatesPageOrderByPlate(
+                                locationId, seats, afterPlate(position), afterId(position), fetch);
+                    }
+                    : switch (sort) {
+                        case ID -> carRepository.findAvailablePageOrderById(
+                                locationId, seats, startAt, endAt, afterId(position), fetch);
+                        case PLATE_NUMBER -> carRepository.findAvailablePageOrderByPlate(
+                                locationId, seats, startAt, endAt, afterPlate(position), afterId(position), fetch);
+                    };
+            List<Car> free = index ? availabilityChecker.filterFree(batch, startAt, endAt) : batch;
+            result.addAll(withoutHeld(free, held, Car::getId));
+            if (batch.size() <= limit) {
+                break;
+            }
+            position = CarCursor.after(batch.get(batch.size() - 1), sort);
+        }
+        return result.size() > limit + 1 ? result.subList(0, limit + 1) : result;
+    }
+
+    /**
+     * Потоково обходит каталог с теми же фильтрами, что и {@link #list}, не собирая его в список.
+     * <p>
+     * Весь обход идёт в одной read-only транзакции. После каждых {@code carsharing.export.batch-size}
+     * записей persistence context очищается и вызывается {@code onBatch} (например, сброс буфера ответа),
+     * поэтому потребление памяти не зависит от размера парка.
+     *
+     * @param action  обработчик автомобиля; связи model и location уже загружены
+     * @param onBatch вызывается после каждой порции записей
+     * @return количество обработанных автомобилей
+     */
+    public long forEachInCatalog(Long locationId, Long modelId, Integer seats,
+                                 Consumer<Car> action, Runnable onBatch) {
+        Long count = readOnlyTransaction.execute(status -> {
+            long processed = 0;
+            try (Stream<Car> cars = carRepository.streamCatalog(locationId, modelId, seats)) {
+                for (Car car : (Iterable<Car>) cars::iterator) {
+                    action.accept(car);
+                    if (++processed % exportBatchSize == 0) {
+                        entityManager.clear();
+                        onBatch.run();
+                    }
+                }
+            }
+            return processed;
+        });
+        return count == null ? 0 : count;
     }
 
     public Optional<Car> findById(Long id) {
         return carRepository.findById(id);
     }
+
+    private static <T> List<T> withoutHeld(List<T> items, Set<Long> held, Function<T, Long> id) {
+        return held.isEmpty() ? items : items.stream().filter(item -> !held.contains(id.apply(item))).toList();
+    }
+
+    private static long afterId(CarCursor cursor) {
+        return cursor == null ? 0L : cursor.getId();
+    }
+
+    private static String afterPlate(CarCursor cursor) {
+        return cursor == null ? "" : cursor.getPlateNumber();
+    }
 }
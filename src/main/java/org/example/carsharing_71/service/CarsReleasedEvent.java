@@ -0,0 +1,13 @@
+package org.example.carsharing_71.service;
+
+import java.util.Collection;
+
+/**
+ * Событие «автомобили возвращены в AVAILABLE» массовым UPDATE по окончании бронирований
+ * (минуя слушателей сущностей). Публикуется внутри транзакции освобождения; слушатели получают
+ * его после коммита (см. {@code @TransactionalEventListener}).
+ *
+ * @param carIds освобождённые автомобили
+ */
+public record CarsReleasedEvent(Collection<Long> carIds) {
+}
@@ -0,0 +1,12 @@
+package org.example.carsharing_71.service;
+
+import org.example.carsharing_71.domain.Car;
+
+/**
+ * Доступный автомобиль с расстоянием до точки поиска.
+ *
+ * @param car        автомобиль (модель и локация загружены)
+ * @param distanceKm расстояние от точки поиска до локации автомобиля, км
+ */
+public record NearbyCar(Car car, double distanceKm) {
+}
@@ -0,0 +1,27 @@
+package org.example.carsharing_71.service;
+
+import org.example.carsharing_71.domain.Reservation;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Результат одного элемента пакетного бронирования: созданное бронирование
+ * либо статус и причина отказа (те же, что у одиночного бронирования).
+ *
+ * @param index    позиция элемента в запросе
+ * @param reservation созданное бронирование или null при отказе
+ * @param status   статус отказа или null при успехе
+ * @param reason   причина отказа или null при успехе
+ */
+public record ReservationBatchItem(int index, Reservation reservation, HttpStatus status, String reason) {
+    static ReservationBatchItem created(int index, Reservation reservation) {
+        return new ReservationBatchItem(index, reservation, null, null);
+    }
+
+    static ReservationBatchItem rejected(int index, HttpStatus status, String reason) {
+        return new ReservationBatchItem(index, null, status, reason);
+    }
+
+    public boolean isCreated() {
+        return reservation != null;
+    }
+}
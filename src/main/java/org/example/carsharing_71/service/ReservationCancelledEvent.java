@@ -0,0 +1,12 @@
+package org.example.carsharing_71.service;
+
+/**
+ * Событие «бронирование отменено».
+ * Публикуется {@link ReservationService} внутри транзакции; слушатели получают его
+ * после коммита (см. {@code @TransactionalEventListener}).
+ *
+ * @param reservationId идентификатор бронирования
+ * @param carId         идентификатор автомобиля
+ */
+public record ReservationCancelledEvent(Long reservationId, Long carId) {
+}
@@ -0,0 +1,71 @@
+package org.example.carsharing_71.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики конфликтов оптимистичной блокировки при создании бронирований, по локациям автомобиля.
+ * Показывают «горячие» локации: где бронирования чаще всего сталкиваются с параллельными изменениями.
+ */
+@Component
+public class ReservationContention {
+    private static final Long UNKNOWN_LOCATION = 0L;
+
+    private final Map<Long, Counters> byLocation = new ConcurrentHashMap<>();
+
+    /**
+     * Конфликт версий; за ним последует повтор, если попытки не исчерпаны.
+     */
+    public void conflict(Long locationId) {
+        counters(locationId).conflicts.increment();
+    }
+
+    public void retry(Long locationId) {
+        counters(locationId).retries.increment();
+    }
+
+    /**
+     * Попытки исчерпаны, клиент получил 409.
+     */
+    public void exhausted(Long locationId) {
+        counters(locationId).exhausted.increment();
+    }
+
+    /**
+     * Счётчики по локациям, самые конфликтные первыми.
+     */
+    public List<Map<String, Object>> stats() {
+        return byLocation.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, Counters> e) -> e.getValue().conflicts.sum()).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .map(e -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("locationId", e.getKey().equals(UNKNOWN_LOCATION) ? null : e.getKey());
+                    row.put("conflicts", e.getValue().conflicts.sum());
+                    row.put("retries", e.getValue().retries.sum());
+                    row.put("exhausted", e.getValue().exhausted.sum());
+                    return row;
+                })
+                .toList();
+    }
+
+    public void reset() {
+        byLocation.clear();
+    }
+
+    private Counters counters(Long locationId) {
+        return byLocation.computeIfAbsent(locationId == null ? UNKNOWN_LOCATION : locationId, id -> new Counters());
+    }
+
+    private static final class Counters {
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+    }
+}
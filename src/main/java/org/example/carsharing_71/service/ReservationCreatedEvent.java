@@ -0,0 +1,16 @@
+package org.example.carsharing_71.service;
+
+import java.time.Instant;
+
+/**
+ * Событие «создано активное бронирование».
+ * Публикуется {@link ReservationService} внутри транзакции; слушатели получают его
+ * после коммита (см. {@code @TransactionalEventListener}).
+ *
+ * @param reservationId идентификатор бронирования
+ * @param carId         идентификатор автомобиля
+ * @param startAt       начало интервала
+ * @param endAt         конец интервала
+ */
+public record ReservationCreatedEvent(Long reservationId, Long carId, Instant startAt, Instant endAt) {
+}
@@ -0,0 +1,237 @@
+package org.example.carsharing_71.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.api.dto.ReservationDto;
+import org.example.carsharing_71.domain.IdempotencyRecord;
+import org.example.carsharing_71.repository.IdempotencyRecordRepository;
+import org.example.carsharing_71.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Идемпотентность POST /api/reservations по заголовку {@code Idempotency-Key}.
+ * <p>
+ * Первый запрос с ключом захватывает его строкой в {@code reservation_idempotency_keys}
+ * (первичный ключ (пользователь, ключ) не даст захватить его дважды, в том числе из разных
+ * экземпляров), выполняется и сохраняет JSON ответа. Повтор с тем же ключом получает сохранённый
+ * {@link ReservationDto}, не обращаясь к таблицам бронирований: сначала из ограниченного
+ * in-memory кэша (Caffeine), затем из таблицы ключей. Ключи разных пользователей независимы.
+ * <ul>
+ *   <li>тот же ключ с другим телом — 422;</li>
+ *   <li>ключ ещё выполняется — 409 (клиенту стоит повторить позже);</li>
+ *   <li>запрос завершился ошибкой — ключ освобождается, повтор выполнится заново.</li>
+ * </ul>
+ * Ключи живут {@code carsharing.reservation.idempotency.ttl} от захвата, в том числе в кэше
+ * (повторы срок не продлевают); захват, не завершённый за
+ * {@code pending-timeout} (экземпляр упал посреди запроса), считается брошенным.
+ * <p>
+ * Бронирование и запись ответа — разные транзакции, поэтому ключ может остаться незавершённым
+ * при уже созданном бронировании (падение экземпляра, сбой записи ответа). Перед ответом 409
+ * или повторным выполнением такого ключа ищется бронирование того же пользователя на то же окно
+ * автомобиля, созданное после захвата; если оно есть, ответ достраивается по нему и отдаётся как повтор.
+ */
+@Slf4j
+@Component
+public class ReservationIdempotency {
+    /** Просроченные ключи удаляются из БД попутно с захватом нового, не чаще этого интервала. */
+    private static final long PURGE_INTERVAL_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    /**
+     * Ответ на запрос с ключом.
+     *
+     * @param reservation созданное (или ранее созданное) бронирование
+     * @param replayed    true — ответ сохранённый, бронирование не выполнялось
+     */
+    public record Result(ReservationDto reservation, boolean replayed) {
+    }
+
+    /**
+     * Сохранённый ответ и момент, когда ключ перестаёт действовать (захват + TTL).
+     */
+    private record Stored(String requestHash, ReservationDto response, Instant expiresAt) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final ReservationRepository reservationRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final Cache<IdempotencyRecord.Key, Stored> cache;
+    private final Duration ttl;
+    private final Duration pendingTimeout;
+    private final AtomicLong nextPurgeAt = new AtomicLong();
+
+    public ReservationIdempotency(
+            IdempotencyRecordRepository repository,
+            ReservationRepository reservationRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${carsharing.reservation.idempotency.max-entries:10000}") long maxEntries,
+            @Value("${carsharing.reservation.idempotency.ttl:24h}") Duration ttl,
+            @Value("${carsharing.reservation.idempotency.pending-timeout:1m}") Duration pendingTimeout
+    ) {
+        this.repository = repository;
+        this.reservationRepository = reservationRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(Expiry.creating((IdempotencyRecord.Key key, Stored stored) ->
+                        Duration.between(Instant.now(), stored.expiresAt())))
+                .build();
+        this.ttl = ttl;
+        this.pendingTimeout = pendingTimeout;
+    }
+
+    /**
+     * Выполняет бронирование один раз на ключ; повторы получают сохранённый ответ.
+     *
+     * @param key     значение заголовка Idempotency-Key
+     * @param owner   логин аутентифицированного пользователя
+     * @param request тело запроса (входит в отпечаток)
+     * @param action  само бронирование
+     * @throws ResponseStatusException 422, если ключ пуст, длиннее 128 символов или использован с другим запросом
+     * @throws ResponseStatusException 409, если запрос с этим ключом ещё выполняется
+     */
+    public Result execute(String key, String owner, ReservationCreateRequest request, Supplier<ReservationDto> action) {
+        if (key.isBlank() || key.length() > 128) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Idempotency-Key must be 1 to 128 characters");
+        }
+        IdempotencyRecord.Key id = new IdempotencyRecord.Key(owner, key);
+        String requestHash = fingerprint(owner, request);
+        Stored stored = cache.getIfPresent(id);
+        if (stored == null) {
+            stored = transaction.execute(status -> load(id, requestHash, request));
+            if (stored != null) {
+                cache.put(id, stored);
+            }
+        }
+        if (stored != null) {
+            if (!stored.requestHash().equals(requestHash)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT,
+                        "Idempotency-Key was used with a different request");
+            }
+            return new Result(stored.response(), true);
+        }
+
+        Instant claimedAt = claim(id, requestHash);
+        ReservationDto response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            transaction.executeWithoutResult(status -> repository.deleteById(id));
+            throw e;
+        }
+        try {
+            String json = objectMapper.writeValueAsString(response);
+            transaction.executeWithoutResult(status -> repository.findById(id).ifPresent(r -> r.setResponse(json)));
+        } catch (RuntimeException e) {
+            // Бронирование уже создано: повтор достроит ответ по нему (см. load), клиенту отвечаем как обычно
+            log.warn("Failed to store response for Idempotency-Key of {}", id.owner(), e);
+        }
+        cache.put(id, new Stored(requestHash, response, claimedAt.plus(ttl)));
+        return new Result(response, false);
+    }
+
+    /**
+     * Сохранённый ответ из БД; незавершённый ключ достраивается по уже созданному бронированию,
+     * просроченные и брошенные ключи удаляются.
+     */
+    private Stored load(IdempotencyRecord.Key id, String requestHash, ReservationCreateRequest request) {
+        IdempotencyRecord record = repository.findById(id).orElse(null);
+        if (record == null) {
+            return null;
+        }
+        Instant now = Instant.now();
+        if (record.getResponse() == null) {
+            ReservationDto created = record.getRequestHash().equals(requestHash) ? findCreated(record, request) : null;
+            if (created != null) {
+                record.setResponse(objectMapper.writeValueAsString(created));
+                return new Stored(record.getRequestHash(), created, record.getCreatedAt().plus(ttl));
+            }
+            if (record.getCreatedAt().isAfter(now.minus(pendingTimeout))) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Request with this Idempotency-Key is still in progress");
+            }
+            repository.delete(record);
+            return null;
+        }
+        if (record.getCreatedAt().isBefore(now.minus(ttl))) {
+            repository.delete(record);
+            return null;
+        }
+        return new Stored(record.getRequestHash(), objectMapper.readValue(record.getResponse(), ReservationDto.class),
+                record.getCreatedAt().plus(ttl));
+    }
+
+    /**
+     * Бронирование, созданное запросом с этим ключом после его захвата, или null.
+     */
+    private ReservationDto findCreated(IdempotencyRecord record, ReservationCreateRequest request) {
+        return reservationRepository.findCreatedSince(request.getUserId(), request.getCarId(), request.getStartAt(),
+                        request.getEndAt(), record.getCreatedAt(), Limit.of(1)).stream()
+                .findFirst()
+                .map(ReservationDto::fromEntity)
+                .orElse(null);
+    }
+
+    /**
+     * Захватывает ключ.
+     *
+     * @return время захвата, от которого отсчитывается TTL
+     */
+    private Instant claim(IdempotencyRecord.Key id, String requestHash) {
+        purgeIfDue();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setOwner(id.owner());
+        record.setKey(id.key());
+        record.setRequestHash(requestHash);
+        record.setCreatedAt(Instant.now());
+        try {
+            transaction.executeWithoutResult(status -> repository.saveAndFlush(record));
+        } catch (DataIntegrityViolationException e) {
+            // Ключ только что захватил параллельный запрос
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Request with this Idempotency-Key is still in progress");
+        }
+        return record.getCreatedAt();
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        long next = nextPurgeAt.get();
+        if (now >= next && nextPurgeAt.compareAndSet(next, now + PURGE_INTERVAL_MILLIS)) {
+            transaction.executeWithoutResult(status -> repository.deleteCreatedBefore(Instant.now().minus(ttl)));
+        }
+    }
+
+    private static String fingerprint(String owner, ReservationCreateRequest request) {
+        String canonical = String.join("|", owner, String.valueOf(request.getUserId()), String.valueOf(request.getCarId()),
+                String.valueOf(request.getStartAt()), String.valueOf(request.getEndAt()),
+                String.valueOf(request.getHoldId()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
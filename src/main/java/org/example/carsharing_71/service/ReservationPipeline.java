@@ -0,0 +1,232 @@
+package org.example.carsharing_71.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.domain.Reservation;
+import org.example.carsharing_71.repository.CarRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Очередь бронирований по шардам автомобилей с одним писателем на шард — для пиков спроса
+ * (например, аэропорты), где бронирования одних и тех же машин выстраиваются в конвой на блокировках.
+ * <p>
+ * Автомобиль всегда попадает в один и тот же шард. Поток шарда забирает из очереди до
+ * {@code batch-size} запросов и проводит их одним {@link ReservationService#createBatch пакетом}:
+ * конфликты решаются в памяти в порядке очереди, принятые бронирования вставляются JDBC-батчем.
+ * Вызывающий поток ждёт свой результат, поэтому API остаётся синхронным.
+ * <p>
+ * Очередь шарда ограничена {@code queue-capacity}: если она полна, запрос сразу получает 503 (backpressure).
+ * Запрос, обработка которого не началась за {@code timeout}, снимается с очереди и получает 503;
+ * уже начатый пакет вызывающий дожидается, чтобы не ответить 503 на созданное бронирование.
+ * <p>
+ * Шарды обслуживаются обычными однопоточными executor'ами: на Java 17 виртуальных потоков нет,
+ * а писатель на шард всё равно один.
+ */
+@Component
+public class ReservationPipeline {
+    private final ReservationService reservationService;
+    private final CarRepository carRepository;
+    private final boolean enabled;
+    private final Set<Long> locationIds;
+    private final int batchSize;
+    private final long timeoutMillis;
+    private final Shard[] shards;
+
+    public ReservationPipeline(ReservationService reservationService,
+                               CarRepository carRepository,
+                               @Value("${carsharing.reservation.pipeline.enabled:false}") boolean enabled,
+                               @Value("${carsharing.reservation.pipeline.location-ids:}") Set<Long> locationIds,
+                               @Value("${carsharing.reservation.pipeline.shards:8}") int shards,
+                               @Value("${carsharing.reservation.pipeline.queue-capacity:1000}") int queueCapacity,
+                               @Value("${carsharing.reservation.pipeline.batch-size:32}") int batchSize,
+                               @Value("${carsharing.reservation.batch.max-size:200}") int batchMaxSize,
+                               @Value("${carsharing.reservation.pipeline.timeout:10s}") Duration timeout) {
+        if (enabled && shards < 1) {
+            throw new IllegalArgumentException("Reservation pipeline needs at least 1 shard");
+        }
+        // Пакет больше batch.max-size сервис отклонил бы целиком — каждый запрос шарда получил бы 422
+        if (enabled && (batchSize < 1 || batchSize > batchMaxSize)) {
+            throw new IllegalArgumentException("Reservation pipeline batch-size must be from 1 to batch.max-size ("
+                    + batchMaxSize + "): " + batchSize);
+        }
+        this.reservationService = reservationService;
+        this.carRepository = carRepository;
+        this.enabled = enabled;
+        this.locationIds = Set.copyOf(locationIds);
+        this.batchSize = batchSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.shards = new Shard[enabled ? shards : 0];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard(i, queueCapacity);
+        }
+    }
+
+    /**
+     * Идёт ли бронирование автомобиля через очередь: очередь включена и автомобиль стоит
+     * в одной из {@code location-ids} (пустой список — все локации).
+     */
+    public boolean handles(Long carId) {
+        if (!enabled || carId == null) {
+            return false;
+        }
+        return locationIds.isEmpty() || carRepository.findById(carId)
+                .map(car -> locationIds.contains(car.getLocation().getId()))
+                .orElse(false);
+    }
+
+    /**
+     * Ставит бронирование в очередь шарда его автомобиля и ждёт результат.
+     *
+     * @return созданное бронирование
+     * @throws ResponseStatusException 404/422 — как у {@link ReservationService#create}
+     * @throws ResponseStatusException 503, если очередь шарда полна или результат не получен за {@code timeout}
+     */
+    public Reservation submit(ReservationCreateRequest request) {
+        if (request.getCarId() == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Car not found");
+        }
+        Shard shard = shards[shard(request.getCarId())];
+        Pending pending = new Pending(request);
+        if (!shard.queue.offer(pending)) {
+            shard.rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Reservation queue is full, retry later");
+        }
+        try {
+            try {
+                return pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.state.compareAndSet(Pending.QUEUED, Pending.ABANDONED)) {
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Reservation queue timeout, retry later");
+                }
+                return pending.result.get();
+            }
+        } catch (InterruptedException e) {
+            pending.state.compareAndSet(Pending.QUEUED, Pending.ABANDONED);
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for reservation");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Метрики шардов: глубина очереди, обработанные запросы, отклонённые (очередь полна) и обработанные пакеты.
+     */
+    public List<Map<String, Object>> stats() {
+        return Arrays.stream(shards)
+                .map(shard -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("shard", shard.index);
+                    row.put("queueDepth", shard.queue.size());
+                    row.put("processed", shard.processed.sum());
+                    row.put("rejected", shard.rejected.sum());
+                    row.put("batches", shard.batches.sum());
+                    return row;
+                })
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.executor.shutdownNow();
+            List<Pending> left = new ArrayList<>();
+            shard.queue.drainTo(left);
+            left.forEach(pending -> pending.result.completeExceptionally(
+                    new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Reservation queue is shutting down")));
+        }
+    }
+
+    private int shard(long carId) {
+        // Перемешивание битов, как в CarLocks: соседние id попадают в разные шарды
+        long h = carId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) shards.length);
+    }
+
+    /**
+     * Цикл писателя шарда: ждёт первый запрос, добирает готовые до {@code batch-size} и проводит пакетом.
+     */
+    private void drain(Shard shard) {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(shard.queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            shard.queue.drainTo(batch, batchSize - 1);
+            // Не дождавшиеся результата запросы уже получили 503 — их не бронируем
+            batch.removeIf(pending -> !pending.state.compareAndSet(Pending.QUEUED, Pending.PROCESSING));
+            if (!batch.isEmpty()) {
+                // Счётчики — до ответа вызывающим, чтобы ответивший запрос уже был в метриках
+                shard.processed.add(batch.size());
+                shard.batches.increment();
+                process(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void process(List<Pending> batch) {
+        try {
+            List<ReservationBatchItem> items = reservationService.createBatch(
+                    batch.stream().map(pending -> pending.request).toList());
+            for (ReservationBatchItem item : items) {
+                CompletableFuture<Reservation> result = batch.get(item.index()).result;
+                if (item.isCreated()) {
+                    result.complete(item.reservation());
+                } else {
+                    result.completeExceptionally(new ResponseStatusException(item.status(), item.reason()));
+                }
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+    }
+
+    private final class Shard {
+        private final int index;
+        private final BlockingQueue<Pending> queue;
+        private final ExecutorService executor;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+
+        private Shard(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "reservation-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor.execute(() -> drain(this));
+        }
+    }
+
+    private static final class Pending {
+        private static final int QUEUED = 0;
+        private static final int PROCESSING = 1;
+        private static final int ABANDONED = 2;
+
+        private final ReservationCreateRequest request;
+        private final CompletableFuture<Reservation> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private Pending(ReservationCreateRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -1,20 +1,72 @@
 package org.example.carsharing_71.service;
 
+import jakarta.persistence.EntityManager;
+import org.example.carsharing_71.api.ReservationCursor;
 import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.availability.AvailabilityChecker;
 import org.example.carsharing_71.domain.*;
 import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.repository.ReservationOverlapRule;
 import org.example.carsharing_71.repository.ReservationRepository;
 import org.example.carsharing_71.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import org.example.carsharing_71.repository.projection.ReservationInterval;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.retry.RetryException;
+import org.springframework.core.retry.RetryPolicy;
+import org.springframework.core.retry.RetryTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 /**
- * Сервис создания бронирований.
+ * Сервис создания и отмены бронирований.
  * Проводит валидаторы бизнес‑правил: корректность интервала, существование пользователя/авто,
  * статус доступности автомобиля и отсутствие пересечений активных бронирований.
  * При успешном создании переводит автомобиль в статус RESERVED.
+ * <p>
+ * Отсутствие пересечений гарантирует сама БД: exclusion constraint {@code ex_reservations_car_no_overlap}
+ * в PostgreSQL или одноимённое CHECK-ограничение с {@link ReservationOverlapRule} в H2.
+ * Бронирование вставляется сразу, нарушение ограничения превращается в тот же ответ 422.
+ * <p>
+ * Проверка пересечений и сохранение для одного автомобиля сериализованы: внутри экземпляра —
+ * полосатой блокировкой {@link CarLocks} (держится до конца транзакции, включая обновление
+ * in-memory индексов после коммита), между экземплярами и с другими изменениями автомобиля —
+ * версией автомобиля ({@code @Version}, увеличивается при каждом бронировании).
+ * Бронирования разных автомобилей друг друга не ждут.
+ * <p>
+ * Конфликт версий повторяется с экспоненциальной задержкой ({@code carsharing.reservation.retry.*});
+ * если попытки исчерпаны — 409. Конфликты и повторы считаются по локациям в {@link ReservationContention}.
+ * <p>
+ * Вызов внутри уже открытой транзакции блокировку не пропускает: она берётся через
+ * {@link CarLocks#lockUntilCompletion} и держится до завершения внешней транзакции. Повтора в этом случае
+ * нет — конфликт версий сразу даёт 409, повторять нужно внешнюю транзакцию.
+ * <p>
+ * Пакетное бронирование ({@link #createBatch}) проверяет пересечения одним запросом на весь пакет
+ * и вставляет принятые бронирования JDBC-батчами; результат — по каждому элементу отдельно.
+ * <p>
+ * Удержание ({@link #hold}) проверяет окно заранее и закрывает его для других на время оформления;
+ * бронирование с {@code holdId} не повторяет проверку пересечений. Чужие действующие удержания
+ * отклоняют бронирование с 422.
+ * <p>
+ * Отмена ({@link #cancel}) сериализована с бронированием тем же способом и сразу освобождает автомобиль,
+ * если у него не осталось активных бронирований.
  */
 @Service
 public class ReservationService {
@@ -33,18 +85,90 @@ public class ReservationService {
      */
     private final CarRepository carRepository;
 
+    /**
+     * Проверка пересечений: JPQL или in-memory индекс (в зависимости от настроек)
+     */
+    private final AvailabilityChecker availabilityChecker;
+
+    /**
+     * Публикация событий для in-memory индексов (обрабатываются после коммита)
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Блокировки по автомобилю
+     */
+    private final CarLocks carLocks;
+
+    /**
+     * Транзакция открывается под блокировкой автомобиля и закрывается до её снятия
+     */
+    private final TransactionTemplate transaction;
+
+    /**
+     * Повтор бронирования при конфликте версий
+     */
+    private final RetryTemplate retryTemplate;
+
+    /**
+     * Счётчики конфликтов по локациям
+     */
+    private final ReservationContention contention;
+
+    /**
+     * Удержания автомобилей на время оформления
+     */
+    private final CarHolds carHolds;
+
+    /**
+     * Нужен для размера JDBC-батча сессии при пакетной вставке
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * Максимум бронирований в одном пакете
+     */
+    private final int batchMaxSize;
+
+    /**
+     * Размер JDBC-батча пакетной вставки
+     */
+    private final int jdbcBatchSize;
+
     /**
      * Конструктор сервиса бронирований.
      *
      * @param reservationRepository репозиторий для работы с бронированиями
      * @param userRepository репозиторий для работы с пользователями
      * @param carRepository репозиторий для работы с автомобилями
+     * @param availabilityChecker проверка пересечений бронирований
+     * @param eventPublisher публикатор событий приложения
+     * @param carLocks блокировки по автомобилю
+     * @param transactionManager менеджер транзакций
+     * @param contention счётчики конфликтов по локациям
+     * @param carHolds удержания автомобилей
+     * @param entityManager EntityManager текущей транзакции
+     * @param batchMaxSize максимум бронирований в одном пакете
+     * @param jdbcBatchSize размер JDBC-батча пакетной вставки
+     * @param maxRetries максимум повторов при конфликте версий
+     * @param retryDelay задержка перед первым повтором (далее растёт вдвое, со случайным разбросом)
      * @throws IllegalArgumentException если любой из аргументов равен null
      */
     public ReservationService(
             ReservationRepository reservationRepository,
             UserRepository userRepository,
-            CarRepository carRepository
+            CarRepository carRepository,
+            AvailabilityChecker availabilityChecker,
+            ApplicationEventPublisher eventPublisher,
+            CarLocks carLocks,
+            PlatformTransactionManager transactionManager,
+            ReservationContention contention,
+            CarHolds carHolds,
+            EntityManager entityManager,
+            @Value("${carsharing.reservation.batch.max-size:200}") int batchMaxSize,
+            @Value("${carsharing.reservation.batch.jdbc-batch-size:50}") int jdbcBatchSize,
+            @Value("${carsharing.reservation.retry.max-retries:3}") int maxRetries,
+            @Value("${carsharing.reservation.retry.delay:20ms}") Duration retryDelay
     ) {
         if (reservationRepository == null || userRepository == null || carRepository == null) {
             throw new IllegalArgumentException("Repositories cannot be null");
@@ -52,6 +176,23 @@ public class ReservationService {
         this.reservationRepository = reservationRepository;
         this.userRepository = userRepository;
         this.carRepository = carRepository;
+        this.availabilityChecker = availabilityChecker;
+        this.eventPublisher = eventPublisher;
+        this.carLocks = carLocks;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.contention = contention;
+        this.carHolds = carHolds;
+        this.entityManager = entityManager;
+        this.batchMaxSize = batchMaxSize;
+        this.jdbcBatchSize = jdbcBatchSize;
+        this.retryTemplate = new RetryTemplate(RetryPolicy.builder()
+                .includes(OptimisticLockingFailureException.class)
+                .maxRetries(maxRetries)
+                .delay(retryDelay)
+                .multiplier(2)
+                .jitter(retryDelay.dividedBy(2))
+                .maxDelay(retryDelay.multipliedBy(10))
+                .build());
     }
 
     /**
@@ -62,26 +203,168 @@ public class ReservationService {
      * @throws ResponseStatusException если запрос на бронирование невалиден
      * @throws ResponseStatusException если пользователь или автомобиль не найдены
      * @throws ResponseStatusException если автомобиль уже забронирован на указанный период
+     * @throws ResponseStatusException 409, если автомобиль параллельно изменялся и попытки исчерпаны
      */
-    @Transactional
     public Reservation create(ReservationCreateRequest request) {
         if (!request.isTimeRangeValid()) {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Invalid time range");
         }
+        if (request.getCarId() == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Car not found");
+        }
+        long carId = request.getCarId();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return inOuterTransaction(List.of(carId), () -> locationOf(carId), () -> createLocked(request));
+        }
+        return withRetry(() -> locationOf(carId),
+                () -> carLocks.withCarLock(carId, () -> transaction.execute(status -> createLocked(request))));
+    }
+
+    /**
+     * Удерживает окно автомобиля на время оформления бронирования.
+     * Проверки те же, что у бронирования; бронирование по удержанию их не повторяет.
+     *
+     * @param request пользователь, автомобиль и окно удержания
+     * @return удержание с моментом истечения
+     * @throws ResponseStatusException 404, если пользователь или автомобиль не найдены
+     * @throws ResponseStatusException 422, если автомобиль недоступен, окно занято бронированием или чужим удержанием
+     */
+    public CarHolds.Hold hold(ReservationCreateRequest request) {
+        if (!request.isTimeRangeValid()) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Invalid time range");
+        }
+        if (request.getCarId() == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Car not found");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            carLocks.lockUntilCompletion(List.of(request.getCarId()));
+            return holdLocked(request);
+        }
+        return carLocks.withCarLock(request.getCarId(), () -> transaction.execute(status -> holdLocked(request)));
+    }
+
+    private CarHolds.Hold holdLocked(ReservationCreateRequest request) {
+        if (!userRepository.existsById(request.getUserId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        Car car = carRepository.findById(request.getCarId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Car not found"));
+        if (car.getStatus() != CarStatus.AVAILABLE) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Car is not available");
+        }
+        if (availabilityChecker.hasOverlap(car.getId(), request.getStartAt(), request.getEndAt())) {
+            throw overlapping();
+        }
+        return carHolds.place(request.getUserId(), car.getId(), request.getStartAt(), request.getEndAt());
+    }
+
+    /**
+     * Создаёт пакет бронирований (корпоративные и парковые заказы).
+     * <p>
+     * Пакет выполняется в одной транзакции под блокировками всех его автомобилей: пользователи,
+     * автомобили и пересекающиеся активные бронирования читаются тремя запросами на весь пакет,
+     * элементы проверяются по порядку, принятые вставляются JDBC-батчами. Автомобиль принимается в пакете
+     * не больше одного раза: принятый элемент переводит его в RESERVED, как одиночное бронирование,
+     * и последующие элементы с тем же автомобилем отклоняются как «Car is not available».
+     * Отказ элемента не отменяет остальные. Если при вставке сработало ограничение БД
+     * (параллельное бронирование из другого экземпляра), пакет повторяется целиком и пересчитывается.
+     *
+     * @param requests элементы пакета
+     * @return результаты в порядке элементов запроса
+     * @throws ResponseStatusException 422, если пакет пуст или больше {@code carsharing.reservation.batch.max-size}
+     * @throws ResponseStatusException 409, если автомобили пакета параллельно изменялись и попытки исчерпаны
+     */
+    public List<ReservationBatchItem> createBatch(List<ReservationCreateRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > batchMaxSize) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT,
+                    "Batch must contain from 1 to " + batchMaxSize + " reservations");
+        }
+        Set<Long> carIds = requests.stream()
+                .map(ReservationCreateRequest::getCarId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(TreeSet::new));
+        // Пакет затрагивает несколько локаций — его конфликты считаются без локации
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return inOuterTransaction(carIds, () -> null, () -> createBatchLocked(requests, carIds));
+        }
+        return withRetry(() -> null,
+                () -> carLocks.withCarLocks(carIds, () -> transaction.execute(status -> createBatchLocked(requests, carIds))));
+    }
+
+    /**
+     * Повтор попытки при конфликте версий с учётом в счётчиках локации; исчерпание попыток — 409.
+     */
+    private <T> T withRetry(Supplier<Long> location, Supplier<T> attempt) {
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            return retryTemplate.execute(() -> {
+                if (attempts.getAndIncrement() > 0) {
+                    contention.retry(location.get());
+                }
+                try {
+                    return attempt.get();
+                } catch (OptimisticLockingFailureException e) {
+                    contention.conflict(location.get());
+                    throw e;
+                }
+            });
+        } catch (RetryException e) {
+            if (e.getCause() instanceof OptimisticLockingFailureException) {
+                contention.exhausted(location.get());
+                throw modifiedConcurrently();
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Попытка внутри уже открытой внешней транзакции. Блокировки автомобилей берутся так же, но держатся
+     * до завершения внешней транзакции. Повторить попытку нельзя — откатить придётся всю внешнюю транзакцию,
+     * поэтому конфликт версий сразу даёт 409.
+     */
+    private <T> T inOuterTransaction(Collection<Long> carIds, Supplier<Long> location, Supplier<T> attempt) {
+        carLocks.lockUntilCompletion(carIds);
+        try {
+            return attempt.get();
+        } catch (OptimisticLockingFailureException e) {
+            contention.conflict(location.get());
+            contention.exhausted(location.get());
+            throw modifiedConcurrently();
+        }
+    }
+
+    private static ResponseStatusException modifiedConcurrently() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Car was modified concurrently, retry later");
+    }
+
+    /**
+     * Локация автомобиля для счётчиков конфликтов (вне транзакции бронирования, обычно из кэша L2).
+     */
+    private Long locationOf(long carId) {
+        return carRepository.findById(carId).map(car -> car.getLocation().getId()).orElse(null);
+    }
+
+    private Reservation createLocked(ReservationCreateRequest request) {
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
-        Car car = carRepository.findById(request.getCarId())
+        Car car = carRepository.findByIdForReservation(request.getCarId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Car not found"));
 
         if (car.getStatus() != CarStatus.AVAILABLE) {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Car is not available");
         }
 
-        long overlaps = reservationRepository.countOverlaps(car.getId(), request.getStartAt(), request.getEndAt());
-
-        if (overlaps > 0) {
-            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Car has overlapping reservation");
+        // Пересечения гарантирует БД (exclusion constraint / триггер в H2), отдельного запроса нет.
+        // In-memory индекс — лишь дешёвый ранний отказ, чтобы не делать заведомо неудачную вставку;
+        // при удержании окно уже проверено.
+        CarHolds.Hold hold = carHolds.check(request);
+        if (hold == null && availabilityChecker.usesIndex()
+                && availabilityChecker.hasOverlap(car.getId(), request.getStartAt(), request.getEndAt())) {
+            throw overlapping();
         }
 
         Reservation reservation = new Reservation();
@@ -90,31 +373,226 @@ public class ReservationService {
         reservation.setStartAt(request.getStartAt());
         reservation.setEndAt(request.getEndAt());
         reservation.setStatus(ReservationStatus.ACTIVE);
-        Reservation savedReservation = reservationRepository.save(reservation);
+        Reservation savedReservation;
+        try {
+            savedReservation = reservationRepository.saveAndFlush(reservation);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw overlapping();
+            }
+            throw e;
+        }
         car.setStatus(CarStatus.RESERVED);
         carRepository.save(car);
+        carHolds.releaseAfterCommit(hold);
+        eventPublisher.publishEvent(new ReservationCreatedEvent(
+                savedReservation.getId(), car.getId(), savedReservation.getStartAt(), savedReservation.getEndAt()));
         return savedReservation;
 
     }
     
+    private List<ReservationBatchItem> createBatchLocked(List<ReservationCreateRequest> requests, Set<Long> carIds) {
+        Set<Long> userIds = requests.stream()
+                .map(ReservationCreateRequest::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Car> cars = carIds.isEmpty() ? Map.of() : carRepository.findAllByIdForReservation(carIds).stream()
+                .collect(Collectors.toMap(Car::getId, Function.identity()));
+
+        // Занятые интервалы: один запрос на окно, покрывающее все элементы пакета
+        Map<Long, List<Interval>> busy = new HashMap<>();
+        Instant from = requests.stream().filter(ReservationCreateRequest::isTimeRangeValid)
+                .map(ReservationCreateRequest::getStartAt).min(Comparator.naturalOrder()).orElse(null);
+        Instant to = requests.stream().filter(ReservationCreateRequest::isTimeRangeValid)
+                .map(ReservationCreateRequest::getEndAt).max(Comparator.naturalOrder()).orElse(null);
+        if (from != null && !cars.isEmpty()) {
+            for (ReservationInterval interval : reservationRepository.findActiveIntervals(cars.keySet(), from, to)) {
+                busy.computeIfAbsent(interval.getCarId(), id -> new ArrayList<>())
+                        .add(new Interval(interval.getStartAt(), interval.getEndAt()));
+            }
+        }
+
+        List<ReservationBatchItem> results = new ArrayList<>(requests.size());
+        List<Reservation> accepted = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ReservationCreateRequest request = requests.get(i);
+            User user = users.get(request.getUserId());
+            Car car = cars.get(request.getCarId());
+            CarHolds.Hold hold = null;
+            ResponseStatusException held = null;
+            if (request.isTimeRangeValid() && car != null) {
+                try {
+                    hold = carHolds.check(request);
+                } catch (ResponseStatusException e) {
+                    held = e;
+                }
+            }
+            if (!request.isTimeRangeValid()) {
+                results.add(ReservationBatchItem.rejected(i, HttpStatus.UNPROCESSABLE_CONTENT, "Invalid time range"));
+            } else if (user == null) {
+                results.add(ReservationBatchItem.rejected(i, HttpStatus.NOT_FOUND, "User not found"));
+            } else if (car == null) {
+                results.add(ReservationBatchItem.rejected(i, HttpStatus.NOT_FOUND, "Car not found"));
+            } else if (car.getStatus() != CarStatus.AVAILABLE) {
+                results.add(ReservationBatchItem.rejected(i, HttpStatus.UNPROCESSABLE_CONTENT, "Car is not available"));
+            } else if (held != null) {
+                results.add(ReservationBatchItem.rejected(i, HttpStatus.UNPROCESSABLE_CONTENT, held.getReason()));
+            } else if (busy.getOrDefault(car.getId(), List.of()).stream()
+                    .anyMatch(interval -> interval.overlaps(request.getStartAt(), request.getEndAt()))) {
+                results.add(ReservationBatchItem.rejected(i, HttpStatus.UNPROCESSABLE_CONTENT,
+                        overlapping().getReason()));
+            } else {
+                Reservation reservation = new Reservation();
+                reservation.setUser(user);
+                reservation.setCar(car);
+                reservation.setStartAt(request.getStartAt());
+                reservation.setEndAt(request.getEndAt());
+                reservation.setStatus(ReservationStatus.ACTIVE);
+                accepted.add(reservation);
+                // Автомобиль становится RESERVED: следующие элементы пакета с ним получат «Car is not available»
+                car.setStatus(CarStatus.RESERVED);
+                carHolds.releaseAfterCommit(hold);
+                results.add(ReservationBatchItem.created(i, reservation));
+            }
+        }
+
+        // id берутся из reservations_seq пачкой, поэтому вставки копятся до flush и уходят батчами
+        entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+        try {
+            reservationRepository.saveAll(accepted);
+            reservationRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                // Пересечение появилось после чтения интервалов — пакет пересчитывается заново
+                throw new OptimisticLockingFailureException("Concurrent reservation of a car in the batch", e);
+            }
+            throw e;
+        }
+        for (Reservation reservation : accepted) {
+            eventPublisher.publishEvent(new ReservationCreatedEvent(reservation.getId(), reservation.getCar().getId(),
+                    reservation.getStartAt(), reservation.getEndAt()));
+        }
+        return results;
+    }
+
+    /**
+     * Активное бронирование автомобиля из БД при проверке пакета.
+     */
+    private record Interval(Instant startAt, Instant endAt) {
+        boolean overlaps(Instant otherStart, Instant otherEnd) {
+            return startAt.isBefore(otherEnd) && endAt.isAfter(otherStart);
+        }
+    }
+
+    private static ResponseStatusException overlapping() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Car has overlapping reservation");
+    }
+
+    /**
+     * Нарушение {@code ex_reservations_car_no_overlap}: SQLState 23P01 (PostgreSQL) или имя ограничения (H2).
+     */
+    private static boolean isOverlapViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql
+                    && ReservationOverlapRule.EXCLUSION_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+            if (cause.getMessage() != null && cause.getMessage().contains(ReservationOverlapRule.CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Отменяет существующее бронирование по идентификатору.
+     * <p>
+     * Отмена идёт под блокировкой автомобиля и с оптимистичной версией, как бронирование: параллельное
+     * бронирование того же автомобиля получит конфликт версий и повторится. Если у автомобиля не осталось
+     * активных бронирований, он сразу возвращается в AVAILABLE; интервал убирается из in-memory индекса
+     * после коммита ({@link ReservationCancelledEvent}).
      * 
      * @param reservationId идентификатор бронирования для отмены
      * @param userId идентификатор пользователя, отменяющего бронирование
-     * @throws EntityNotFoundException если бронирование не найдено
-     * @throws AccessDeniedException если пользователь не является владельцем бронирования
-     * @throws IllegalStateException если бронирование уже отменено или завершено
+     * @return отменённое бронирование
+     * @throws ResponseStatusException 404, если бронирование не найдено
+     * @throws ResponseStatusException 403, если пользователь не является владельцем бронирования
+     * @throws ResponseStatusException 422, если бронирование уже отменено или завершено
+     * @throws ResponseStatusException 409, если автомобиль параллельно изменялся и попытки исчерпаны
      */
-    // TODO: Реализовать метод отмены бронирования
-    
+    public Reservation cancel(Long reservationId, Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId must not be null");
+        }
+        long carId = reservationRepository.findById(reservationId)
+                .map(reservation -> reservation.getCar().getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found"));
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return inOuterTransaction(List.of(carId), () -> locationOf(carId), () -> cancelLocked(reservationId, userId));
+        }
+        return withRetry(() -> locationOf(carId),
+                () -> carLocks.withCarLock(carId, () -> transaction.execute(status -> cancelLocked(reservationId, userId))));
+    }
+
+    private Reservation cancelLocked(Long reservationId, Long userId) {
+        Reservation reservation = reservationRepository.findWithCarById(reservationId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found"));
+        if (!reservation.getUser().getId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Reservation belongs to another user");
+        }
+        if (reservation.getStatus() != ReservationStatus.ACTIVE) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Reservation is not active");
+        }
+        Instant now = Instant.now();
+        if (!reservation.getEndAt().isAfter(now)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "Reservation has already ended");
+        }
+        // Версия автомобиля поднимается, как при бронировании: параллельное бронирование не пройдёт молча
+        Car car = carRepository.findByIdForReservation(reservation.getCar().getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Car not found"));
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        reservationRepository.save(reservation);
+        // Запрос сбрасывает отмену в БД и видит оставшиеся активные бронирования автомобиля
+        if (!carRepository.findReleasable(List.of(car.getId()), now).isEmpty()) {
+            car.setStatus(CarStatus.AVAILABLE);
+            carRepository.save(car);
+        }
+        eventPublisher.publishEvent(new ReservationCancelledEvent(reservation.getId(), car.getId()));
+        return reservation;
+    }
+
     /**
-     * Получает список активных бронирований пользователя.
+     * Получает страницу активных (ещё не закончившихся) бронирований пользователя.
+     * <p>
+     * Keyset-пагинация по {@code (startAt, id)}: одна выборка по индексу
+     * {@code ix_reservations_user_status_start} вместе с автомобилем и пользователем, без N+1.
      * 
      * @param userId идентификатор пользователя
-     * @return список активных бронирований
+     * @param cursor позиция после последней записи предыдущей страницы (null — первая страница)
+     * @param limit  размер страницы
+     * @return до {@code limit + 1} бронирований (лишняя запись — признак следующей страницы)
      * @throws IllegalArgumentException если userId равен null
      */
-    // TODO: Реализовать метод получения активных бронирований
+    public List<Reservation> activeReservations(Long userId, ReservationCursor cursor, int limit) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId must not be null");
+        }
+        return reservationRepository.findActivePageByUser(userId, Instant.now(),
+                cursor != null ? cursor.getStartAt() : Instant.EPOCH,
+                cursor != null ? cursor.getId() : 0L,
+                Limit.of(limit + 1));
+    }
 
+    /**
+     * Идентификатор пользователя по логину (для операций от имени аутентифицированного пользователя).
+     *
+     * @throws ResponseStatusException 404, если пользователь не найден
+     */
+    public Long userIdOf(String login) {
+        return userRepository.findByLogin(login)
+                .map(User::getId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
 }
@@ -0,0 +1,13 @@
+package org.example.carsharing_71.service;
+
+import java.util.Map;
+
+/**
+ * Событие «бронирования перенесены в архив».
+ * Публикуется задачей архивации внутри транзакции пачки; слушатели получают его
+ * после коммита (см. {@code @TransactionalEventListener}).
+ *
+ * @param carIdsByReservation автомобиль каждого перенесённого бронирования
+ */
+public record ReservationsArchivedEvent(Map<Long, Long> carIdsByReservation) {
+}
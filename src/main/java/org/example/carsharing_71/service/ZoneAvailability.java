@@ -0,0 +1,12 @@
+package org.example.carsharing_71.service;
+
+/**
+ * Доступность автомобилей в зоне за интервал.
+ *
+ * @param code      код зоны
+ * @param name      название зоны
+ * @param totalCars автомобили со статусом AVAILABLE в зоне
+ * @param freeCars  из них без пересечений с активными бронированиями
+ */
+public record ZoneAvailability(String code, String name, int totalCars, int freeCars) {
+}
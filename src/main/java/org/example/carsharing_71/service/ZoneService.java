@@ -0,0 +1,76 @@
+package org.example.carsharing_71.service;
+
+import org.example.carsharing_71.availability.AvailabilityChecker;
+import org.example.carsharing_71.availability.ZoneIndex;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.repository.CarSpecifications;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Сервис доступности автомобилей по зонам города.
+ * <p>
+ * Состав зон берётся из {@link ZoneIndex}, занятые автомобили — одним вызовом
+ * {@link AvailabilityChecker#busyCarIds}, поэтому сводка по всем зонам стоит один запрос
+ * (или ни одного в режиме in-memory индекса), независимо от числа зон и локаций.
+ */
+@Service
+public class ZoneService {
+    private final ZoneIndex zoneIndex;
+    private final AvailabilityChecker availabilityChecker;
+    private final CarRepository carRepository;
+
+    public ZoneService(ZoneIndex zoneIndex, AvailabilityChecker availabilityChecker, CarRepository carRepository) {
+        this.zoneIndex = zoneIndex;
+        this.availabilityChecker = availabilityChecker;
+        this.carRepository = carRepository;
+    }
+
+    /**
+     * Количество автомобилей и свободных автомобилей в каждой зоне за интервал.
+     */
+    public List<ZoneAvailability> availability(Instant startAt, Instant endAt) {
+        Set<Long> busy = availabilityChecker.busyCarIds(startAt, endAt);
+        List<ZoneAvailability> result = new ArrayList<>();
+        for (ZoneIndex.Zone zone : zoneIndex.zones()) {
+            int free = 0;
+            for (long carId : zone.carIds()) {
+                if (!busy.contains(carId)) {
+                    free++;
+                }
+            }
+            result.add(new ZoneAvailability(zone.code(), zone.name(), zone.carIds().length, free));
+        }
+        return result;
+    }
+
+    /**
+     * Свободные автомобили зоны за интервал, упорядоченные по id.
+     *
+     * @throws ResponseStatusException 404, если зона не найдена
+     */
+    public List<Car> availableCars(String code, Instant startAt, Instant endAt) {
+        ZoneIndex.Zone zone = zoneIndex.zone(code)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Zone not found"));
+        Set<Long> busy = availabilityChecker.busyCarIds(startAt, endAt);
+        List<Long> free = new ArrayList<>();
+        for (long carId : zone.carIds()) {
+            if (!busy.contains(carId)) {
+                free.add(carId);
+            }
+        }
+        if (free.isEmpty()) {
+            return List.of();
+        }
+        // Статус перепроверяется в БД: индекс зон мог устареть с последней пересборки
+        return carRepository.findAll(CarSpecifications.withIds(free).and(CarSpecifications.isAvailable()), Sort.by("id"));
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.carsharing_71.availability;
+
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.repository.ReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Бенчмарк движков доступности на синтетическом парке.
+ * Сравнивает исходный путь (findAll + countOverlaps на каждую машину), анти-джойн в БД,
+ * in-memory индекс и битовую карту слотов; заодно проверяет, что все они дают одинаковый ответ.
+ * После отката синтетического парка индексы перестраиваются, чтобы общий контекст не хранил
+ * бронирования, которых в БД уже нет.
+ */
+@SpringBootTest(properties = "carsharing.availability.engine=BITMAP")
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Transactional
+public class AvailabilityBenchmarkIT {
+    private static final int CARS = 3_000;
+    private static final int RESERVATIONS_PER_CAR = 3;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ReservationIndex reservationIndex;
+    @Autowired
+    private SlotBitmapIndex slotBitmapIndex;
+
+    @Test
+    void availabilityEngines_agreeAndCompare() {
+        Instant startAt = Instant.now().truncatedTo(ChronoUnit.DAYS).plus(Duration.ofDays(3)).plus(Duration.ofHours(10));
+        Instant endAt = startAt.plus(Duration.ofHours(4));
+        generateFleet(startAt);
+        reservationIndex.rebuild();
+
+        System.out.println("\n--- [START] Бенчмарк доступности: машин = " + CARS
+                + ", бронирований = " + CARS * RESERVATIONS_PER_CAR + " ---");
+
+        List<Long> legacy = measure("findAll + countOverlaps", 1, () -> ids(carRepository.findAll().stream()
+                .filter(car -> car.getStatus() == CarStatus.AVAILABLE)
+                .filter(car -> reservationRepository.countOverlaps(car.getId(), startAt, endAt) == 0)
+                .toList()));
+        List<Long> antiJoin = measure("anti-join (DATABASE)", RUNS,
+                () -> ids(carRepository.findAvailable(null, null, startAt, endAt)));
+
+        List<Car> candidates = carRepository.findAvailableCandidates(null, null);
+        List<Long> index = measure("ReservationIndex (INDEX), без загрузки кандидатов", RUNS,
+                () -> ids(candidates.stream()
+                        .filter(car -> !reservationIndex.hasOverlap(car.getId(), startAt, endAt))
+                        .toList()));
+        List<Long> bitmap = measure("SlotBitmapIndex (BITMAP), без загрузки кандидатов", RUNS,
+                () -> ids(slotBitmapIndex.filterFree(candidates, startAt, endAt)));
+
+        System.out.println("--- [END] Свободно машин: " + legacy.size() + " ---");
+        assertThat(legacy).isNotEmpty();
+        assertThat(antiJoin).isEqualTo(legacy);
+        assertThat(index).isEqualTo(legacy);
+        assertThat(bitmap).isEqualTo(legacy);
+    }
+
+    @AfterTransaction
+    void rebuildIndexesAfterRollback() {
+        // ReservationIndex перестраивает и битовую карту слотов (SlotBitmapIndex.onRebuilt)
+        reservationIndex.rebuild();
+    }
+
+    private void generateFleet(Instant around) {
+        Random random = new Random(42);
+        List<Object[]> cars = new ArrayList<>();
+        for (int i = 0; i < CARS; i++) {
+            String status = i % 10 == 0 ? "MAINTENANCE" : "AVAILABLE";
+            cars.add(new Object[]{1L + i % 7, "BENCH-" + i, 1L + i % 7, status});
+        }
+        jdbcTemplate.batchUpdate("insert into cars (model_id, plate_number, location_id, status) values (?, ?, ?, ?)", cars);
+
+        List<Long> carIds = jdbcTemplate.queryForList("select id from cars where plate_number like 'BENCH-%'", Long.class);
+        List<Object[]> reservations = new ArrayList<>();
+        for (Long carId : carIds) {
+            int slotMinutes = 4 * 24 * 60 / RESERVATIONS_PER_CAR;
+            for (int r = 0; r < RESERVATIONS_PER_CAR; r++) {
+                // Случайные, не выровненные по слотам интервалы в пределах ±2 суток от окна запроса;
+                // у одного автомобиля не пересекаются (это запрещает БД), поэтому каждый — в своей доле диапазона
+                int durationMinutes = 30 + random.nextInt(6 * 60);
+                int offsetMinutes = r * slotMinutes + random.nextInt(slotMinutes - durationMinutes) - 2 * 24 * 60;
+                Instant start = around.plus(Duration.ofMinutes(offsetMinutes));
+                Instant end = start.plus(Duration.ofMinutes(durationMinutes));
+                reservations.add(new Object[]{1L, carId, Timestamp.from(start), Timestamp.from(end), "ACTIVE",
+                        Timestamp.from(Instant.now())});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into reservations (user_id, car_id, start_at, end_at, status, created_at) " +
+                "values (?, ?, ?, ?, ?, ?)", reservations);
+    }
+
+    private static List<Long> measure(String name, int runs, Supplier<List<Long>> action) {
+        // Прогрев только для быстрых путей: исходный путь слишком медленный для повторов
+        List<Long> result = runs > 1 ? action.get() : null;
+        long started = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            result = action.get();
+        }
+        double millis = (System.nanoTime() - started) / 1_000_000.0 / runs;
+        System.out.printf("%-55s %10.3f ms%n", name, millis);
+        return result;
+    }
+
+    private static List<Long> ids(List<Car> cars) {
+        return cars.stream().map(Car::getId).sorted().toList();
+    }
+}
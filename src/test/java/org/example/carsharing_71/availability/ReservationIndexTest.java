@@ -0,0 +1,115 @@
+package org.example.carsharing_71.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ReservationIndex} и {@link CarTimeline} без контекста Spring: полуоткрытые интервалы
+ * (касание границ — не пересечение), вложенные и пересекающиеся интервалы через префиксный
+ * максимум концов, удаление после отмены/архивации и copy-on-write шкал.
+ */
+class ReservationIndexTest {
+    private static final Instant T0 = Instant.parse("2030-01-01T10:00:00Z");
+    private static final long CAR = 7L;
+
+    private final ReservationIndex index = new ReservationIndex(null);
+
+    @Test
+    void touchingIntervals_doNotOverlap() {
+        index.add(1L, CAR, at(0), at(60));
+
+        assertThat(index.hasOverlap(CAR, at(60), at(120))).isFalse();
+        assertThat(index.hasOverlap(CAR, at(-60), at(0))).isFalse();
+        assertThat(index.hasOverlap(CAR, at(59), at(120))).isTrue();
+        assertThat(index.hasOverlap(CAR, at(-60), at(1))).isTrue();
+        // Граница в микросекундах: на 1 мкс внутрь — уже пересечение
+        assertThat(index.hasOverlap(CAR, T0.plus(Duration.ofMinutes(60)).minusNanos(1_000), at(120))).isTrue();
+    }
+
+    @Test
+    void nestedAndOverlappingIntervals_areFoundByPrefixMax() {
+        // Длинный интервал начинается раньше короткого и целиком его накрывает
+        index.add(1L, CAR, at(0), at(600));
+        index.add(2L, CAR, at(100), at(110));
+        index.add(3L, CAR, at(700), at(760));
+
+        // Окно после конца короткого, но внутри длинного: ближайший по началу интервал (2) его не покрывает
+        assertThat(index.hasOverlap(CAR, at(200), at(210))).isTrue();
+        assertThat(index.hasOverlap(CAR, at(600), at(700))).isFalse();
+        assertThat(index.hasOverlap(CAR, at(650), at(701))).isTrue();
+        assertThat(index.hasOverlap(CAR, at(-10), at(0))).isFalse();
+        assertThat(index.hasOverlap(CAR, at(760), at(800))).isFalse();
+        assertThat(index.hasOverlap(CAR + 1, at(0), at(600))).isFalse();
+        assertThat(index.busyCarIds(at(200), at(210))).containsExactly(CAR);
+    }
+
+    @Test
+    void unsortedInput_isSortedAndEqualsIncrementalBuild() {
+        CarTimeline built = CarTimeline.of(new long[]{3, 1, 2},
+                new long[]{micros(700), micros(0), micros(100)},
+                new long[]{micros(760), micros(600), micros(110)});
+        index.add(2L, CAR, at(100), at(110));
+        index.add(3L, CAR, at(700), at(760));
+        index.add(1L, CAR, at(0), at(600));
+
+        assertThat(built).isEqualTo(index.timeline(CAR));
+        assertThat(built.overlaps(micros(200), micros(210))).isTrue();
+        assertThat(built.overlaps(micros(600), micros(700))).isFalse();
+    }
+
+    @Test
+    void removal_freesWindowAndDropsEmptyTimeline() {
+        index.add(1L, CAR, at(0), at(600));
+        index.add(2L, CAR, at(100), at(110));
+
+        // Отмена длинного интервала: префиксный максимум пересчитывается, короткий остаётся
+        index.remove(1L, CAR);
+        assertThat(index.hasOverlap(CAR, at(200), at(210))).isFalse();
+        assertThat(index.hasOverlap(CAR, at(105), at(106))).isTrue();
+
+        // Архивация последнего интервала убирает шкалу автомобиля целиком
+        index.remove(2L, CAR);
+        index.remove(99L, CAR);
+        assertThat(index.hasOverlap(CAR, at(0), at(600))).isFalse();
+        assertThat(index.carCount()).isZero();
+        assertThat(index.intervalCount()).isZero();
+    }
+
+    @Test
+    void repeatedAdd_isIdempotentById() {
+        index.add(1L, CAR, at(0), at(60));
+        index.add(1L, CAR, at(0), at(60));
+
+        assertThat(index.intervalCount()).isEqualTo(1);
+    }
+
+    @Test
+    void changes_replaceTimelineAndKeepPublishedSnapshots() {
+        index.add(1L, CAR, at(0), at(60));
+        CarTimeline before = index.timeline(CAR);
+
+        index.add(2L, CAR, at(120), at(180));
+        index.remove(1L, CAR);
+
+        // Ранее прочитанная шкала не меняется: читатели видят согласованный снимок без блокировок
+        assertThat(before.size()).isEqualTo(1);
+        assertThat(before.overlaps(micros(0), micros(60))).isTrue();
+        assertThat(before.overlaps(micros(120), micros(180))).isFalse();
+        CarTimeline after = index.timeline(CAR);
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.overlaps(micros(0), micros(60))).isFalse();
+        assertThat(after.overlaps(micros(120), micros(180))).isTrue();
+    }
+
+    private static Instant at(long minutes) {
+        return T0.plus(Duration.ofMinutes(minutes));
+    }
+
+    private static long micros(long minutes) {
+        return CarTimeline.toMicros(at(minutes));
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.carsharing_71.availability;
+
+import org.example.carsharing_71.domain.Car;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link SlotBitmapIndex} без контекста Spring: маски слов на границе 64 слотов, интервалы,
+ * заканчивающиеся ровно на границе слота, частичные крайние слоты, скользящее начало суток
+ * и окна за горизонтом. Каждый ответ сверяется с точной проверкой по {@link ReservationIndex},
+ * а счётчик обращений к шкале показывает, когда ответ дала одна карта.
+ */
+class SlotBitmapIndexTest {
+    /** Начало суток горизонта; при слоте 15 минут слот 64 (граница слов) — это 16:00. */
+    private static final Instant DAY = Instant.parse("2030-01-01T00:00:00Z");
+    private static final long CAR = 7L;
+
+    private final MutableClock clock = new MutableClock(DAY.plus(Duration.ofHours(9)));
+    private final CountingIndex index = new CountingIndex();
+    private final SlotBitmapIndex bitmap = new SlotBitmapIndex(index, true, 15, 2, 4096, clock);
+
+    @Test
+    void intervalAcrossWordBoundary_setsBitsInBothWords() {
+        // Слоты 60..70: 15:00–17:45, переход из слова 0 в слово 1
+        index.add(1L, CAR, at(15, 0), at(17, 45));
+
+        assertBusyFromBitmap(at(15, 45), at(16, 0));
+        assertBusyFromBitmap(at(16, 0), at(16, 15));
+        assertBusyFromBitmap(at(17, 30), at(17, 45));
+        assertFreeFromBitmap(at(14, 45), at(15, 0));
+        assertFreeFromBitmap(at(17, 45), at(18, 0));
+        // Окно, начинающееся в слове 0 и заканчивающееся в слове 2, тоже пересекает интервал
+        assertBusyFromBitmap(at(8, 0), at(40, 0));
+        assertMatchesIndexEverywhere();
+    }
+
+    @Test
+    void intervalEndingOnSlotBoundary_doesNotMarkNextSlot() {
+        // Ровно до 16:00 — последний занятый слот 63, старшее слово не затронуто
+        index.add(1L, CAR, at(10, 0), at(16, 0));
+
+        assertFreeFromBitmap(at(16, 0), at(16, 15));
+        assertFreeFromBitmap(at(16, 0), at(23, 0));
+        assertFreeFromBitmap(at(9, 45), at(10, 0));
+        assertBusyFromBitmap(at(15, 45), at(16, 0));
+        assertMatchesIndexEverywhere();
+    }
+
+    @Test
+    void partialSlots_areResolvedByTheIndex() {
+        // Бронь занимает только часть слота 10:00–10:15
+        index.add(1L, CAR, at(10, 5), at(10, 10));
+
+        // Окно целиком покрывает занятый слот — ответ даёт карта
+        assertBusyFromBitmap(at(10, 0), at(10, 15));
+        assertBusyFromBitmap(at(9, 0), at(11, 0));
+
+        // Занятый слот граничный для окна — точная проверка по индексу
+        index.lookups = 0;
+        assertThat(isFree(at(10, 10), at(10, 30))).isTrue();
+        assertThat(isFree(at(9, 30), at(10, 5))).isTrue();
+        assertThat(isFree(at(10, 9), at(10, 30))).isFalse();
+        assertThat(isFree(at(9, 50), at(10, 6))).isFalse();
+        assertThat(index.lookups).isEqualTo(4);
+        assertMatchesIndexEverywhere();
+    }
+
+    @Test
+    void newDay_rollsOriginAndPicksUpIntervalsEnteringHorizon() {
+        Car car = new Car();
+        car.setId(CAR);
+        index.add(1L, CAR, at(10, 0), at(11, 0));
+        // Третьи сутки: за горизонтом в 2 дня, в карту не попадают
+        index.add(2L, CAR, at(58, 0), at(59, 0));
+        assertThat(bitmap.getOrigin()).isEqualTo(DAY);
+
+        clock.now = DAY.plus(Duration.ofHours(25));
+        assertThat(bitmap.filterFree(List.of(car), at(58, 0), at(58, 30))).isEmpty();
+
+        assertThat(bitmap.getOrigin()).isEqualTo(DAY.plus(Duration.ofDays(1)));
+        index.lookups = 0;
+        assertBusyFromBitmap(at(58, 0), at(58, 15));
+        // Прошедшие сутки теперь до начала горизонта — ответ по индексу
+        assertThat(isFree(at(10, 0), at(11, 0))).isFalse();
+        assertThat(isFree(at(11, 0), at(12, 0))).isTrue();
+        assertThat(index.lookups).isEqualTo(2);
+    }
+
+    @Test
+    void windowPastHorizon_isCheckedByTheIndex() {
+        index.add(1L, CAR, at(60, 0), at(61, 0));
+        assertThat(bitmap.carCount()).isZero();
+
+        index.lookups = 0;
+        assertThat(isFree(at(60, 30), at(62, 0))).isFalse();
+        assertThat(isFree(at(61, 0), at(62, 0))).isTrue();
+        // Окно начинается в горизонте, но заканчивается за ним
+        assertThat(isFree(at(47, 0), at(60, 15))).isFalse();
+        assertThat(index.lookups).isEqualTo(3);
+    }
+
+    @Test
+    void cancellation_clearsBitmap() {
+        index.add(1L, CAR, at(15, 0), at(17, 45));
+        assertThat(bitmap.carCount()).isEqualTo(1);
+
+        index.remove(1L, CAR);
+
+        assertThat(bitmap.carCount()).isZero();
+        assertFreeFromBitmap(at(15, 0), at(17, 45));
+    }
+
+    private void assertBusyFromBitmap(Instant startAt, Instant endAt) {
+        index.lookups = 0;
+        assertThat(isFree(startAt, endAt)).as("busy %s..%s", startAt, endAt).isFalse();
+        assertThat(index.lookups).as("answered by bitmap %s..%s", startAt, endAt).isZero();
+    }
+
+    private void assertFreeFromBitmap(Instant startAt, Instant endAt) {
+        index.lookups = 0;
+        assertThat(isFree(startAt, endAt)).as("free %s..%s", startAt, endAt).isTrue();
+        assertThat(index.lookups).as("answered by bitmap %s..%s", startAt, endAt).isZero();
+    }
+
+    /** Перебор окон с шагом 5 минут по всему горизонту: ответ карты совпадает с индексом. */
+    private void assertMatchesIndexEverywhere() {
+        CarTimeline timeline = index.timeline(CAR);
+        for (long from = 0; from < 2 * 24 * 60; from += 5) {
+            for (long length : new long[]{5, 15, 20, 60, 245, 24 * 60}) {
+                long start = CarTimeline.toMicros(DAY.plus(Duration.ofMinutes(from)));
+                long end = CarTimeline.toMicros(DAY.plus(Duration.ofMinutes(from + length)));
+                assertThat(bitmap.isFree(CAR, start, end))
+                        .as("window +%d min, %d min", from, length)
+                        .isEqualTo(!timeline.overlaps(start, end));
+            }
+        }
+    }
+
+    private boolean isFree(Instant startAt, Instant endAt) {
+        return bitmap.isFree(CAR, CarTimeline.toMicros(startAt), CarTimeline.toMicros(endAt));
+    }
+
+    private static Instant at(int hours, int minutes) {
+        return DAY.plus(Duration.ofHours(hours).plusMinutes(minutes));
+    }
+
+    /** Индекс без БД, считающий точные проверки шкалы. */
+    private static final class CountingIndex extends ReservationIndex {
+        int lookups;
+
+        CountingIndex() {
+            super(null);
+        }
+
+        @Override
+        CarTimeline timeline(Long carId) {
+            lookups++;
+            return super.timeline(carId);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.carsharing_71.cache;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharing_71.api.dto.CarDto;
+import org.example.carsharing_71.domain.Location;
+import org.example.carsharing_71.repository.LocationRepository;
+import org.example.carsharing_71.service.CarService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Кэш справочников: повторный запрос каталога читает только таблицу cars,
+ * а изменение локации через JPA сразу видно в каталоге. В кэше лежат копии, а не сущности
+ * загрузившего потока, поэтому несохранённые изменения в него не попадают.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Transactional
+public class ReferenceDataCacheIT {
+    @Autowired
+    private CarService carService;
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        referenceDataCache.invalidateAll();
+    }
+
+    @Test
+    void catalog_secondCallReadsOnlyCars() {
+        long cold = countStatements();
+        long warm = countStatements();
+
+        System.out.println("\n--- SQL-запросов на каталог: холодный кэш = " + cold + ", тёплый = " + warm
+                + ", статистика = " + referenceDataCache.stats() + " ---");
+        assertThat(cold).isEqualTo(3);   // cars + car_models + locations
+        assertThat(warm).isEqualTo(1);   // только cars
+        assertThat(carService.catalog(null, null, null)).extracting(CarDto::getId)
+                .containsExactlyElementsOf(carService.list(null, null, null).stream().map(car -> car.getId()).toList());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> locations = (Map<String, Object>) referenceDataCache.stats().get("locations");
+        assertThat((Long) locations.get("hits")).isPositive();
+    }
+
+    @Test
+    void catalog_seesLocationRenameAfterUpdate() {
+        carService.catalog(1L, null, null);
+        Location location = locationRepository.findById(1L).orElseThrow();
+        location.setName("Renamed");
+        entityManager.flush();
+
+        List<CarDto> cars = carService.catalog(1L, null, null);
+
+        assertThat(cars).isNotEmpty().allMatch(car -> car.getLocationName().equals("Renamed"));
+    }
+
+    @Test
+    void cache_holdsSnapshotsNotManagedEntities() {
+        LocationSnapshot cached = referenceDataCache.location(1L);
+        Location managed = locationRepository.findById(1L).orElseThrow();
+        managed.setName("Not flushed");
+
+        assertThat(referenceDataCache.location(1L)).isSameAs(cached);
+        assertThat(referenceDataCache.location(1L).name()).isNotEqualTo("Not flushed");
+        assertThatThrownBy(() -> referenceDataCache.carModel(Long.MAX_VALUE))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    private long countStatements() {
+        entityManager.clear();
+        statistics.clear();
+        carService.catalog(null, null, null);
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.carsharing_71.controller;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.domain.Reservation;
+import org.example.carsharing_71.domain.ReservationStatus;
+import org.example.carsharing_71.domain.User;
+import org.example.carsharing_71.repository.CarModelRepository;
+import org.example.carsharing_71.repository.LocationRepository;
+import org.example.carsharing_71.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Регрессионный тест на N+1 для {@code GET /api/cars/availability}:
+ * количество SQL‑запросов не должно зависеть от размера парка.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Transactional
+public class AvailabilityQueryCountIT {
+    private static final Instant START_AT = Instant.parse("2030-01-01T10:00:00Z");
+    private static final Instant END_AT = Instant.parse("2030-01-01T14:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private CarModelRepository carModelRepository;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void availability_statementCountDoesNotGrowWithFleet() throws Exception {
+        long before = countStatements();
+
+        // Увеличиваем парк в 20 раз: половина машин занята пересекающимися бронированиями
+        addCars(200);
+
+        long after = countStatements();
+        System.out.println("\n--- SQL-запросов на /api/cars/availability: до = " + before + ", после = " + after + " ---");
+        assertThat(after).isEqualTo(before);
+    }
+
+    private long countStatements() throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        mockMvc.perform(get("/api/cars/availability")
+                        .with(user("user"))
+                        .param("startAt", START_AT.toString())
+                        .param("endAt", END_AT.toString()))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addCars(int count) {
+        User user = userRepository.findByLogin("user").orElseThrow();
+        for (int i = 0; i < count; i++) {
+            Car car = new Car();
+            car.setCarModel(carModelRepository.findById(1L + i % 2).orElseThrow());
+            car.setLocation(locationRepository.findById(1L + i % 2).orElseThrow());
+            car.setPlateNumber("QC-" + i);
+            car.setStatus(CarStatus.AVAILABLE);
+            entityManager.persist(car);
+
+            if (i % 2 == 0) {
+                Reservation reservation = new Reservation();
+                reservation.setUser(user);
+                reservation.setCar(car);
+                reservation.setStartAt(START_AT.minusSeconds(3600));
+                reservation.setEndAt(START_AT.plusSeconds(3600));
+                reservation.setStatus(ReservationStatus.ACTIVE);
+                entityManager.persist(reservation);
+            }
+        }
+    }
+}
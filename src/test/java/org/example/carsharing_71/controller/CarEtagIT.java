@@ -0,0 +1,103 @@
+package org.example.carsharing_71.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.repository.UserRepository;
+import org.example.carsharing_71.service.ReservationService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Условные GET каталога: повторный опрос без изменений получает 304 без SQL,
+ * а бронирование меняет ETag парка и забронированного автомобиля, но не остальных.
+ * Тест без общей транзакции: версии поднимаются после коммита.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class CarEtagIT {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void unchangedPoll_isNotModifiedWithoutSql() throws Exception {
+        String etag = etag("/api/cars");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/cars").with(user("user")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        System.out.println("\n--- 304 на /api/cars: SQL-запросов = " + statistics.getPrepareStatementCount() + " ---");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void reservation_changesFleetAndOwnCarEtagOnly() throws Exception {
+        List<Car> available = carRepository.findAll().stream()
+                .filter(car -> car.getStatus() == CarStatus.AVAILABLE)
+                .toList();
+        Car reserved = available.get(0);
+        Car other = available.get(1);
+        String fleetBefore = etag("/api/cars");
+        String reservedBefore = etag("/api/cars/" + reserved.getId());
+        String otherBefore = etag("/api/cars/" + other.getId());
+
+        ReservationCreateRequest request = new ReservationCreateRequest();
+        request.setUserId(userRepository.findByLogin("user").orElseThrow().getId());
+        request.setCarId(reserved.getId());
+        request.setStartAt(Instant.parse("2032-05-01T10:00:00Z"));
+        request.setEndAt(Instant.parse("2032-05-01T12:00:00Z"));
+        reservationService.create(request);
+
+        assertThat(etag("/api/cars")).isNotEqualTo(fleetBefore);
+        assertThat(etag("/api/cars/" + reserved.getId())).isNotEqualTo(reservedBefore);
+        assertThat(etag("/api/cars/" + other.getId())).isEqualTo(otherBefore);
+        mockMvc.perform(get("/api/cars/" + other.getId()).with(user("user"))
+                        .header(HttpHeaders.IF_NONE_MATCH, otherBefore))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/cars/" + reserved.getId()).with(user("user"))
+                        .header(HttpHeaders.IF_NONE_MATCH, reservedBefore))
+                .andExpect(status().isOk());
+    }
+
+    private String etag(String url) throws Exception {
+        List<String> etags = mockMvc.perform(get(url).with(user("user")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeaders(HttpHeaders.ETAG);
+        assertThat(etags).hasSize(1);
+        return etags.get(0);
+    }
+}
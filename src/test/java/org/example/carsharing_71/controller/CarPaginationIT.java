@@ -0,0 +1,92 @@
+package org.example.carsharing_71.controller;
+
+import org.example.carsharing_71.api.dto.CarDto;
+import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.domain.Car;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset-пагинация каталога: обход всех страниц по курсору должен вернуть каждый автомобиль
+ * ровно один раз и в заявленном порядке.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Transactional
+public class CarPaginationIT {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CarRepository carRepository;
+
+    @Test
+    void cars_pagesById_coverWholeCatalog() throws Exception {
+        List<Long> expected = carRepository.findAll().stream().map(Car::getId).sorted().toList();
+
+        List<Long> actual = walk("/api/cars", "id").stream().map(CarDto::getId).toList();
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void cars_pagesByPlate_coverWholeCatalog() throws Exception {
+        List<Long> expected = carRepository.findAll().stream()
+                .sorted(Comparator.comparing(Car::getPlateNumber).thenComparing(Car::getId))
+                .map(Car::getId)
+                .toList();
+
+        List<Long> actual = walk("/api/cars", "plateNumber").stream().map(CarDto::getId).toList();
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void cars_invalidCursor_returns422() throws Exception {
+        mockMvc.perform(get("/api/cars").with(user("user")).param("cursor", "garbage"))
+                .andExpect(status().isUnprocessableContent());
+    }
+
+    private List<CarDto> walk(String path, String sort) throws Exception {
+        List<CarDto> result = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get(path).with(user("user"))
+                    .param("limit", "2")
+                    .param("sort", sort);
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult response = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            CarDto[] page = objectMapper.readValue(response.getResponse().getContentAsString(), CarDto[].class);
+            assertThat(page.length).isLessThanOrEqualTo(2);
+            result.addAll(List.of(page));
+            cursor = response.getResponse().getHeader(CarApiController.NEXT_CURSOR_HEADER);
+            pages++;
+        } while (cursor != null);
+        System.out.println("\n--- " + path + " sort=" + sort + ": страниц = " + pages + ", автомобилей = " + result.size() + " ---");
+        return result;
+    }
+}
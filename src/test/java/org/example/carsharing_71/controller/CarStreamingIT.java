@@ -0,0 +1,59 @@
+package org.example.carsharing_71.controller;
+
+import org.example.carsharing_71.api.dto.CarDto;
+import org.example.carsharing_71.service.CarService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Потоковая выгрузка каталога должна отдавать те же данные, что и обычный список,
+ * при этом сбрасывая ответ порциями (batch-size уменьшен, чтобы порций было несколько).
+ */
+@SpringBootTest(properties = "carsharing.export.batch-size=3")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+public class CarStreamingIT {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CarService carService;
+
+    @Test
+    void carsStream_matchesCatalogList() throws Exception {
+        List<Long> expected = carService.list(null, null, 2).stream().map(car -> car.getId()).sorted().toList();
+
+        MvcResult started = mockMvc.perform(get("/api/cars")
+                        .with(user("user"))
+                        .param("stream", "true")
+                        .param("seats", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String json = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<Long> actual = Arrays.stream(objectMapper.readValue(json, CarDto[].class)).map(CarDto::getId).toList();
+        System.out.println("\n--- Потоковая выгрузка: автомобилей = " + actual.size() + " ---");
+        assertThat(actual).isNotEmpty().isEqualTo(expected);
+    }
+}
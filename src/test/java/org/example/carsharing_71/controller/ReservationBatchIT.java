@@ -0,0 +1,128 @@
+package org.example.carsharing_71.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Пакетное бронирование: результат по каждому элементу в порядке запроса, пересечения проверяются
+ * одним запросом на пакет, бронирования вставляются JDBC-батчами (число SQL не растёт с размером пакета).
+ * Тест без общей транзакции: учитываются и запросы, выполняемые при коммите.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "carsharing.reservation.batch.max-size=60"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class ReservationBatchIT {
+    private static final int CARS = 40;
+    private static final String START_AT = "2035-03-01T10:00:00Z";
+    private static final String END_AT = "2035-03-01T12:00:00Z";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void batch_reportsEachItemAndInsertsInJdbcBatches() throws Exception {
+        List<Long> carIds = generateCars();
+        // Первый автомобиль свободен по статусу, но уже занят на это окно
+        jdbcTemplate.update("insert into reservations (user_id, car_id, start_at, end_at, status, created_at) " +
+                "values (1, ?, timestamp '2035-03-01 09:00:00', timestamp '2035-03-01 11:00:00', 'ACTIVE', now())",
+                carIds.get(0));
+        List<String> items = new ArrayList<>();
+        for (Long carId : carIds) {
+            items.add(item(carId, START_AT, END_AT));
+        }
+        items.add(item(carIds.get(1), "2035-03-02T10:00:00Z", "2035-03-02T12:00:00Z"));
+        items.add(item(999_999L, START_AT, END_AT));
+        items.add(item(carIds.get(2), END_AT, START_AT));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(post("/api/reservations/batch").with(user("user"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch(items)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(CARS + 3))
+                .andExpect(jsonPath("$[0].result").value("REJECTED"))
+                .andExpect(jsonPath("$[0].status").value(422))
+                .andExpect(jsonPath("$[0].error").value("Car has overlapping reservation"))
+                .andExpect(jsonPath("$[1].result").value("CREATED"))
+                .andExpect(jsonPath("$[1].reservation.carId").value(carIds.get(1)))
+                .andExpect(jsonPath("$[" + CARS + "].error").value("Car is not available"))
+                .andExpect(jsonPath("$[" + (CARS + 1) + "].status").value(404))
+                .andExpect(jsonPath("$[" + (CARS + 2) + "].error").value("Invalid time range"));
+
+        long statements = statistics.getPrepareStatementCount();
+        int queries = statistics.getQueries().length;
+        System.out.println("\n--- Пакет из " + (CARS + 3) + " бронирований: вставок = " + statistics.getEntityInsertCount()
+                + ", SQL-запросов = " + statements + ", JPQL-запросов = " + queries + " ---");
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(CARS - 1);
+        assertThat(statements).isLessThan(CARS / 2);
+        Integer active = jdbcTemplate.queryForObject("select count(*) from reservations r join cars c on c.id = r.car_id " +
+                "where c.plate_number like 'BATCH-%' and r.status = 'ACTIVE'", Integer.class);
+        Integer reserved = jdbcTemplate.queryForObject(
+                "select count(*) from cars where plate_number like 'BATCH-%' and status = 'RESERVED'", Integer.class);
+        assertThat(active).isEqualTo(CARS);
+        assertThat(reserved).isEqualTo(CARS - 1);
+    }
+
+    @Test
+    void oversizedBatch_is422() throws Exception {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 61; i++) {
+            items.add(item(1L, START_AT, END_AT));
+        }
+
+        mockMvc.perform(post("/api/reservations/batch").with(user("user"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch(items)))
+                .andExpect(status().isUnprocessableContent());
+    }
+
+    private List<Long> generateCars() {
+        List<Object[]> cars = new ArrayList<>();
+        for (int i = 0; i < CARS; i++) {
+            cars.add(new Object[]{1L + i % 7, "BATCH-" + i, 1L + i % 7, "AVAILABLE"});
+        }
+        jdbcTemplate.batchUpdate("insert into cars (model_id, plate_number, location_id, status) values (?, ?, ?, ?)", cars);
+        return jdbcTemplate.queryForList("select id from cars where plate_number like 'BATCH-%' order by id", Long.class);
+    }
+
+    private static String item(Long carId, String startAt, String endAt) {
+        return "{\"userId\":1,\"carId\":" + carId + ",\"startAt\":\"" + startAt + "\",\"endAt\":\"" + endAt + "\"}";
+    }
+
+    private static String batch(List<String> items) {
+        StringJoiner joiner = new StringJoiner(",", "{\"reservations\":[", "]}");
+        items.forEach(joiner::add);
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.carsharing_71.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.availability.AvailabilityChecker;
+import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.service.ReservationService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Отмена бронирования и список активных бронирований пользователя: страницы по курсору
+ * читаются одним запросом без N+1, отмена освобождает автомобиль и убирает интервал из индекса.
+ * Тест без общей транзакции: индекс обновляется после коммита.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "carsharing.availability.engine=INDEX"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class ReservationCancellationIT {
+    private static final Instant AROUND = Instant.parse("2038-06-01T10:00:00Z");
+    private static final int RESERVATIONS = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private AvailabilityChecker availabilityChecker;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void activeReservations_arePagedByCursorWithoutNPlusOne() throws Exception {
+        List<Long> created = reserve("PAGE-");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> listed = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            MockHttpServletRequestBuilder request = get("/api/reservations/active").param("limit", "3");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MockHttpServletResponse response = mockMvc.perform(request.with(user("user")))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            JsonNode page = objectMapper.readTree(response.getContentAsString());
+            page.forEach(row -> listed.add(row.get("id").asLong()));
+            // Пользователь по логину и сама страница; автомобили и пользователи — тем же запросом
+            assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+            assertThat(statistics.getEntityFetchCount()).isZero();
+            cursor = response.getHeader(CarApiController.NEXT_CURSOR_HEADER);
+            pages++;
+        } while (cursor != null);
+
+        System.out.println("\n--- Активные бронирования: страниц = " + pages + ", записей = " + listed.size() + " ---");
+        assertThat(listed).containsSubsequence(created).doesNotHaveDuplicates();
+        assertThat(pages).isGreaterThanOrEqualTo(RESERVATIONS / 3 + 1);
+    }
+
+    @Test
+    void cancel_releasesCarAndIndex() throws Exception {
+        Long reservationId = reserve("CANCEL-").get(0);
+        Long carId = jdbcTemplate.queryForObject("select car_id from reservations where id = ?", Long.class, reservationId);
+        assertThat(availabilityChecker.hasOverlap(carId, AROUND, AROUND.plus(Duration.ofHours(1)))).isTrue();
+
+        mockMvc.perform(post("/api/reservations/{id}/cancel", reservationId).with(user("student")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/reservations/{id}/cancel", reservationId).with(user("user")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED"));
+        mockMvc.perform(post("/api/reservations/{id}/cancel", reservationId).with(user("user")))
+                .andExpect(status().isUnprocessableContent());
+        mockMvc.perform(post("/api/reservations/{id}/cancel", Long.MAX_VALUE).with(user("user")))
+                .andExpect(status().isNotFound());
+
+        assertThat(carRepository.findById(carId).orElseThrow().getStatus()).isEqualTo(CarStatus.AVAILABLE);
+        assertThat(availabilityChecker.hasOverlap(carId, AROUND, AROUND.plus(Duration.ofHours(1)))).isFalse();
+        String active = mockMvc.perform(get("/api/reservations/active").with(user("user")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(objectMapper.readTree(active).findValues("id")).noneMatch(id -> id.asLong() == reservationId);
+    }
+
+    /**
+     * Бронирует по новому автомобилю на каждое бронирование; возвращает id в порядке начала.
+     */
+    private List<Long> reserve(String prefix) {
+        List<Object[]> cars = new ArrayList<>();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            cars.add(new Object[]{1L + i % 7, prefix + i, 1L + i % 7, "AVAILABLE"});
+        }
+        jdbcTemplate.batchUpdate("insert into cars (model_id, plate_number, location_id, status) values (?, ?, ?, ?)", cars);
+        List<Long> carIds = jdbcTemplate.queryForList("select id from cars where plate_number like ? order by id",
+                Long.class, prefix + "%");
+        List<Long> reservationIds = new ArrayList<>();
+        for (int i = 0; i < carIds.size(); i++) {
+            ReservationCreateRequest request = new ReservationCreateRequest();
+            request.setUserId(reservationService.userIdOf("user"));
+            request.setCarId(carIds.get(i));
+            request.setStartAt(AROUND.plus(Duration.ofMinutes(i)));
+            request.setEndAt(AROUND.plus(Duration.ofHours(2)));
+            reservationIds.add(reservationService.create(request).getId());
+        }
+        return reservationIds;
+    }
+}
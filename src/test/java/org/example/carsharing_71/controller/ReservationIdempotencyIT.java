@@ -0,0 +1,188 @@
+package org.example.carsharing_71.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.api.dto.ReservationDto;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.repository.IdempotencyRecordRepository;
+import org.example.carsharing_71.repository.ReservationRepository;
+import org.example.carsharing_71.service.ReservationIdempotency;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Idempotency-Key для POST /api/reservations: повтор возвращает сохранённый ответ, не трогая
+ * таблицы бронирований; ключ с другим телом отклоняется; неуспешный запрос ключ не занимает;
+ * ключ, оставшийся незавершённым после созданного бронирования, достраивается по нему.
+ * Тест без общей транзакции: ключ захватывается и завершается в собственных транзакциях.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class ReservationIdempotencyIT {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void retryWithSameKey_replaysStoredResponseWithoutReserving() throws Exception {
+        Long carId = availableCars().get(0).getId();
+        String body = body(carId, "2037-04-01T10:00:00Z", "2037-04-01T12:00:00Z");
+        String first = create("retry-1", body)
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"))
+                .andReturn().getResponse().getContentAsString();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        String replay = create("retry-1", body)
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn().getResponse().getContentAsString();
+
+        System.out.println("\n--- Повтор по Idempotency-Key: SQL-запросов = " + statistics.getPrepareStatementCount() + " ---");
+        assertThat(replay).isEqualTo(first);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        Integer reservations = jdbcTemplate.queryForObject("select count(*) from reservations " +
+                "where car_id = ? and start_at = timestamp '2037-04-01 10:00:00'", Integer.class, carId);
+        String stored = jdbcTemplate.queryForObject(
+                "select response from reservation_idempotency_keys where idempotency_key = 'retry-1'", String.class);
+        assertThat(reservations).isEqualTo(1);
+        assertThat(stored).contains("\"carId\":" + carId);
+    }
+
+    @Test
+    void sameKeyWithDifferentBody_is422() throws Exception {
+        Long carId = availableCars().get(1).getId();
+        create("reuse-1", body(carId, "2037-05-01T10:00:00Z", "2037-05-01T12:00:00Z"))
+                .andExpect(status().isCreated());
+
+        create("reuse-1", body(carId, "2037-05-02T10:00:00Z", "2037-05-02T12:00:00Z"))
+                .andExpect(status().isUnprocessableContent());
+    }
+
+    @Test
+    void sameKeyFromAnotherUser_isIndependent() throws Exception {
+        List<Car> cars = availableCars();
+        create("user", "shared-1", body(cars.get(3).getId(), "2037-07-01T10:00:00Z", "2037-07-01T12:00:00Z"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"));
+
+        Long otherCarId = cars.get(4).getId();
+        create("admin", "shared-1", body(otherCarId, "2037-07-01T10:00:00Z", "2037-07-01T12:00:00Z"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"))
+                .andExpect(jsonPath("$.carId").value(otherCarId));
+
+        Integer keys = jdbcTemplate.queryForObject(
+                "select count(*) from reservation_idempotency_keys where idempotency_key = 'shared-1'", Integer.class);
+        assertThat(keys).isEqualTo(2);
+    }
+
+    @Test
+    void failedRequest_releasesKey() throws Exception {
+        create("failed-1", body(999_999L, "2037-06-01T10:00:00Z", "2037-06-01T12:00:00Z"))
+                .andExpect(status().isNotFound());
+
+        Long carId = availableCars().get(2).getId();
+        create("failed-1", body(carId, "2037-06-01T10:00:00Z", "2037-06-01T12:00:00Z"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"))
+                .andExpect(jsonPath("$.carId").value(carId));
+    }
+
+    @Test
+    void keyLeftPendingAfterReservation_isCompletedFromReservation() throws Exception {
+        Long carId = availableCars().get(0).getId();
+        String body = body(carId, "2037-08-01T10:00:00Z", "2037-08-01T12:00:00Z");
+        ReservationDto first = objectMapper.readValue(create("crash-1", body)
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(), ReservationDto.class);
+        ReservationCreateRequest request = objectMapper.readValue(body, ReservationCreateRequest.class);
+
+        // Экземпляр упал после коммита бронирования, не записав ответ; повтор приходит на другой экземпляр
+        // (пустой кэш) — и пока захват свежий, и когда он уже считается брошенным
+        for (Duration claimedAgo : List.of(Duration.ofSeconds(5), Duration.ofMinutes(5))) {
+            jdbcTemplate.update("update reservation_idempotency_keys set response = null, created_at = ? " +
+                    "where idempotency_key = 'crash-1'", Timestamp.from(Instant.now().minus(claimedAgo)));
+            ReservationIdempotency restarted = new ReservationIdempotency(idempotencyRecordRepository,
+                    reservationRepository, objectMapper, transactionManager, 100, Duration.ofHours(24), Duration.ofMinutes(1));
+
+            ReservationIdempotency.Result result = restarted.execute("crash-1", "user", request, () -> {
+                throw new AssertionError("Reservation must not be repeated");
+            });
+
+            assertThat(result.replayed()).isTrue();
+            assertThat(result.reservation().getId()).isEqualTo(first.getId());
+        }
+        Integer reservations = jdbcTemplate.queryForObject("select count(*) from reservations " +
+                "where car_id = ? and start_at = timestamp '2037-08-01 10:00:00'", Integer.class, carId);
+        String stored = jdbcTemplate.queryForObject(
+                "select response from reservation_idempotency_keys where idempotency_key = 'crash-1'", String.class);
+        assertThat(reservations).isEqualTo(1);
+        assertThat(stored).contains("\"id\":" + first.getId());
+    }
+
+    private ResultActions create(String key, String body) throws Exception {
+        return create("user", key, body);
+    }
+
+    private ResultActions create(String login, String key, String body) throws Exception {
+        return mockMvc.perform(post("/api/reservations").with(user(login))
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private List<Car> availableCars() {
+        return carRepository.findAll().stream()
+                .filter(car -> car.getStatus() == CarStatus.AVAILABLE)
+                .toList();
+    }
+
+    private static String body(Long carId, String startAt, String endAt) {
+        return "{\"userId\":1,\"carId\":" + carId + ",\"startAt\":\"" + startAt + "\",\"endAt\":\"" + endAt + "\"}";
+    }
+}
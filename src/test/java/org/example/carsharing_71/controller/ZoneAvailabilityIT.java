@@ -0,0 +1,133 @@
+package org.example.carsharing_71.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.Reservation;
+import org.example.carsharing_71.repository.LocationZoneRepository;
+import org.example.carsharing_71.repository.projection.ZoneLocation;
+import org.example.carsharing_71.service.CarService;
+import org.example.carsharing_71.service.ReservationService;
+import org.example.carsharing_71.service.ZoneAvailability;
+import org.example.carsharing_71.service.ZoneService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Доступность по зонам: сводка из индекса зон должна совпадать с подсчётом по локациям,
+ * а сама сводка по всем зонам — выполняться одним SQL‑запросом.
+ * Окно совпадает с бронированием автомобиля 1 из seed data (Пергамский музей, зоны BER-CENTER и BER).
+ * Бронирование и отмена меняют статус автомобиля — сводка зоны должна следовать за ним без пересборки индекса.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+public class ZoneAvailabilityIT {
+    private static final Instant START_AT = Instant.parse("2025-01-12T10:00:00Z");
+    private static final Instant END_AT = Instant.parse("2025-01-12T12:00:00Z");
+
+    @Autowired
+    private ZoneService zoneService;
+    @Autowired
+    private CarService carService;
+    @Autowired
+    private LocationZoneRepository locationZoneRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ReservationService reservationService;
+
+    @Test
+    void availability_matchesPerLocationCount() {
+        Map<String, Set<Long>> locationsByZone = locationZoneRepository.findAllZoneLocations().stream()
+                .collect(Collectors.groupingBy(ZoneLocation::getCode,
+                        Collectors.mapping(ZoneLocation::getLocationId, Collectors.toSet())));
+        List<Car> free = carService.available(null, START_AT, END_AT, null);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<ZoneAvailability> zones = zoneService.availability(START_AT, END_AT);
+        long statements = statistics.getPrepareStatementCount();
+
+        System.out.println("\n--- Зон = " + zones.size() + ", SQL-запросов на сводку = " + statements + " ---");
+        assertThat(zones).extracting(ZoneAvailability::code).containsExactlyInAnyOrderElementsOf(locationsByZone.keySet());
+        assertThat(statements).isEqualTo(1);
+        for (ZoneAvailability zone : zones) {
+            Set<Long> locations = locationsByZone.get(zone.code());
+            long expected = free.stream().filter(car -> locations.contains(car.getLocation().getId())).count();
+            assertThat(zone.freeCars()).as(zone.code()).isEqualTo((int) expected);
+            assertThat(zone.freeCars()).isLessThanOrEqualTo(zone.totalCars());
+        }
+        ZoneAvailability center = zones.stream().filter(zone -> zone.code().equals("BER-CENTER")).findFirst().orElseThrow();
+        assertThat(center.freeCars()).isLessThan(center.totalCars());
+    }
+
+    @Test
+    void availableCars_excludesBusyCarAndUnknownZoneIs404() throws Exception {
+        List<Car> cars = zoneService.availableCars("BER-CENTER", START_AT, END_AT);
+
+        assertThat(cars).isNotEmpty();
+        assertThat(cars).extracting(Car::getId).doesNotContain(1L);
+        mockMvc.perform(get("/api/zones/NOPE/cars/availability")
+                        .with(user("user"))
+                        .param("startAt", START_AT.toString())
+                        .param("endAt", END_AT.toString()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void bookingAndCancellation_updateZoneCounts() {
+        Instant bookedFrom = Instant.parse("2031-03-01T10:00:00Z");
+        Instant bookedTo = Instant.parse("2031-03-01T12:00:00Z");
+        // Сводка за другое окно: автомобиль выпадает из зоны по статусу RESERVED, а не по пересечению
+        Instant otherFrom = Instant.parse("2032-03-01T10:00:00Z");
+        Instant otherTo = Instant.parse("2032-03-01T12:00:00Z");
+        Car car = zoneService.availableCars("BER-CENTER", bookedFrom, bookedTo).get(0);
+        ZoneAvailability before = center(otherFrom, otherTo);
+
+        ReservationCreateRequest request = new ReservationCreateRequest();
+        request.setUserId(reservationService.userIdOf("user"));
+        request.setCarId(car.getId());
+        request.setStartAt(bookedFrom);
+        request.setEndAt(bookedTo);
+        Reservation reservation = reservationService.create(request);
+        ZoneAvailability booked = center(otherFrom, otherTo);
+
+        reservationService.cancel(reservation.getId(), request.getUserId());
+        ZoneAvailability cancelled = center(otherFrom, otherTo);
+
+        System.out.println("\n--- BER-CENTER свободно: до = " + before.freeCars() + ", после бронирования = "
+                + booked.freeCars() + ", после отмены = " + cancelled.freeCars() + " ---");
+        assertThat(booked.freeCars()).isEqualTo(before.freeCars() - 1);
+        assertThat(booked.totalCars()).isEqualTo(before.totalCars() - 1);
+        assertThat(cancelled).isEqualTo(before);
+    }
+
+    private ZoneAvailability center(Instant startAt, Instant endAt) {
+        return zoneService.availability(startAt, endAt).stream()
+                .filter(zone -> zone.code().equals("BER-CENTER"))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.carsharing_71.geo;
+
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.Location;
+import org.example.carsharing_71.repository.LocationRepository;
+import org.example.carsharing_71.service.CarService;
+import org.example.carsharing_71.service.NearbyCar;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Поиск автомобилей рядом: результат индекса должен совпадать с полным перебором
+ * доступных автомобилей с точным расстоянием, и быть упорядочен по расстоянию.
+ * Точка поиска — Пергамский музей (Берлин), в seed data рядом ещё Бранденбургские ворота и BER.
+ * Новые, перемещённые и удалённые через JPA локации попадают в индекс после коммита.
+ */
+@SpringBootTest(properties = "carsharing.geo.cell-km=2")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+public class LocationGeoIndexIT {
+    private static final double LAT = 52.521183;
+    private static final double LON = 13.3969;
+    private static final Instant START_AT = Instant.parse("2030-01-01T10:00:00Z");
+    private static final Instant END_AT = Instant.parse("2030-01-01T14:00:00Z");
+
+    @Autowired
+    private CarService carService;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private LocationGeoIndex geoIndex;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void locationChanges_reachIndexAfterCommit() {
+        // Сидней и Мельбурн: в seed data рядом локаций нет
+        Location location = new Location();
+        location.setName("Sydney Central");
+        location.setAddress("Eddy Ave, Sydney");
+        location.setLatitude(-33.8830);
+        location.setLongitude(151.2063);
+        Long id = transactionTemplate.execute(status -> locationRepository.save(location).getId());
+        assertThat(geoIndex.within(-33.8830, 151.2063, 1)).extracting(NearbyLocation::locationId).containsExactly(id);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Location moved = locationRepository.findById(id).orElseThrow();
+            moved.setLatitude(-37.8183);
+            moved.setLongitude(144.9671);
+        });
+        assertThat(geoIndex.within(-33.8830, 151.2063, 1)).isEmpty();
+        assertThat(geoIndex.within(-37.8183, 144.9671, 1)).extracting(NearbyLocation::locationId).containsExactly(id);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            locationRepository.deleteById(id);
+            status.setRollbackOnly();
+        });
+        assertThat(geoIndex.within(-37.8183, 144.9671, 1)).hasSize(1);
+        transactionTemplate.executeWithoutResult(status -> locationRepository.deleteById(id));
+        assertThat(geoIndex.within(-37.8183, 144.9671, 1)).isEmpty();
+    }
+
+    @Test
+    void nearby_matchesBruteForce() {
+        for (double radiusKm : new double[]{0.5, 5, 25, 600}) {
+            List<NearbyCar> actual = carService.nearby(LAT, LON, radiusKm, START_AT, END_AT, null);
+
+            List<Long> expected = carService.available(null, START_AT, END_AT, null).stream()
+                    .filter(car -> distance(car) <= radiusKm)
+                    .sorted(Comparator.comparingDouble(this::distance).thenComparing(Car::getId))
+                    .map(Car::getId)
+                    .toList();
+
+            System.out.println("--- Радиус " + radiusKm + " км: автомобилей = " + actual.size() + " ---");
+            assertThat(actual).extracting(nearby -> nearby.car().getId()).containsExactlyElementsOf(expected);
+            assertThat(actual).isSortedAccordingTo(Comparator.comparingDouble(NearbyCar::distanceKm));
+        }
+    }
+
+    @Test
+    void nearby_endpointRejectsInvalidCoordinates() throws Exception {
+        mockMvc.perform(get("/api/cars/nearby")
+                        .with(user("user"))
+                        .param("lat", "91")
+                        .param("lon", String.valueOf(LON))
+                        .param("radiusKm", "5")
+                        .param("startAt", START_AT.toString())
+                        .param("endAt", END_AT.toString()))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/api/cars/nearby")
+                        .with(user("user"))
+                        .param("lat", String.valueOf(LAT))
+                        .param("lon", String.valueOf(LON))
+                        .param("radiusKm", "5")
+                        .param("limit", "1")
+                        .param("startAt", START_AT.toString())
+                        .param("endAt", END_AT.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].distanceKm").value(0.0));
+    }
+
+    private double distance(Car car) {
+        return LocationGeoIndex.distanceKm(LAT, LON, car.getLocation().getLatitude(), car.getLocation().getLongitude());
+    }
+}
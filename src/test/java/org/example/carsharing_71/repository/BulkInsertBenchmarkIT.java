@@ -0,0 +1,109 @@
+package org.example.carsharing_71.repository;
+
+import jakarta.persistence.EntityManager;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.CarModel;
+import org.example.carsharing_71.domain.CarPhoto;
+import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.domain.Location;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Бенчмарк массовой загрузки автомобилей с фотографиями: построчные вставки (JDBC-батч из одной строки)
+ * против батчей {@code hibernate.jdbc.batch_size}. С id из последовательностей Hibernate откладывает
+ * вставки до flush, группирует их по таблице ({@code order_inserts}) и отправляет батчами —
+ * число подготовленных SQL-запросов падает в десятки раз.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Логирование SQL с параметрами на таком объёме измеряет консоль, а не вставку
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.sql=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql=WARN"
+})
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Transactional
+public class BulkInsertBenchmarkIT {
+    private static final int CARS = 1_000;
+    private static final int PHOTOS_PER_CAR = 2;
+
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private CarPhotoRepository carPhotoRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void bulkLoad_isBatched() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        System.out.println("\n--- [START] Массовая загрузка: машин = " + CARS + ", фото = " + CARS * PHOTOS_PER_CAR + " ---");
+
+        load("WARMUP", 50, statistics);
+        long rowByRow = load("ROW", 1, statistics);
+        long batched = load("BATCH", 50, statistics);
+
+        System.out.println("--- [END] SQL-запросов: построчно = " + rowByRow + ", батчами = " + batched + " ---");
+        assertThat(batched).isLessThan(rowByRow / 20);
+    }
+
+    /**
+     * Загружает парк с фотографиями при заданном размере JDBC-батча сессии.
+     *
+     * @return число подготовленных SQL-запросов
+     */
+    private long load(String prefix, int batchSize, Statistics statistics) {
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(batchSize);
+        CarModel model = entityManager.getReference(CarModel.class, 1L);
+        Location location = entityManager.getReference(Location.class, 1L);
+        statistics.clear();
+        long started = System.nanoTime();
+
+        List<Car> cars = new ArrayList<>();
+        List<CarPhoto> photos = new ArrayList<>();
+        for (int i = 0; i < CARS; i++) {
+            Car car = new Car();
+            car.setCarModel(model);
+            car.setLocation(location);
+            car.setPlateNumber(prefix + "-" + i);
+            car.setStatus(CarStatus.AVAILABLE);
+            cars.add(car);
+            for (int j = 0; j < PHOTOS_PER_CAR; j++) {
+                CarPhoto photo = new CarPhoto();
+                photo.setCar(car);
+                photo.setUrl("https://cdn.example.org/" + prefix + "/" + i + "/" + j + ".jpg");
+                photos.add(photo);
+            }
+        }
+        carRepository.saveAll(cars);
+        carPhotoRepository.saveAll(photos);
+        entityManager.flush();
+        double millis = (System.nanoTime() - started) / 1_000_000.0;
+        long statements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+
+        Set<Long> ids = new HashSet<>();
+        cars.forEach(car -> ids.add(car.getId()));
+        assertThat(ids).hasSize(CARS);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(CARS + (long) CARS * PHOTOS_PER_CAR);
+        System.out.printf("%-6s батч = %-3d %10.1f ms, SQL-запросов = %d%n", prefix, batchSize, millis, statements);
+        return statements;
+    }
+}
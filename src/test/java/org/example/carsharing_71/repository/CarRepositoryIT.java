@@ -75,4 +75,36 @@ public class CarRepositoryIT {
         assertThat(cars).allMatch(c -> c.getStatus().name().equals("AVAILABLE"));
     }
 
+    @Test
+    void findAll_catalogSpecification_filtersByModelId() {
+        // Given: модель ID=2 есть в seed data (две машины)
+        Long modelId = 2L;
+
+        // When
+        List<Car> cars = carRepository.findAll(CarSpecifications.catalog(null, modelId, null), Sort.by("id"));
+
+        // Then
+        assertThat(cars).isNotEmpty();
+        assertThat(cars).allMatch(c -> c.getCarModel().getId().equals(modelId));
+    }
+
+    @Test
+    void findAll_catalogSpecification_combinesFilters() {
+        // Given
+        Long locationId = 1L;
+        Long modelId = 2L;
+        int seats = 2;
+
+        // When
+        List<Car> cars = carRepository.findAll(CarSpecifications.catalog(locationId, modelId, seats), Sort.by("id"));
+        List<Car> expected = carRepository.findAll().stream()
+                .filter(c -> c.getLocation().getId().equals(locationId))
+                .filter(c -> c.getCarModel().getId().equals(modelId))
+                .filter(c -> c.getCarModel().getSeats() >= seats)
+                .toList();
+
+        // Then
+        assertThat(cars).isNotEmpty();
+        assertThat(cars).extracting(Car::getId).containsExactlyElementsOf(expected.stream().map(Car::getId).sorted().toList());
+    }
 }
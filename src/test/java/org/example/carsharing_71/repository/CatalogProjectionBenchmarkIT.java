@@ -0,0 +1,122 @@
+package org.example.carsharing_71.repository;
+
+import jakarta.persistence.EntityManager;
+import org.example.carsharing_71.api.dto.CarDto;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Бенчмарк чтения каталога: гидрация сущностей ({@code findAll} с EntityGraph + {@code CarDto.fromEntity})
+ * против constructor expression сразу в {@link CarDto}. Сравниваются время, выделенная память на поток
+ * и число сущностей, оставшихся в persistence context; результаты обоих путей должны совпадать.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Transactional
+public class CatalogProjectionBenchmarkIT {
+    private static final int CARS = 3_000;
+    private static final int RUNS = 10;
+    private static final Instant START_AT = Instant.parse("2025-01-12T10:00:00Z");
+    private static final Instant END_AT = Instant.parse("2025-01-12T12:00:00Z");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void catalog_projectionMatchesEntitiesAndSkipsPersistenceContext() {
+        generateFleet();
+        System.out.println("\n--- [START] Бенчмарк каталога: машин = " + (CARS + 17) + " ---");
+
+        List<String> entities = measure("findAll + EntityGraph + fromEntity", () -> carRepository
+                .findAll(CarSpecifications.catalog(null, null, null), Sort.by("id")).stream()
+                .map(CarDto::fromEntity)
+                .toList());
+        int managedAfterEntities = managedEntities();
+        List<String> dtos = measure("constructor expression (findViews)", () -> carRepository
+                .findViews(CarSpecifications.catalog(null, null, null), Sort.by("id"), Limit.unlimited()).stream()
+                .map(CarDto::fromView)
+                .toList());
+        int managedAfterDtos = managedEntities();
+
+        List<String> availableEntities = measure("findAvailable + fromEntity", () -> carRepository
+                .findAvailable(null, null, START_AT, END_AT).stream()
+                .map(CarDto::fromEntity)
+                .toList());
+        List<String> availableDtos = measure("constructor expression (findAvailableViews)", () -> carRepository
+                .findAvailableViews(null, null, START_AT, END_AT).stream()
+                .map(CarDto::fromView)
+                .toList());
+
+        System.out.println("--- [END] Сущностей в persistence context: после findAll = " + managedAfterEntities
+                + ", после findViews = " + managedAfterDtos + " ---");
+        assertThat(entities).hasSize(CARS + 17);
+        assertThat(dtos).isEqualTo(entities);
+        assertThat(availableDtos).isNotEmpty().isEqualTo(availableEntities);
+        assertThat(managedAfterEntities).isGreaterThanOrEqualTo(CARS);
+        assertThat(managedAfterDtos).isZero();
+    }
+
+    private void generateFleet() {
+        List<Object[]> cars = new ArrayList<>();
+        for (int i = 0; i < CARS; i++) {
+            cars.add(new Object[]{1L + i % 7, "PROJ-" + i, 1L + i % 7, i % 10 == 0 ? "MAINTENANCE" : "AVAILABLE"});
+        }
+        jdbcTemplate.batchUpdate("insert into cars (model_id, plate_number, location_id, status) values (?, ?, ?, ?)", cars);
+    }
+
+    /**
+     * Прогон с прогревом; перед каждым повтором persistence context очищается, чтобы путь
+     * через сущности честно гидрировал их заново. Последний прогон не очищается — по нему
+     * считается число управляемых сущностей.
+     */
+    private List<String> measure(String name, Supplier<List<CarDto>> action) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        entityManager.clear();
+        action.get();
+        long nanos = 0;
+        long bytes = 0;
+        List<CarDto> result = null;
+        for (int i = 0; i < RUNS; i++) {
+            entityManager.clear();
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long started = System.nanoTime();
+            result = action.get();
+            nanos += System.nanoTime() - started;
+            bytes += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        }
+        System.out.printf("%-45s %10.3f ms %10.1f KB%n", name, nanos / 1_000_000.0 / RUNS, bytes / 1024.0 / RUNS);
+        return result.stream().map(CatalogProjectionBenchmarkIT::describe).toList();
+    }
+
+    private int managedEntities() {
+        return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+    private static String describe(CarDto car) {
+        return String.join("|", String.valueOf(car.getId()), car.getPlateNumber(), car.getStatus(),
+                car.getBrand(), car.getModel(), String.valueOf(car.getSeats()), car.getTransmission(),
+                car.getFuelType(), String.valueOf(car.getLocationId()), car.getLocationName());
+    }
+}
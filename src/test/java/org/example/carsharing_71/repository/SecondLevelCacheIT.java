@@ -0,0 +1,101 @@
+package org.example.carsharing_71.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.repository.projection.CarInfo;
+import org.example.carsharing_71.service.ReservationService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш второго уровня и кэш запросов: повторные чтения каталога не обращаются к JDBC,
+ * а смена статуса автомобиля при бронировании делает закэшированный результат устаревшим.
+ * Тест без общей транзакции: каждое обращение к репозиторию — отдельная сессия.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class SecondLevelCacheIT {
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @Test
+    void findAvailableByBrand_repeatedCallHitsQueryCache() {
+        List<Car> first = carRepository.findAvailableByBrand("Toyota");
+        statistics.clear();
+
+        List<Car> second = carRepository.findAvailableByBrand("Toyota");
+
+        System.out.println("\n--- Повторный findAvailableByBrand: SQL = " + statistics.getPrepareStatementCount()
+                + ", попаданий в кэш запросов = " + statistics.getQueryCacheHitCount()
+                + ", в L2 = " + statistics.getSecondLevelCacheHitCount() + " ---");
+        assertThat(second).extracting(Car::getId).containsExactlyElementsOf(first.stream().map(Car::getId).toList());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    @Test
+    void findByLocationIdProjection_repeatedCallHitsQueryCache() {
+        List<CarInfo> first = carRepository.findByLocation_Id(1L);
+        statistics.clear();
+
+        List<CarInfo> second = carRepository.findByLocation_Id(1L);
+
+        assertThat(second).extracting(CarInfo::getPlateNumber)
+                .containsExactlyElementsOf(first.stream().map(CarInfo::getPlateNumber).toList());
+        assertThat(second).allMatch(info -> info.getModel().getBrand() != null);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void carStatusChange_invalidatesCachedQuery() {
+        List<Car> before = carRepository.findAvailableByBrand("Toyota");
+        assertThat(before).isNotEmpty();
+        Car car = before.get(0);
+
+        ReservationCreateRequest request = new ReservationCreateRequest();
+        request.setUserId(userRepository.findByLogin("user").orElseThrow().getId());
+        request.setCarId(car.getId());
+        request.setStartAt(Instant.parse("2031-03-01T10:00:00Z"));
+        request.setEndAt(Instant.parse("2031-03-01T12:00:00Z"));
+        reservationService.create(request);
+        statistics.clear();
+
+        List<Car> after = carRepository.findAvailableByBrand("Toyota");
+
+        assertThat(after).extracting(Car::getId).doesNotContain(car.getId());
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isPositive();
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.carsharing_71.scheduling;
+
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Освобождение автомобилей по окончании бронирований: автомобиль возвращается в AVAILABLE
+ * сразу после {@code endAt}, пока более поздние бронирования держат свои автомобили.
+ * Само колесо таймеров проверяется в {@link HierarchicalTimingWheelTest}.
+ * Тест без общей транзакции: колесо заполняется событиями после коммита.
+ */
+@SpringBootTest(properties = "carsharing.reservation.release.tick=100ms")
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class CarReleaseSchedulerIT {
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private CarReleaseScheduler scheduler;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void finishedReservation_releasesCarRightAfterEndAt() throws Exception {
+        List<Car> available = carRepository.findAll().stream()
+                .filter(car -> car.getStatus() == CarStatus.AVAILABLE)
+                .toList();
+        Car finishing = available.get(0);
+        Car ongoing = available.get(1);
+        Instant now = Instant.now();
+        Instant endAt = now.plus(Duration.ofMillis(1_500));
+        reservationService.create(request(finishing.getId(), now, endAt));
+        reservationService.create(request(ongoing.getId(), now, now.plus(Duration.ofDays(1))));
+        assertThat(status(finishing.getId())).isEqualTo("RESERVED");
+
+        while (status(finishing.getId()).equals("RESERVED") && Instant.now().isBefore(endAt.plusSeconds(5))) {
+            Thread.sleep(20);
+        }
+        Instant releasedAt = Instant.now();
+
+        System.out.println("\n--- Освобождение: через " + Duration.between(endAt, releasedAt).toMillis()
+                + " мс после endAt, колесо = " + scheduler.stats() + " ---");
+        assertThat(status(finishing.getId())).isEqualTo("AVAILABLE");
+        assertThat(releasedAt).isAfterOrEqualTo(endAt);
+        assertThat(status(ongoing.getId())).isEqualTo("RESERVED");
+    }
+
+    @Test
+    void overdueReservedCar_isReleasedOnNextTick() throws Exception {
+        List<Object[]> cars = new ArrayList<>();
+        cars.add(new Object[]{1L, "OVERDUE-1", 1L, "RESERVED"});
+        jdbcTemplate.batchUpdate("insert into cars (model_id, plate_number, location_id, status) values (?, ?, ?, ?)", cars);
+        Long carId = jdbcTemplate.queryForObject("select id from cars where plate_number = 'OVERDUE-1'", Long.class);
+        Instant endAt = Instant.now().minus(Duration.ofHours(1));
+        jdbcTemplate.update("insert into reservations (user_id, car_id, start_at, end_at, status, created_at) " +
+                "values (1, ?, ?, ?, 'ACTIVE', ?)", carId, Timestamp.from(endAt.minus(Duration.ofHours(2))),
+                Timestamp.from(endAt), Timestamp.from(Instant.now()));
+
+        scheduler.schedule(carId, endAt);
+        Instant deadline = Instant.now().plusSeconds(5);
+        while (status(carId).equals("RESERVED") && Instant.now().isBefore(deadline)) {
+            Thread.sleep(20);
+        }
+
+        assertThat(status(carId)).isEqualTo("AVAILABLE");
+    }
+
+    private String status(Long carId) {
+        return jdbcTemplate.queryForObject("select status from cars where id = ?", String.class, carId);
+    }
+
+    private static ReservationCreateRequest request(Long carId, Instant startAt, Instant endAt) {
+        ReservationCreateRequest request = new ReservationCreateRequest();
+        request.setUserId(1L);
+        request.setCarId(carId);
+        request.setStartAt(startAt);
+        request.setEndAt(endAt);
+        return request;
+    }
+}
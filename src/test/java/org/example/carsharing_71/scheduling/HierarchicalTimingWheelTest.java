@@ -0,0 +1,99 @@
+package org.example.carsharing_71.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link HierarchicalTimingWheel} без контекста Spring: каждый срок выдаётся ровно в его тик
+ * на всех уровнях, включая сроки на границе уровня и записи из списка переполнения.
+ */
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void wheel_firesEveryItemExactlyAtItsTick() {
+        // 8 слотов × 3 уровня = 512 тиков; сроки до 1500 проходят через все уровни и список переполнения
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(8, 3, 0);
+        Random random = new Random(5);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            long tick = random.nextInt(1_500);
+            deadlines.put(i, tick);
+            wheel.schedule(i, tick);
+        }
+
+        Map<Integer, Long> fired = new HashMap<>();
+        for (long tick = 0; tick < 1_500; tick++) {
+            for (Integer item : wheel.advanceTo(tick)) {
+                fired.put(item, tick);
+            }
+            if (tick == 700) {
+                // Поздняя вставка, когда колесо уже провернулось
+                wheel.schedule(-1, 1_000);
+                deadlines.put(-1, 1_000L);
+            }
+        }
+
+        assertThat(fired).isEqualTo(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlineOnLevelBoundary_firesAtThatTick() {
+        // Охваты уровней: 1, 8, 64; горизонт — 512 тиков
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(8, 3, 3);
+        Map<Long, Long> deadlines = new HashMap<>();
+        // tick % 8^L == 0: срок совпадает с моментом осыпания слота уровня L (и всех уровней ниже)
+        for (long tick : new long[]{8, 16, 64, 128, 448, 512, 1_024}) {
+            wheel.schedule(tick, tick);
+            deadlines.put(tick, tick);
+        }
+
+        Map<Long, Long> fired = runTo(wheel, 1_100);
+
+        assertThat(fired).isEqualTo(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void overflowEntry_landingInCurrentTopSlot_firesAtItsTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(8, 2, 3);
+        // Горизонт 64 тика: оба срока уходят в список переполнения. На тике 64 верхнее колесо
+        // осыпает слот [64, 72) раньше, чем переполнение, поэтому запись из него должна сразу
+        // лечь на нижний уровень, а не в уже осыпанный верхний слот
+        wheel.schedule("current-top-slot", 67);
+        wheel.schedule("next-top-slot", 75);
+        // Вставка на самом тике осыпания: срок в текущем слоте верхнего колеса
+        Map<String, Long> fired = new HashMap<>();
+        for (long tick = 4; tick <= 100; tick++) {
+            for (String item : wheel.advanceTo(tick)) {
+                fired.put(item, tick);
+            }
+            if (tick == 64) {
+                wheel.schedule("scheduled-at-boundary", 71);
+                wheel.schedule("due-now", 64);
+            }
+        }
+
+        assertThat(fired).containsOnly(
+                Map.entry("current-top-slot", 67L),
+                Map.entry("next-top-slot", 75L),
+                Map.entry("scheduled-at-boundary", 71L),
+                Map.entry("due-now", 65L));
+        assertThat(wheel.size()).isZero();
+    }
+
+    private static <T> Map<T, Long> runTo(HierarchicalTimingWheel<T> wheel, long last) {
+        Map<T, Long> fired = new HashMap<>();
+        for (long tick = wheel.currentTick() + 1; tick <= last; tick++) {
+            for (T item : wheel.advanceTo(tick)) {
+                fired.put(item, tick);
+            }
+        }
+        return fired;
+    }
+}
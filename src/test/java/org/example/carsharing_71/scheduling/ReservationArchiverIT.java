@@ -0,0 +1,143 @@
+package org.example.carsharing_71.scheduling;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharing_71.availability.ReservationIndex;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.repository.CarRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Архивация бронирований: отменённые и давно закончившиеся строки переносятся в reservations_archive
+ * пачками, в горячей таблице остаются только действующие бронирования, а in-memory индекс
+ * после переноса совпадает с БД. Параллельные прогоны переносят каждую строку один раз.
+ * Тест без общей транзакции: пачки коммитятся по отдельности.
+ */
+@SpringBootTest(properties = {
+        "carsharing.availability.engine=INDEX",
+        "carsharing.reservation.archive.enabled=false",
+        "carsharing.reservation.archive.grace=1d",
+        "carsharing.reservation.archive.batch-size=7"
+})
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class ReservationArchiverIT {
+    private static final Instant PAST = Instant.parse("2021-03-01T10:00:00Z");
+    private static final Instant FUTURE = Instant.parse("2039-03-01T10:00:00Z");
+    private static final String INSERT = "insert into reservations (user_id, car_id, start_at, end_at, status, created_at) " +
+            "values (1, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private ReservationArchiver archiver;
+    @Autowired
+    private ReservationIndex reservationIndex;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void archive_movesFinishedAndCancelledInBatches() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // Прошедшие активные, будущие отменённые и будущие активные — на разных днях, без пересечений
+            Instant past = PAST.plus(Duration.ofDays(i));
+            Instant future = FUTURE.plus(Duration.ofDays(i));
+            rows.add(row(past, "ACTIVE"));
+            rows.add(row(future, "CANCELLED"));
+            rows.add(row(future.plus(Duration.ofHours(3)), "ACTIVE"));
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+        reservationIndex.rebuild();
+        Instant cutoff = Instant.now().minus(Duration.ofDays(1));
+        int expected = count("reservations", "status = 'CANCELLED' or end_at < ?", Timestamp.from(cutoff));
+        int kept = count("reservations", "status = 'ACTIVE' and end_at >= ?", Timestamp.from(cutoff));
+        assertThat(reservationIndex.hasOverlap(2L, PAST, PAST.plus(Duration.ofHours(1)))).isTrue();
+
+        int archived = archiver.archive();
+
+        System.out.println("\n--- Архивация: перенесено = " + archived + ", осталось в горячей таблице = "
+                + count("reservations", "1 = 1") + ", статистика = " + archiver.stats() + " ---");
+        assertThat(archived).isEqualTo(expected).isGreaterThanOrEqualTo(40);
+        assertThat(count("reservations_archive", "1 = 1")).isEqualTo(expected);
+        assertThat(count("reservations", "1 = 1")).isEqualTo(kept);
+        assertThat(count("reservations", "status = 'CANCELLED' or end_at < ?", Timestamp.from(cutoff))).isZero();
+        assertThat(count("reservations_archive", "start_at = ? and status = 'ACTIVE'", Timestamp.from(PAST))).isEqualTo(1);
+        assertThat(reservationIndex.verify()).isEmpty();
+        assertThat(reservationIndex.hasOverlap(2L, PAST, PAST.plus(Duration.ofHours(1)))).isFalse();
+        assertThat(reservationIndex.hasOverlap(2L, FUTURE.plus(Duration.ofHours(3)), FUTURE.plus(Duration.ofHours(4)))).isTrue();
+        assertThat(archiver.archive()).isZero();
+    }
+
+    @Test
+    void concurrentRuns_archiveEachRowOnceAndKeepOtherCacheRegions() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            rows.add(row(3L, PAST.plus(Duration.ofDays(i)), "ACTIVE"));
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+        reservationIndex.rebuild();
+        carRepository.findById(3L).orElseThrow();
+        assertThat(entityManagerFactory.getCache().contains(Car.class, 3L)).isTrue();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CyclicBarrier start = new CyclicBarrier(2);
+            Callable<Integer> run = () -> {
+                start.await();
+                return archiver.archive();
+            };
+            Future<Integer> first = executor.submit(run);
+            Future<Integer> second = executor.submit(run);
+            int archived = first.get(30, TimeUnit.SECONDS) + second.get(30, TimeUnit.SECONDS);
+
+            System.out.println("\n--- Параллельная архивация: перенесено = " + archived + " ---");
+            // Каждая строка в архиве ровно один раз (вместе с ними могли уйти и строки сида)
+            assertThat(count("reservations_archive", "1 = 1")).isEqualTo(archived);
+            assertThat(count("reservations_archive", "car_id = 3")).isEqualTo(30);
+            assertThat(count("reservations", "car_id = 3")).isZero();
+            // Нативный INSERT в архив не сбрасывает регионы других сущностей
+            assertThat(entityManagerFactory.getCache().contains(Car.class, 3L)).isTrue();
+        } finally {
+            executor.shutdownNow();
+            // Архив пуст для соседнего теста, который сверяет его размер
+            jdbcTemplate.update("delete from reservations_archive");
+        }
+    }
+
+    private static Object[] row(Instant startAt, String status) {
+        return row(2L, startAt, status);
+    }
+
+    private static Object[] row(Long carId, Instant startAt, String status) {
+        return new Object[]{carId, Timestamp.from(startAt), Timestamp.from(startAt.plus(Duration.ofHours(2))), status,
+                Timestamp.from(Instant.now())};
+    }
+
+    private int count(String table, String where, Object... args) {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from " + table + " where " + where, Integer.class, args);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.carsharing_71.security;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bearer-токены: пароль проверяется один раз при выдаче, дальше запросы с токеном
+ * аутентифицируются по подписи без SQL и BCrypt; подделанный токен получает 401, истёкший
+ * (по часам, переданным в {@link AccessTokens}) отклоняется,
+ * а переполненный пул проверки паролей сразу отказывает.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "carsharing.security.token.secret=" + AccessTokenIT.SECRET
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class AccessTokenIT {
+    static final String SECRET = "test-secret-test-secret-test-secret";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void token_authenticatesWithoutDatabaseOrBcrypt() throws Exception {
+        createUser("token-user", "secret-pass");
+        mockMvc.perform(login("token-user", "wrong")).andExpect(status().isUnauthorized());
+        String token = objectMapper.readTree(mockMvc.perform(login("token-user", "secret-pass"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andReturn().getResponse().getContentAsString()).get("accessToken").asString();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            mockMvc.perform(get("/api/whoami").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.username").value("token-user"))
+                    .andExpect(jsonPath("$.roles[0]").value("ROLE_USER"));
+        }
+        long micros = (System.nanoTime() - started) / 1_000 / 100;
+
+        System.out.println("\n--- Запрос с токеном: ~" + micros + " мкс, SQL-запросов = "
+                + statistics.getPrepareStatementCount() + " ---");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        mockMvc.perform(get("/api/admin/reservations/archive").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+
+        String forged = token.substring(0, token.indexOf('.')) + ".AAAA";
+        mockMvc.perform(get("/api/whoami").header(HttpHeaders.AUTHORIZATION, "Bearer " + forged))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\""));
+    }
+
+    @Test
+    void token_expiresWhenClockReachesTtl() {
+        Duration ttl = Duration.ofMinutes(15);
+        Clock issuedAt = Clock.fixed(Instant.parse("2030-01-01T10:00:00Z"), ZoneOffset.UTC);
+        AccessTokens.Issued issued = new AccessTokens(SECRET, ttl, issuedAt)
+                .issue("token-user", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        AccessTokens beforeExpiry = new AccessTokens(SECRET, ttl, Clock.offset(issuedAt, ttl.minusMillis(1)));
+        AccessTokens atExpiry = new AccessTokens(SECRET, ttl, Clock.offset(issuedAt, ttl));
+
+        assertThat(issued.expiresAt()).isEqualTo(issuedAt.instant().plus(ttl));
+        assertThat(beforeExpiry.authenticate(issued.token()).getName()).isEqualTo("token-user");
+        assertThatThrownBy(() -> atExpiry.authenticate(issued.token()))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Token expired");
+    }
+
+    @Test
+    void fullVerifierQueue_isRejectedImmediately() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 2, Duration.ofSeconds(10));
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            // Один поток занят, двое ждут в очереди — четвёртая проверка отклоняется сразу
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(callers.submit(() -> encoder.matches("p", "p")));
+            }
+            Instant deadline = Instant.now().plusSeconds(5);
+            while (encoder.queueDepth() < 2 && Instant.now().isBefore(deadline)) {
+                Thread.sleep(5);
+            }
+            assertThat(encoder.queueDepth()).isEqualTo(2);
+            assertThatThrownBy(() -> encoder.matches("p", "p"))
+                    .isInstanceOf(BoundedPasswordEncoder.PasswordVerificationBusyException.class);
+
+            gate.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            callers.shutdownNow();
+            encoder.shutdown();
+        }
+    }
+
+    private void createUser(String login, String password) {
+        jdbcTemplate.update("insert into users (login, password, email, full_name, role, created_at) " +
+                        "values (?, ?, ?, ?, 'USER', current_timestamp)",
+                login, passwordEncoder.encode(password), login + "@example.com", login);
+    }
+
+    private static RequestBuilder login(String login, String password) {
+        return post("/api/auth/token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"login\":\"" + login + "\",\"password\":\"" + password + "\"}");
+    }
+}
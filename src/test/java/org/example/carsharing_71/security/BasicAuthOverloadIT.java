@@ -0,0 +1,41 @@
+package org.example.carsharing_71.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Перегрузка пула BCrypt на пути HTTP Basic: проверка пароля не успевает за нулевой таймаут,
+ * и клиент получает 503 (повторить позже), а не 401 (неверный пароль).
+ * Запрос без учётных данных по-прежнему получает 401 с {@code WWW-Authenticate: Basic}.
+ */
+@SpringBootTest(properties = "carsharing.security.bcrypt.timeout=0s")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class BasicAuthOverloadIT {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void busyPasswordVerifier_is503OnBasicPath() throws Exception {
+        mockMvc.perform(get("/api/cars").with(httpBasic("user", "pass")))
+                .andExpect(status().isServiceUnavailable());
+
+        mockMvc.perform(get("/api/cars"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"Realm\""));
+    }
+}
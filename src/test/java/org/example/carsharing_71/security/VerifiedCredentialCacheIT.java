@@ -0,0 +1,112 @@
+package org.example.carsharing_71.security;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharing_71.domain.Role;
+import org.example.carsharing_71.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Кэш проверенных учётных данных HTTP Basic: повторный запрос с тем же паролем проходит без SQL
+ * и BCrypt, неверный пароль по-прежнему получает 401, смена пароля или роли через JPA сбрасывает кэш.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class VerifiedCredentialCacheIT {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private VerifiedCredentialCache credentialCache;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void repeatedBasicRequest_skipsDatabaseAndBcrypt() throws Exception {
+        createUser("basic-user", "first-pass");
+        whoami("basic-user", "first-pass");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long hitsBefore = (long) credentialCache.stats().get("hits");
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            whoami("basic-user", "first-pass");
+        }
+        long micros = (System.nanoTime() - started) / 1_000 / 100;
+
+        System.out.println("\n--- Basic-запрос из кэша: ~" + micros + " мкс, SQL-запросов = "
+                + statistics.getPrepareStatementCount() + ", " + credentialCache.stats() + " ---");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat((long) credentialCache.stats().get("hits") - hitsBefore).isEqualTo(100);
+
+        mockMvc.perform(get("/api/whoami").with(httpBasic("basic-user", "wrong-pass")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/admin/cache/credentials").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled").value(true))
+                .andExpect(jsonPath("$.hitRatio").isNumber());
+    }
+
+    @Test
+    void passwordOrRoleChange_invalidatesCache() throws Exception {
+        createUser("rotating-user", "old-pass");
+        whoami("rotating-user", "old-pass");
+
+        transactionTemplate.executeWithoutResult(status -> userRepository.findByLogin("rotating-user")
+                .orElseThrow().setPassword(passwordEncoder.encode("new-pass")));
+        mockMvc.perform(get("/api/whoami").with(httpBasic("rotating-user", "old-pass")))
+                .andExpect(status().isUnauthorized());
+        whoami("rotating-user", "new-pass");
+
+        transactionTemplate.executeWithoutResult(status -> userRepository.findByLogin("rotating-user")
+                .orElseThrow().setRole(Role.ADMIN));
+        Map<String, Object> stats = credentialCache.stats();
+        System.out.println("\n--- Кэш после смены пароля и роли: " + stats + " ---");
+        assertThat(stats.get("size")).isEqualTo(0L);
+        mockMvc.perform(get("/api/admin/cache/credentials").with(httpBasic("rotating-user", "new-pass")))
+                .andExpect(status().isOk());
+    }
+
+    private void whoami(String login, String password) throws Exception {
+        mockMvc.perform(get("/api/whoami").with(httpBasic(login, password)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value(login));
+    }
+
+    private void createUser(String login, String password) {
+        jdbcTemplate.update("insert into users (login, password, email, full_name, role, created_at) " +
+                        "values (?, ?, ?, ?, 'USER', current_timestamp)",
+                login, passwordEncoder.encode(password), login + "@example.com", login);
+    }
+}
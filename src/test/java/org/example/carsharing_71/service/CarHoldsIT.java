@@ -0,0 +1,188 @@
+package org.example.carsharing_71.service;
+
+import org.example.carsharing_71.api.CarCursor;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.Reservation;
+import org.example.carsharing_71.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Удержания автомобиля на время оформления: удержанный автомобиль пропадает из доступных,
+ * бронирование окна без удержания получает 422, а с удержанием проходит; отпустить удержание
+ * может только его владелец; поиск удержаний по времени находит только пересекающие окно,
+ * а страница доступных добирается до полного размера в обход удержанных автомобилей.
+ * TTL короткий, чтобы проверить истечение и не оставлять удержаний другим тестам.
+ */
+@SpringBootTest(properties = "carsharing.reservation.hold.ttl=700ms")
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Transactional
+public class CarHoldsIT {
+    private static final Instant START_AT = Instant.parse("2035-03-01T10:00:00Z");
+    private static final Instant END_AT = Instant.parse("2035-03-01T12:00:00Z");
+
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private CarService carService;
+    @Autowired
+    private CarHolds carHolds;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void hold_hidesCarAndRejectsOthers() {
+        CarHolds.Hold hold = reservationService.hold(request("user", null));
+        try {
+            assertThat(carService.available(null, START_AT, END_AT, null)).extracting(Car::getId).doesNotContain(1L);
+            assertThat(carService.available(null, END_AT, END_AT.plusSeconds(3600), null))
+                    .extracting(Car::getId).contains(1L);
+
+            assertThatThrownBy(() -> reservationService.create(request("student", null)))
+                    .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT);
+                        assertThat(e.getReason()).isEqualTo("Car is on hold");
+                    });
+            assertThatThrownBy(() -> reservationService.hold(request("student", null)))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getReason()).isEqualTo("Car is on hold"));
+        } finally {
+            assertThat(carHolds.release(hold.id())).isTrue();
+        }
+        assertThat(carService.available(null, START_AT, END_AT, null)).extracting(Car::getId).contains(1L);
+    }
+
+    @Test
+    void reservationWithHold_isAcceptedOnlyThroughTheHold() {
+        assertThatThrownBy(() -> reservationService.create(request("user", UUID.randomUUID())))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getReason()).isEqualTo("Hold expired or not found"));
+        CarHolds.Hold hold = reservationService.hold(request("user", null));
+        try {
+            // Окно закрыто и для того же пользователя, пока он не предъявит удержание
+            assertThatThrownBy(() -> reservationService.create(request("user", null)))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getReason()).isEqualTo("Car is on hold"));
+
+            Reservation reservation = reservationService.create(request("user", hold.id()));
+
+            System.out.println("\n--- Бронирование по удержанию: id = " + reservation.getId() + " ---");
+            assertThat(reservation.getId()).isNotNull();
+            assertThat(reservation.getStartAt()).isEqualTo(START_AT);
+        } finally {
+            // Транзакция теста откатится и afterCommit не сработает — удержание снимаем сами
+            carHolds.release(hold.id());
+        }
+    }
+
+    @Test
+    void release_isAllowedOnlyToHoldOwner() {
+        CarHolds.Hold hold = reservationService.hold(request("user", null));
+        Long student = reservationService.userIdOf("student");
+        try {
+            assertThatThrownBy(() -> carHolds.release(hold.id(), student))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+
+            carHolds.release(hold.id(), hold.userId());
+
+            assertThat(carService.available(null, START_AT, END_AT, null)).extracting(Car::getId).contains(1L);
+            assertThatThrownBy(() -> carHolds.release(hold.id(), hold.userId()))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        } finally {
+            carHolds.release(hold.id());
+        }
+    }
+
+    @Test
+    void heldCarIds_findsOnlyHoldsOverlappingWindow() {
+        Instant day = Instant.parse("2036-01-01T00:00:00Z");
+        // Длинное окно начинается задолго до запроса и покрывает его, короткие — вокруг
+        CarHolds.Hold longHold = carHolds.place(userId("user"), 101L, day, day.plus(Duration.ofDays(10)));
+        CarHolds.Hold before = carHolds.place(userId("user"), 102L, day.plus(Duration.ofDays(5)), at(day, 5, 10));
+        CarHolds.Hold inside = carHolds.place(userId("user"), 103L, at(day, 5, 11), at(day, 5, 12));
+        CarHolds.Hold after = carHolds.place(userId("user"), 104L, at(day, 5, 13), at(day, 5, 14));
+        try {
+            assertThat(carHolds.heldCarIds(at(day, 5, 10), at(day, 5, 13))).containsExactlyInAnyOrder(101L, 103L);
+            assertThat(carHolds.heldCarIds(at(day, 5, 9), at(day, 5, 10).plusSeconds(1)))
+                    .containsExactlyInAnyOrder(101L, 102L);
+            assertThat(carHolds.heldCarIds(day.plus(Duration.ofDays(10)), day.plus(Duration.ofDays(11)))).isEmpty();
+            assertThat(carHolds.heldCarIds(day.minus(Duration.ofDays(1)), day)).isEmpty();
+
+            carHolds.release(longHold.id());
+            assertThat(carHolds.heldCarIds(at(day, 5, 10), at(day, 5, 13))).containsExactly(103L);
+        } finally {
+            for (CarHolds.Hold hold : List.of(longHold, before, inside, after)) {
+                carHolds.release(hold.id());
+            }
+        }
+    }
+
+    @Test
+    void availablePage_fillsPageAroundHeldCars() {
+        List<Long> firstPage = carService.availablePage(null, START_AT, END_AT, null, null, CarCursor.Sort.ID, 3)
+                .stream().map(Car::getId).toList();
+        assertThat(firstPage).hasSize(4);
+        // Удержаны три первых автомобиля страницы: страница добирается следующими порциями, а не укорачивается
+        List<CarHolds.Hold> holds = firstPage.subList(0, 3).stream()
+                .map(carId -> carHolds.place(userId("user"), carId, START_AT, END_AT))
+                .toList();
+        try {
+            List<Long> page = carService.availablePage(null, START_AT, END_AT, null, null, CarCursor.Sort.ID, 3)
+                    .stream().map(Car::getId).toList();
+
+            assertThat(page).hasSize(4).doesNotContainAnyElementsOf(firstPage.subList(0, 3)).startsWith(firstPage.get(3));
+        } finally {
+            holds.forEach(hold -> carHolds.release(hold.id()));
+        }
+    }
+
+    private static Instant at(Instant day, int days, int hours) {
+        return day.plus(Duration.ofDays(days)).plus(Duration.ofHours(hours));
+    }
+
+    @Test
+    void expiredHold_freesCar() throws InterruptedException {
+        CarHolds.Hold hold = reservationService.hold(request("user", null));
+        assertThat(carService.available(null, START_AT, END_AT, null)).extracting(Car::getId).doesNotContain(1L);
+
+        Thread.sleep(1000);
+
+        assertThat(carService.available(null, START_AT, END_AT, null)).extracting(Car::getId).contains(1L);
+        assertThatThrownBy(() -> reservationService.create(request("user", hold.id())))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getReason()).isEqualTo("Hold expired or not found"));
+        assertThat(carHolds.release(hold.id())).isFalse();
+    }
+
+    private ReservationCreateRequest request(String login, UUID holdId) {
+        ReservationCreateRequest request = new ReservationCreateRequest();
+        request.setUserId(userId(login));
+        request.setCarId(1L);
+        request.setStartAt(START_AT);
+        request.setEndAt(END_AT);
+        request.setHoldId(holdId);
+        return request;
+    }
+
+    private Long userId(String login) {
+        return userRepository.findByLogin(login).orElseThrow().getId();
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.carsharing_71.service;
+
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный тест создания бронирований: тысячи пересекающихся запросов из многих потоков
+ * на небольшой парк не должны дать ни одного двойного бронирования.
+ * Тест без общей транзакции: каждый запрос — отдельная транзакция, как в проде.
+ * Бронирование внутри внешней транзакции держит блокировку автомобиля до её коммита.
+ */
+@SpringBootTest(properties = {
+        // Логирование SQL с параметрами на таком объёме измеряет консоль, а не бронирование
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.sql=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql=WARN"
+})
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class ReservationConcurrencyIT {
+    private static final int CARS = 200;
+    private static final int REQUESTS = 4_000;
+    private static final int THREADS = 16;
+    private static final Instant AROUND = Instant.parse("2033-01-01T00:00:00Z");
+
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CarLocks carLocks;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentOverlappingRequests_neverDoubleBook() throws Exception {
+        List<Long> carIds = generateCars();
+        Long userId = userRepository.findByLogin("user").orElseThrow().getId();
+        Random random = new Random(7);
+        List<ReservationCreateRequest> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            ReservationCreateRequest request = new ReservationCreateRequest();
+            request.setUserId(userId);
+            request.setCarId(carIds.get(random.nextInt(CARS)));
+            Instant start = AROUND.plus(Duration.ofMinutes(random.nextInt(48 * 60)));
+            request.setStartAt(start);
+            request.setEndAt(start.plus(Duration.ofMinutes(60 + random.nextInt(3 * 60))));
+            requests.add(request);
+        }
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (ReservationCreateRequest request : requests) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    reservationService.create(request);
+                    created.incrementAndGet();
+                } catch (ResponseStatusException e) {
+                    if (e.getStatusCode() == HttpStatus.UNPROCESSABLE_CONTENT) {
+                        rejected.incrementAndGet();
+                    } else {
+                        failures.add(e);
+                    }
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        executor.shutdown();
+
+        Integer doubleBookings = jdbcTemplate.queryForObject(
+                "select count(*) from reservations a join reservations b " +
+                "on a.car_id = b.car_id and a.id < b.id " +
+                "and a.status = 'ACTIVE' and b.status = 'ACTIVE' " +
+                "and a.start_at < b.end_at and a.end_at > b.start_at", Integer.class);
+        Integer stored = jdbcTemplate.queryForObject(
+                "select count(*) from reservations r join cars c on c.id = r.car_id " +
+                "where c.plate_number like 'STRESS-%'", Integer.class);
+
+        System.out.printf("%n--- Запросов = %d, потоков = %d: создано = %d, отклонено = %d, %.0f запросов/с, " +
+                "двойных бронирований = %d ---%n", REQUESTS, THREADS, created.get(), rejected.get(),
+                REQUESTS / seconds, doubleBookings);
+        assertThat(failures).isEmpty();
+        assertThat(created.get() + rejected.get()).isEqualTo(REQUESTS);
+        assertThat(doubleBookings).isZero();
+        assertThat(stored).isEqualTo(created.get());
+        assertThat(created.get()).isPositive().isLessThanOrEqualTo(CARS);
+    }
+
+    @Test
+    void createInsideOuterTransaction_holdsCarLockUntilCommit() throws Exception {
+        jdbcTemplate.update("insert into cars (model_id, plate_number, location_id, status) values (1, 'OUTER-TX-1', 1, 'AVAILABLE')");
+        Long carId = jdbcTemplate.queryForObject("select id from cars where plate_number = 'OUTER-TX-1'", Long.class);
+        ReservationCreateRequest request = new ReservationCreateRequest();
+        request.setUserId(userRepository.findByLogin("user").orElseThrow().getId());
+        request.setCarId(carId);
+        request.setStartAt(AROUND.plus(Duration.ofDays(400)));
+        request.setEndAt(AROUND.plus(Duration.ofDays(401)));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        AtomicLong committedAt = new AtomicLong();
+        Future<Long> other = new TransactionTemplate(transactionManager).execute(status -> {
+            reservationService.create(request);
+            // Соседний поток ждёт блокировку автомобиля, пока внешняя транзакция не завершится
+            Future<Long> waiting = executor.submit(() -> carLocks.withCarLock(carId, System::nanoTime));
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            assertThat(waiting).isNotDone();
+            committedAt.set(System.nanoTime());
+            return waiting;
+        });
+        long lockedAt = other.get();
+        executor.shutdown();
+
+        System.out.println("\n--- Блокировка получена через " + (lockedAt - committedAt.get()) / 1_000 + " мкс после коммита ---");
+        assertThat(lockedAt).isGreaterThan(committedAt.get());
+        assertThat(jdbcTemplate.queryForObject("select status from cars where id = ?", String.class, carId))
+                .isEqualTo("RESERVED");
+    }
+
+    private List<Long> generateCars() {
+        List<Object[]> cars = new ArrayList<>();
+        for (int i = 0; i < CARS; i++) {
+            cars.add(new Object[]{1L + i % 7, "STRESS-" + i, 1L + i % 7, "AVAILABLE"});
+        }
+        jdbcTemplate.batchUpdate("insert into cars (model_id, plate_number, location_id, status) values (?, ?, ?, ?)", cars);
+        return jdbcTemplate.queryForList("select id from cars where plate_number like 'STRESS-%' order by id", Long.class);
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.carsharing_71.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Запрет пересечений на уровне БД (в тестах — триггер H2 вместо exclusion constraint PostgreSQL):
+ * бронирование вставляется без отдельной проверки пересечений, а нарушение даёт прежний ответ 422.
+ * Окно пересекается с бронированием автомобиля 1 из seed data (2025-01-12 09:00–18:00).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Transactional
+public class ReservationOverlapIT {
+    private static final String INSERT = "insert into reservations (user_id, car_id, start_at, end_at, status, created_at) " +
+            "values (1, 1, ?, ?, ?, ?)";
+
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void overlappingCreate_is422WithoutOverlapQuery() {
+        ReservationCreateRequest request = new ReservationCreateRequest();
+        request.setUserId(userRepository.findByLogin("user").orElseThrow().getId());
+        request.setCarId(1L);
+        request.setStartAt(Instant.parse("2025-01-12T10:00:00Z"));
+        request.setEndAt(Instant.parse("2025-01-12T12:00:00Z"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThatThrownBy(() -> reservationService.create(request))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT);
+                    assertThat(e.getReason()).isEqualTo("Car has overlapping reservation");
+                });
+
+        System.out.println("\n--- Запросы при бронировании: " + String.join(" | ", statistics.getQueries()) + " ---");
+        assertThat(statistics.getQueries()).noneMatch(query -> query.contains("count("));
+    }
+
+    @Test
+    void database_rejectsOverlappingActiveButAllowsCancelledAndAdjacent() {
+        assertThatThrownBy(() -> insert("2025-01-12T17:00:00Z", "2025-01-12T19:00:00Z", "ACTIVE"))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("ex_reservations_car_no_overlap");
+
+        assertThatCode(() -> insert("2025-01-12T10:00:00Z", "2025-01-12T11:00:00Z", "CANCELLED")).doesNotThrowAnyException();
+        assertThatCode(() -> insert("2025-01-12T18:00:00Z", "2025-01-12T20:00:00Z", "ACTIVE")).doesNotThrowAnyException();
+        assertThatThrownBy(() -> jdbcTemplate.update("update reservations set status = 'ACTIVE' " +
+                "where car_id = 1 and status = 'CANCELLED'"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private void insert(String startAt, String endAt, String status) {
+        jdbcTemplate.update(INSERT, Timestamp.from(Instant.parse(startAt)), Timestamp.from(Instant.parse(endAt)),
+                status, Timestamp.from(Instant.now()));
+    }
+}
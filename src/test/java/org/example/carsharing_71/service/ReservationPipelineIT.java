@@ -0,0 +1,200 @@
+package org.example.carsharing_71.service;
+
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.domain.Reservation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Очередь бронирований с одним писателем на шард: параллельные пересекающиеся запросы
+ * решаются пакетами без двойных бронирований, ответ остаётся синхронным, а переполненная
+ * очередь шарда сразу отвечает 503.
+ * Тест без общей транзакции: запросы обрабатывают потоки шардов.
+ */
+@SpringBootTest(properties = {
+        "carsharing.reservation.pipeline.enabled=true",
+        "carsharing.reservation.pipeline.shards=2",
+        // Не больше числа потоков клиента: в нагрузочном тесте очередь не переполняется
+        "carsharing.reservation.pipeline.queue-capacity=16",
+        "carsharing.reservation.pipeline.batch-size=16",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.sql=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql=WARN"
+})
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class ReservationPipelineIT {
+    private static final int CARS = 20;
+    private static final int REQUESTS = 600;
+    private static final int THREADS = 16;
+    private static final Instant AROUND = Instant.parse("2036-01-01T00:00:00Z");
+
+    @MockitoSpyBean
+    private ReservationService reservationService;
+    @Autowired
+    private ReservationPipeline pipeline;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentRequests_areBatchedPerShardWithoutDoubleBooking() throws Exception {
+        List<Long> carIds = generateCars("PIPE-");
+        Random random = new Random(11);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            Instant start = AROUND.plus(Duration.ofMinutes(random.nextInt(24 * 60)));
+            ReservationCreateRequest request = request(carIds.get(random.nextInt(CARS)), start, start.plus(Duration.ofHours(2)));
+            futures.add(executor.submit(() -> {
+                try {
+                    pipeline.submit(request);
+                    created.incrementAndGet();
+                } catch (ResponseStatusException e) {
+                    if (e.getStatusCode() == HttpStatus.UNPROCESSABLE_CONTENT) {
+                        rejected.incrementAndGet();
+                    } else {
+                        failures.add(e);
+                    }
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Integer doubleBookings = jdbcTemplate.queryForObject(
+                "select count(*) from reservations a join reservations b " +
+                "on a.car_id = b.car_id and a.id < b.id " +
+                "and a.status = 'ACTIVE' and b.status = 'ACTIVE' " +
+                "and a.start_at < b.end_at and a.end_at > b.start_at", Integer.class);
+        long processed = pipeline.stats().stream().mapToLong(row -> (Long) row.get("processed")).sum();
+        long batches = pipeline.stats().stream().mapToLong(row -> (Long) row.get("batches")).sum();
+        System.out.println("\n--- Запросов = " + REQUESTS + ": создано = " + created.get() + ", отклонено = " + rejected.get()
+                + ", пакетов = " + batches + ", шарды = " + pipeline.stats() + " ---");
+        assertThat(failures).isEmpty();
+        assertThat(created.get() + rejected.get()).isEqualTo(REQUESTS);
+        assertThat(created.get()).isPositive().isLessThanOrEqualTo(CARS);
+        assertThat(doubleBookings).isZero();
+        assertThat(processed).isGreaterThanOrEqualTo(REQUESTS);
+        assertThat(batches).isLessThan(processed);
+    }
+
+    @Test
+    void enabledPipelineWithoutShards_isRejectedAtStartup() {
+        assertThatThrownBy(() -> new ReservationPipeline(reservationService, null, true, Set.of(), 0,
+                16, 32, 200, Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pipelineBatchLargerThanServiceBatch_isRejectedAtStartup() {
+        assertThatThrownBy(() -> new ReservationPipeline(reservationService, null, true, Set.of(), 1,
+                16, 201, 200, Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("batch-size");
+        assertThatThrownBy(() -> new ReservationPipeline(reservationService, null, true, Set.of(), 1,
+                16, 0, 200, Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fullShardQueue_isRejectedImmediately() throws Exception {
+        Long carId = generateCars("FULL-").get(0);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            entered.countDown();
+            gate.await();
+            return invocation.callRealMethod();
+        }).when(reservationService).createBatch(anyList());
+        Instant start = AROUND.plus(Duration.ofDays(10));
+        ReservationCreateRequest request = request(carId, start, start.plus(Duration.ofHours(1)));
+
+        // Один запрос обрабатывается (и висит на шлюзе), ещё 16 заполняют очередь шарда.
+        // Очередь заполняем только после входа писателя в пакет, иначе он заберёт часть запросов в него
+        ExecutorService executor = Executors.newFixedThreadPool(17);
+        List<Future<Reservation>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> pipeline.submit(request)));
+        assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 16; i++) {
+            futures.add(executor.submit(() -> pipeline.submit(request)));
+        }
+        Instant deadline = Instant.now().plusSeconds(10);
+        while (queueDepth() < 16 && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+        assertThat(queueDepth()).isEqualTo(16);
+
+        assertThatThrownBy(() -> pipeline.submit(request))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+
+        gate.countDown();
+        int created = 0;
+        for (Future<Reservation> future : futures) {
+            try {
+                future.get();
+                created++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOfSatisfying(ResponseStatusException.class,
+                        cause -> assertThat(cause.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT));
+            }
+        }
+        executor.shutdown();
+        long rejected = pipeline.stats().stream().mapToLong(row -> (Long) row.get("rejected")).sum();
+        System.out.println("\n--- Переполнение очереди: создано = " + created + ", отклонено очередью = " + rejected + " ---");
+        assertThat(created).isEqualTo(1);
+        assertThat(rejected).isEqualTo(1);
+    }
+
+    private long queueDepth() {
+        return pipeline.stats().stream().map(row -> row.get("queueDepth")).mapToLong(depth -> (Integer) depth).sum();
+    }
+
+    private List<Long> generateCars(String prefix) {
+        List<Object[]> cars = new ArrayList<>();
+        for (int i = 0; i < CARS; i++) {
+            cars.add(new Object[]{1L + i % 7, prefix + i, 1L + i % 7, "AVAILABLE"});
+        }
+        jdbcTemplate.batchUpdate("insert into cars (model_id, plate_number, location_id, status) values (?, ?, ?, ?)", cars);
+        return jdbcTemplate.queryForList("select id from cars where plate_number like ? order by id", Long.class, prefix + "%");
+    }
+
+    private static ReservationCreateRequest request(Long carId, Instant startAt, Instant endAt) {
+        ReservationCreateRequest request = new ReservationCreateRequest();
+        request.setUserId(1L);
+        request.setCarId(carId);
+        request.setStartAt(startAt);
+        request.setEndAt(endAt);
+        return request;
+    }
+}
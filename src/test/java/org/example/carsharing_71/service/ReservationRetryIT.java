@@ -0,0 +1,156 @@
+package org.example.carsharing_71.service;
+
+import org.example.carsharing_71.api.dto.ReservationCreateRequest;
+import org.example.carsharing_71.availability.AvailabilityChecker;
+import org.example.carsharing_71.domain.Car;
+import org.example.carsharing_71.domain.CarStatus;
+import org.example.carsharing_71.repository.CarRepository;
+import org.example.carsharing_71.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Оптимистичные блокировки автомобиля: запись по устаревшей версии не затирает чужое изменение,
+ * а бронирование, столкнувшееся с параллельным изменением автомобиля, повторяется
+ * и попадает в счётчики конфликтов своей локации.
+ * Параллельное изменение имитируется отдельной транзакцией посреди проверки пересечений.
+ */
+@SpringBootTest(properties = {
+        // В режиме индекса бронирование делает раннюю проверку пересечений — в неё и встраивается помеха
+        "carsharing.availability.engine=INDEX",
+        "carsharing.reservation.retry.max-retries=2",
+        "carsharing.reservation.retry.delay=1ms"
+})
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@DirtiesContext
+public class ReservationRetryIT {
+    private static final Instant START_AT = Instant.parse("2034-02-01T10:00:00Z");
+    private static final Instant END_AT = Instant.parse("2034-02-01T12:00:00Z");
+
+    @MockitoSpyBean
+    private AvailabilityChecker availabilityChecker;
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private ReservationContention contention;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        contention.reset();
+    }
+
+    @Test
+    void staleCarWrite_failsInsteadOfOverwriting() {
+        Car stale = availableCar(0);
+        reservationService.create(request(stale.getId()));
+
+        stale.setStatus(CarStatus.MAINTENANCE);
+
+        assertThatThrownBy(() -> carRepository.save(stale)).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(carRepository.findById(stale.getId()).orElseThrow().getStatus()).isEqualTo(CarStatus.RESERVED);
+    }
+
+    @Test
+    void concurrentCarChange_isRetriedAndCounted() {
+        Car car = availableCar(1);
+        AtomicInteger bumps = concurrentChangeOn(car.getId(), 1);
+
+        reservationService.create(request(car.getId()));
+
+        Map<String, Object> counters = countersFor(car);
+        System.out.println("\n--- Конфликтов = " + counters.get("conflicts") + ", повторов = " + counters.get("retries") + " ---");
+        assertThat(bumps.get()).isEqualTo(1);
+        assertThat(counters).containsEntry("conflicts", 1L).containsEntry("retries", 1L).containsEntry("exhausted", 0L);
+        assertThat(carRepository.findById(car.getId()).orElseThrow().getStatus()).isEqualTo(CarStatus.RESERVED);
+    }
+
+    @Test
+    void persistentConflict_givesUp409AfterRetries() {
+        Car car = availableCar(2);
+        concurrentChangeOn(car.getId(), Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> reservationService.create(request(car.getId())))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        assertThat(countersFor(car)).containsEntry("conflicts", 3L).containsEntry("retries", 2L).containsEntry("exhausted", 1L);
+        Integer stored = jdbcTemplate.queryForObject("select count(*) from reservations where car_id = ?", Integer.class, car.getId());
+        assertThat(stored).isZero();
+    }
+
+    /**
+     * Первые {@code times} проверок пересечений для автомобиля меняют его версию в отдельной транзакции.
+     */
+    private AtomicInteger concurrentChangeOn(long carId, int times) {
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger bumps = new AtomicInteger();
+        doAnswer(invocation -> {
+            if ((Long) invocation.getArgument(0) == carId && bumps.get() < times) {
+                bumps.incrementAndGet();
+                concurrent.executeWithoutResult(status ->
+                        jdbcTemplate.update("update cars set version = version + 1 where id = ?", carId));
+            }
+            return invocation.callRealMethod();
+        }).when(availabilityChecker).hasOverlap(anyLong(), any(), any());
+        return bumps;
+    }
+
+    private Map<String, Object> countersFor(Car car) {
+        List<Map<String, Object>> stats = contention.stats();
+        return stats.stream()
+                .filter(row -> car.getLocation().getId().equals(row.get("locationId")))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Car availableCar(int index) {
+        return carRepository.findAll().stream()
+                .filter(car -> car.getStatus() == CarStatus.AVAILABLE)
+                .skip(index)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private ReservationCreateRequest request(Long carId) {
+        ReservationCreateRequest request = new ReservationCreateRequest();
+        request.setUserId(userRepository.findByLogin("user").orElseThrow().getId());
+        request.setCarId(carId);
+        request.setStartAt(START_AT);
+        request.setEndAt(END_AT);
+        return request;
+    }
+}